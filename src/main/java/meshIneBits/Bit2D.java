@@ -32,6 +32,8 @@ package meshIneBits;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.AreaTool;
 import meshIneBits.util.CutPathUtil;
+import meshIneBits.util.DistanceField;
+import meshIneBits.util.Outline;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.Vector2;
 import org.jetbrains.annotations.NotNull;
@@ -43,7 +45,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -58,6 +63,13 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @see Bit3D
  */
 public class Bit2D implements Cloneable, Serializable {
+    private static final long serialVersionUID = 5056666474711494737L;
+
+    /**
+     * Rectangular boundaries in {@link Bit2D} coordinate system, shared by
+     * all untrimmed bits of the same size
+     */
+    private static final Map<List<Double>, Area> untrimmedRawAreas = new ConcurrentHashMap<>();
     /**
      * In the {@link Mesh} coordinate system
      */
@@ -78,6 +90,21 @@ public class Bit2D implements Cloneable, Serializable {
      * In {@link Bit2D} coordinate system
      */
     private Vector<Area> areas = new Vector<>();
+    /**
+     * In {@link Mesh} coordinate system. Computed on first read and dropped
+     * whenever {@link #areas} or {@link #cutPaths} change
+     *
+     * @see #invalidateTransformedGeometry()
+     */
+    private transient Area transformedArea;
+    private transient Vector<Area> transformedAreas;
+    private transient Vector<Path2D> transformedCutPaths;
+    private transient Rectangle2D transformedBounds;
+    /**
+     * <code>true</code> while {@link #areas} is still the plain rectangle
+     * built by {@link #buildBoundaries()}
+     */
+    private transient boolean untrimmed;
 
     /**
      * <code>true</code> if the bit has been placed in a bid to feed the neural network.
@@ -193,6 +220,32 @@ public class Bit2D implements Cloneable, Serializable {
         this.areas = areas;
     }
 
+    /**
+     * Constructor for unpacking a {@link BitStore}
+     *
+     * @param origin       center of bit's outer bound
+     * @param orientation  rotation of the bit
+     * @param length       length of the bit
+     * @param width        width of the bit
+     * @param areas        raw areas. <tt>null</tt> if untrimmed
+     * @param cutPaths     raw cut paths
+     * @param inverseInCut see {@link #getInverseInCut()}
+     * @param fullLength   see {@link #isFullLength()}
+     * @param usedForNN    see {@link #isUsedForNN()}
+     */
+    Bit2D(Vector2 origin, Vector2 orientation, double length, double width, Vector<Area> areas,
+          Vector<Path2D> cutPaths, boolean inverseInCut, boolean fullLength, boolean usedForNN) {
+        this(origin, orientation, length, width);
+        if (areas != null) {
+            this.areas = areas;
+            untrimmed = false;
+        }
+        this.cutPaths = cutPaths;
+        this.inverseInCut = inverseInCut;
+        this.checkFullLength = fullLength;
+        this.usedForNN = usedForNN;
+    }
+
     /**
      * Returns the four segments of a Bit2D (the Bit2D is not cut by cut paths)
      * @return a Vector of the four segments.
@@ -233,50 +286,122 @@ public class Bit2D implements Cloneable, Serializable {
      * bitWidth} / 2 ). The bit's boundary is a rectangle.
      */
     private void buildBoundaries() {
-        Rectangle2D.Double r = new Rectangle2D.Double(
+        this.areas.clear();
+        this.areas.add(untrimmedRawAreas.computeIfAbsent(
+                Arrays.asList(CraftConfig.lengthFull, CraftConfig.bitWidth, length, width),
+                k -> new Area(getRawBoundary())));
+        untrimmed = true;
+        invalidateTransformedGeometry();
+    }
+
+    /**
+     * @return the rectangle boundary in {@link Bit2D} coordinate system
+     */
+    private Rectangle2D getRawBoundary() {
+        return new Rectangle2D.Double(
                 -CraftConfig.lengthFull / 2,
                 -CraftConfig.bitWidth / 2,
                 length,
                 width
         );
+    }
 
-        this.areas.clear();
-        this.areas.add(new Area(r));
+    /**
+     * @return <code>true</code> if the surface of this bit is still its whole
+     * rectangle boundary, not cut by any area
+     */
+    public boolean isUntrimmed() {
+        return untrimmed;
+    }
 
+    /**
+     * Checks without any boolean operation whether cutting this bit along the
+     * area of <tt>field</tt> would leave it unchanged
+     *
+     * @param field distance raster of an area in {@link Mesh} coordinate system
+     * @return <code>true</code> if this bit is untrimmed, of full size and its
+     * rectangle boundary lies inside the area
+     * @see #isFullSize()
+     */
+    public boolean isUntrimmedInside(DistanceField field) {
+        return untrimmed && isFullSize() && field.surelyContains(getRawBoundary(), transfoMatrix);
+    }
 
+    /**
+     * A resized bit needs {@link #updateBoundaries(Area)} even inside the area,
+     * as the section holding and the cut paths depend on its size
+     *
+     * @return <code>true</code> if this bit has the size of a whole bit
+     */
+    public boolean isFullSize() {
+        return length == CraftConfig.lengthFull && width == CraftConfig.bitWidth;
+    }
+
+    /**
+     * Drop the cached geometry in {@link Mesh} coordinate system. Must be
+     * called after any change of the raw areas or raw cut paths
+     */
+    void invalidateTransformedGeometry() {
+        transformedArea = null;
+        transformedAreas = null;
+        transformedCutPaths = null;
+        transformedBounds = null;
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     public Bit2D clone() {
-        return new Bit2D(origin, orientation, length, width, (AffineTransform) transfoMatrix.clone(),
+        Bit2D bit = new Bit2D(origin, orientation, length, width, (AffineTransform) transfoMatrix.clone(),
                 (AffineTransform) inverseTransfoMatrix.clone(), getClonedRawCutPaths(), getClonedRawAreas());
+        bit.untrimmed = untrimmed;
+        return bit;
     }
 
     /**
-     * @return the union of all cloned surfaces making this {@link Bit2D}. Expressed
+     * Shared with the bit: clone it before any modification
+     *
+     * @return the union of all surfaces making this {@link Bit2D}. Expressed
      * in {@link Mesh} coordinate system
      */
     public Area getArea() {
-        Area transformedArea = new Area();
-        for (Area a : areas) {
-            transformedArea.add(a);
+        Area area = transformedArea;
+        if (area == null) {
+            area = getRawArea();
+            area.transform(transfoMatrix);
+            transformedArea = area;
         }
-        transformedArea.transform(transfoMatrix);
-        return transformedArea;
+        return area;
     }
 
     /**
-     * @return clone of all surfaces making this bit transformed by
+     * Shared with the bit: must not be modified
+     *
+     * @return bounds of {@link #getArea()}, in {@link Mesh} coordinate system
+     */
+    public Rectangle2D getBounds2D() {
+        Rectangle2D bounds = transformedBounds;
+        if (bounds == null) {
+            bounds = getArea().getBounds2D();
+            transformedBounds = bounds;
+        }
+        return bounds;
+    }
+
+    /**
+     * Shared with the bit: must not be modified
+     *
+     * @return all surfaces making this bit transformed by
      * <tt>transforMatrix</tt>
      */
     @SuppressWarnings("unused")
     public Vector<Area> getAreas() {
-        Vector<Area> result = new Vector<>();
-        for (Area a : areas) {
-            Area transformedArea = new Area(a);
-            transformedArea.transform(transfoMatrix);
-            result.add(transformedArea);
+        Vector<Area> result = transformedAreas;
+        if (result == null) {
+            result = new Vector<>();
+            for (Area a : areas) {
+                result.add(a.createTransformedArea(transfoMatrix));
+            }
+            transformedAreas = result;
         }
         return result;
     }
@@ -308,20 +433,25 @@ public class Bit2D implements Cloneable, Serializable {
     }
 
     /**
-     * @return clone of cut paths (after transforming into coordinates system of
-     * {@link Mesh})
+     * Shared with the bit: must not be modified
+     *
+     * @return cut paths after transforming into coordinates system of
+     * {@link Mesh}
      */
     @SuppressWarnings("unused")
     public Vector<Path2D> getCutPaths() {
         if (this.cutPaths == null) {
             return null;
-        } else {
-            Vector<Path2D> paths = new Vector<>();
+        }
+        Vector<Path2D> paths = transformedCutPaths;
+        if (paths == null) {
+            paths = new Vector<>();
             for (Path2D p : this.cutPaths) {
                 paths.add(new Path2D.Double(p, transfoMatrix));
             }
-            return paths;
+            transformedCutPaths = paths;
         }
+        return paths;
     }
 
     /**
@@ -376,6 +506,8 @@ public class Bit2D implements Cloneable, Serializable {
     }
 
     /**
+     * Must not be modified
+     *
      * @return set of raw areas of this bit (not transformed)
      */
     public Vector<Area> getRawAreas() {
@@ -383,7 +515,8 @@ public class Bit2D implements Cloneable, Serializable {
     }
 
     /**
-     * Any change will reflect on bit itself
+     * Any change will reflect on bit itself, and must be followed by
+     * {@link #invalidateTransformedGeometry()}
      *
      * @return raw cut paths
      */
@@ -422,9 +555,10 @@ public class Bit2D implements Cloneable, Serializable {
      */
     public void updateBoundaries(@NotNull Area transformedArea) {
         areas.clear();
+        untrimmed = false;
         Area newArea = (Area) transformedArea.clone();
         if(!checkSectionHoldingToCut(origin,orientation,newArea)){
-            removeSectionHolding(this,newArea);
+            newArea = removeSectionHolding(this,newArea);
             checkFullLength=false;
         }else if(checkInverseBit(this,newArea)){
             inverseInCut = true;
@@ -435,12 +569,12 @@ public class Bit2D implements Cloneable, Serializable {
 //            areas.addAll(listAreas);
 //        }else
         areas.addAll(listAreas!=null ? listAreas : new Vector<>());
-
+        invalidateTransformedGeometry();
     }
 
-    private static void removeSectionHolding(Bit2D bit,Area bitArea) {
+    private static Area removeSectionHolding(Bit2D bit,Area bitArea) {
         Vector<Area> sections=getTwoSectionHolding(bit.origin,bit.orientation,0.0);
-        bitArea.subtract(sections.lastElement());
+        return AreaTool.subtract(bitArea, sections.lastElement());
     }
 
     /**
@@ -458,7 +592,7 @@ public class Bit2D implements Cloneable, Serializable {
 
     @Override
     public String toString() {
-        Rectangle2D bound = this.getArea().getBounds2D();
+        Rectangle2D bound = this.getBounds2D();
         return "Bit2D[origin=" + origin
                 + ", length=" + length
                 + ", width=" + width
@@ -497,7 +631,12 @@ public class Bit2D implements Cloneable, Serializable {
         // We all calculate in coordinate
         // Reset cut paths
         this.cutPaths = new Vector<>();
-        Vector<Vector<Segment2D>> polygons = AreaTool.getSegmentsFrom(this.getRawArea());
+        if (untrimmed && isFullSize()) {
+            // All edges lie on the sides
+            invalidateTransformedGeometry();
+            return;
+        }
+        Outline outline = Outline.from(this.getRawArea());
         // Define 4 corners
         Vector2 cornerUpRight = new Vector2(+CraftConfig.lengthFull / 2.0, -CraftConfig.bitWidth / 2.0);
         Vector2 cornerDownRight = new Vector2(cornerUpRight.x, cornerUpRight.y + width);
@@ -515,7 +654,6 @@ public class Bit2D implements Cloneable, Serializable {
         // If and edge lives on sides of the bit
         // We remove it
 //        Set<Vector<Segment2D>> listPolygons = new HashSet<>();
-        polygons.forEach(polygon -> polygon.removeIf(edge -> sideBottom.contains(edge)||sideLeft.contains(edge)||sideRight.contains(edge)||sideTop.contains(edge)));
 //            if (sideLeft.contains(edge)) {
 //                insideSideLeft.set(true);
 //                return true;
@@ -544,47 +682,42 @@ public class Bit2D implements Cloneable, Serializable {
         // After filter out the edges on sides
         // We form cut paths from these polygons
         // Each polygon may contain multiple cut paths
-        for (Vector<Segment2D> polygon : polygons) {
-            if (polygon.isEmpty())
-                continue;
-            Path2D cutPath2D = new Path2D.Double();
-            Vector<Path2D> cutPaths2D = new Vector<>();
-//            Segment2D currentEdge = polygon.get(0);
-//            cutPath2D.moveTo(currentEdge.start.x, currentEdge.start.y);
-            Point2D.Double moveToGlobal;
-            for (int i = 0; i < polygon.size(); i++) {
-                Point2D moveToCurrent;
-                Segment2D currentEdge = polygon.get(i);
-                if (i == 0 || !(currentEdge.start.asGoodAsEqual(polygon.get(i - 1).end))) {
-                    cutPath2D.moveTo(currentEdge.start.x, currentEdge.start.y);
-                }
-                cutPath2D.lineTo(currentEdge.end.x, currentEdge.end.y);
-                // Some edges may have been deleted
-                // So we check beforehand to skip
-//                if (i + 1 < polygon.size() && currentEdge.getNext()!=null && !polygon.contains(currentEdge.getNext())) {
-                // If the next edge has been removed
-                // We complete the path
-//                    cutPaths2D.add(cutPath2D);
-//                    // Then we create a new one
-//                    // And move to the start of the succeeding edge
-//                    cutPath2D = new Path2D.Double();
-//                    cutPath2D.moveTo(polygon.get(i + 1).start.x, polygon.get(i + 1).start.y);
-//                }
-                if((currentEdge.end.isOnSegment(sideBottom)||currentEdge.end.isOnSegment(sideTop))&&currentEdge.getNext()!=null){
-                    cutPath2D.moveTo(currentEdge.end.x,currentEdge.end.y);
+        double tolerance = Math.pow(10, -CraftConfig.errorAccepted);
+        for (int r = 0; r < outline.ringCount(); r++) {
+            Path2D cutPath2D = null;
+            double lastX = 0, lastY = 0;
+            for (int e = outline.ringStart(r); e < outline.ringEnd(r); e++) {
+                double startX = outline.startX(e), startY = outline.startY(e);
+                double endX = outline.endX(e), endY = outline.endY(e);
+                if (isOnSide(sideBottom, startX, startY, endX, endY)
+                        || isOnSide(sideLeft, startX, startY, endX, endY)
+                        || isOnSide(sideRight, startX, startY, endX, endY)
+                        || isOnSide(sideTop, startX, startY, endX, endY))
+                    continue;
+                if (cutPath2D == null) {
+                    cutPath2D = new Path2D.Double();
+                    cutPath2D.moveTo(startX, startY);
+                } else if (Math.abs(startX - lastX) + Math.abs(startY - lastY) >= tolerance) {
+                    // Some edges have been skipped
+                    cutPath2D.moveTo(startX, startY);
                 }
+                cutPath2D.lineTo(endX, endY);
+                lastX = endX;
+                lastY = endY;
             }
             // Finish the last cut path
-            if (!cutPaths2D.contains(cutPath2D)) {
-                cutPath2D = CutPathUtil.OrganizeOrderCutInPath2D(cutPath2D);
-                cutPaths2D.add(cutPath2D);
-            }
-            this.cutPaths.addAll(cutPaths2D);
-
-//            cutPathsSeparate.add(cutPaths2D);
+            if (cutPath2D != null)
+                this.cutPaths.add(CutPathUtil.OrganizeOrderCutInPath2D(cutPath2D));
         }
         CutPathUtil.sortCutPath(this.cutPaths);
+        invalidateTransformedGeometry();
+    }
 
+    /**
+     * @return <tt>true</tt> if both ends of the edge lie on <tt>side</tt>
+     */
+    private static boolean isOnSide(Segment2D side, double startX, double startY, double endX, double endY) {
+        return side.contains(startX, startY) && side.contains(endX, endY);
     }
 
     /**
@@ -748,6 +881,7 @@ public class Bit2D implements Cloneable, Serializable {
 
     public void setCutPaths(Vector<Path2D> cutPaths) {
         this.cutPaths = cutPaths;
+        invalidateTransformedGeometry();
     }
 
     public boolean isUsedForNN() {
@@ -42,6 +42,7 @@ import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -49,7 +50,16 @@ import java.util.stream.Collectors;
  * extrusion of a {@link Bit2D}
  */
 public class Bit3D implements Serializable, Cloneable {
+    private static final long serialVersionUID = -121583387896177037L;
+
     private static final String TAG = "Bit3D";
+    /**
+     * Lift point in {@link Bit2D} coordinate system of untrimmed bits, per size
+     * of bit and sucker
+     *
+     * @see Bit2D#isUntrimmed()
+     */
+    private static final Map<List<Double>, Optional<Vector2>> untrimmedLiftPoints = new ConcurrentHashMap<>();
     /**
      * In {@link #bit2dToExtrude} coordinate system
      */
@@ -80,6 +90,7 @@ public class Bit3D implements Serializable, Cloneable {
 
     public Vector<Double> getListAngles() {
 //        if(listAngles.size()==0) throw new NullPointerException("List of angles is not calculated");
+        calcAngles();
         return listAngles;
     }
 
@@ -89,6 +100,14 @@ public class Bit3D implements Serializable, Cloneable {
     private Vector<Double> listAngles=new Vector<>();
 
     private boolean irregular = false;
+    /**
+     * Lift points, grip points and angles are only computed on first read
+     *
+     * @see #prefetch()
+     */
+    private volatile boolean liftPointsComputed = false;
+    private volatile boolean distantPointsComputed = false;
+    private volatile boolean anglesComputed = false;
     private double lowerAltitude;
     private double higherAltitude;
 
@@ -99,7 +118,8 @@ public class Bit3D implements Serializable, Cloneable {
     }
 
     /**
-     * Construct bit 3D from horizontal section and calculate lift points
+     * Construct bit 3D from horizontal section. Lift points are calculated on
+     * first read
      *
      * @param baseBit horizontal cut
      * @param layer in which this bit resides
@@ -110,8 +130,6 @@ public class Bit3D implements Serializable, Cloneable {
         orientation = baseBit.getOrientation();
         rawCutPaths = baseBit.getRawCutPaths();
         reverseInCut=baseBit.getInverseInCut();
-        computeLiftPoints();
-        computeTwoPointNearTwoPointMostDistantOnBit();
         lowerAltitude = layer.getLowerAltitude();
         higherAltitude = layer.getHigherAltitude();
     }
@@ -120,8 +138,6 @@ public class Bit3D implements Serializable, Cloneable {
         origin = bit3D.getOrigin();
         orientation = bit3D.getOrientation();
         rawCutPaths = (Vector<Path2D>) bit3D.getRawCutPaths();
-        computeLiftPoints();
-        computeTwoPointNearTwoPointMostDistantOnBit();
         lowerAltitude = bit3D.getLowerAltitude();
         higherAltitude = bit3D.getHigherAltitude();
         reverseInCut=bit3D.isReverseInCut();
@@ -129,35 +145,73 @@ public class Bit3D implements Serializable, Cloneable {
 
     private Vector2 computeLiftPoint(Area subBit) {
 //        System.out.println(TAG+"computeLiftPoint");
+        if (bit2dToExtrude.isUntrimmed())
+            return untrimmedLiftPoints.computeIfAbsent(
+                    Arrays.asList(CraftConfig.lengthFull, CraftConfig.bitWidth,
+                            bit2dToExtrude.getLength(), bit2dToExtrude.getWidth(),
+                            CraftConfig.suckerDiameter),
+                    k -> Optional.ofNullable(AreaTool.getLiftPoint(subBit, CraftConfig.suckerDiameter / 2)))
+                    .orElse(null);
         return AreaTool.getLiftPoint(subBit, CraftConfig.suckerDiameter / 2);
     }
 
     /**
      * Calculate the lift point, which is the best position to grip
-     * the bit by vacuuming.
+     * the bit by vacuuming. Only done once
      */
     private void computeLiftPoints() {
+        if (liftPointsComputed) return;
+        synchronized (this) {
+            if (liftPointsComputed) return;
 //        System.out.println(TAG+"computeLiftPoint void");
-        for (Area subBit : bit2dToExtrude.getRawAreas()) {
-            Vector2 liftPoint = computeLiftPoint(subBit);
-            if (liftPoint != null) {
-                rawLiftPoints.add(liftPoint);
-                liftPoints.add(liftPoint.getTransformed(bit2dToExtrude.getTransfoMatrix()));
-            } else {
-                irregular = true;
+            rawLiftPoints.clear();
+            liftPoints.clear();
+            irregular = false;
+            for (Area subBit : bit2dToExtrude.getRawAreas()) {
+                Vector2 liftPoint = computeLiftPoint(subBit);
+                if (liftPoint != null) {
+                    rawLiftPoints.add(liftPoint);
+                    liftPoints.add(liftPoint.getTransformed(bit2dToExtrude.getTransfoMatrix()));
+                } else {
+                    irregular = true;
+                }
             }
+            liftPointsComputed = true;
         }
     }
 
+    /**
+     * Compute now the lift points, grip points and angles of this bit, instead
+     * of on first read
+     */
+    public void prefetch() {
+        computeLiftPoints();
+        computeTwoPointNearTwoPointMostDistantOnBit();
+        calcAngles();
+    }
+
+    /**
+     * Compute in parallel the lift points, grip points and angles of
+     * <tt>bits</tt>
+     *
+     * @param bits to be read soon
+     * @see #prefetch()
+     */
+    public static void prefetch(Collection<Bit3D> bits) {
+        bits.parallelStream().forEach(Bit3D::prefetch);
+    }
+
     public List<Path2D> getRawCutPaths() {
         return rawCutPaths;
     }
 
     public List<Vector2> getLiftPoints() {
+        computeLiftPoints();
         return liftPoints;
     }
 
     public List<Vector2> getRawLiftPoints() {
+        computeLiftPoints();
         return rawLiftPoints;
     }
 
@@ -181,19 +235,20 @@ public class Bit3D implements Serializable, Cloneable {
     }
 
     public boolean isIrregular() {
+        computeLiftPoints();
         return irregular;
     }
 
     @Override
     public String toString() {
-        Rectangle2D bound = bit2dToExtrude.getArea().getBounds2D();
+        Rectangle2D bound = bit2dToExtrude.getBounds2D();
         return "Bit3D[" +
                 "origin=" + origin +
                 ", orientation=" + orientation +
                 ", width=" + bit2dToExtrude.getLength() +
                 ", height=" + bit2dToExtrude.getWidth() +
-                ", liftPoints=" + liftPoints +
-                ", irregular=" + irregular +
+                ", liftPoints=" + getLiftPoints() +
+                ", irregular=" + isIrregular() +
                 ", areaBound=" +
                 "[x=" + bound.getX() +
                 ", y=" + bound.getY() +
@@ -206,12 +261,21 @@ public class Bit3D implements Serializable, Cloneable {
         return this.getRawLiftPoints().size() > 0;
     }
 
+    /**
+     * Only done once
+     */
     public void computeTwoPointNearTwoPointMostDistantOnBit(){
-        for (Area area : bit2dToExtrude.getRawAreas()){
-            Vector<Vector2> listPoint = AreaTool.defineTwoPointNearTwoMostDistantPointsInAreaWithRadius(area,CraftConfig.suckerDiameter/4);
-            if (listPoint != null) {
-                listTwoDistantPoints.add(listPoint);
+        if (distantPointsComputed) return;
+        synchronized (this) {
+            if (distantPointsComputed) return;
+            listTwoDistantPoints.clear();
+            for (Area area : bit2dToExtrude.getRawAreas()){
+                Vector<Vector2> listPoint = AreaTool.defineTwoPointNearTwoMostDistantPointsInAreaWithRadius(area,CraftConfig.suckerDiameter/4);
+                if (listPoint != null) {
+                    listTwoDistantPoints.add(listPoint);
+                }
             }
+            distantPointsComputed = true;
         }
     }
 
@@ -236,26 +300,36 @@ public class Bit3D implements Serializable, Cloneable {
      * @return list of distant points in {@link Mesh} coordinate
      */
     public Vector<Vector2> getTwoDistantPointsInMeshCoordinate() {
+        computeTwoPointNearTwoPointMostDistantOnBit();
         Vector<Vector2> listPoints = new Vector<>();
         listTwoDistantPoints.forEach(list -> list.forEach(ele->listPoints.add(ele.getTransformed(bit2dToExtrude.getTransfoMatrix()))));
         return listPoints;
     }
     public Vector<Vector2> getTwoDistantPoints() {
+        computeTwoPointNearTwoPointMostDistantOnBit();
         Vector<Vector2> listPoints = new Vector<>();
         listTwoDistantPoints.forEach(list -> list.forEach(ele->listPoints.add(ele)));
         return listPoints;
     }
     private void calcAngles(){
-        if(listTwoDistantPoints.size()>0)
-        listTwoDistantPoints.forEach(twoDistantPoints->{
-                    if(twoDistantPoints.size()>0){
-                        listAngles.add(
-                                calculateAngleOfTwoPoint(twoDistantPoints.firstElement(),twoDistantPoints.lastElement()));
-                    }else listAngles.add(null);
-                }
-            );
+        if (anglesComputed) return;
+        computeTwoPointNearTwoPointMostDistantOnBit();
+        synchronized (this) {
+            if (anglesComputed) return;
+            listAngles.clear();
+            if(listTwoDistantPoints.size()>0)
+            listTwoDistantPoints.forEach(twoDistantPoints->{
+                        if(twoDistantPoints.size()>0){
+                            listAngles.add(
+                                    calculateAngleOfTwoPoint(twoDistantPoints.firstElement(),twoDistantPoints.lastElement()));
+                        }else listAngles.add(null);
+                    }
+                );
+            anglesComputed = true;
+        }
     }
     public Vector<Vector<Vector2>> getListTwoDistantPoints(){
+        computeTwoPointNearTwoPointMostDistantOnBit();
         return listTwoDistantPoints;
     }
 
@@ -274,6 +348,7 @@ public class Bit3D implements Serializable, Cloneable {
     }
 
     private void inverseLiftPoint() {
+        computeLiftPoints();
         AffineTransform matrixReverseBit = new AffineTransform();
         matrixReverseBit.rotate(Math.PI);
         Vector<Vector2> rawLiftPoints = new Vector<>(this.rawLiftPoints);
@@ -288,6 +363,7 @@ public class Bit3D implements Serializable, Cloneable {
 
 
     private void inverseDistantPoints(){
+        calcAngles();
         AffineTransform matrixReverseBit = new AffineTransform();
         matrixReverseBit.rotate(Math.PI);
         //
@@ -313,6 +389,7 @@ public class Bit3D implements Serializable, Cloneable {
         for(int i = cutPaths.size()-1;i>=0;i--){
             this.getRawCutPaths().add(CutPathUtil.transformPath2D(cutPaths.get(i),matrixReverseBit));
         }
+        bit2dToExtrude.invalidateTransformedGeometry();
     }
     public boolean isHoldedInCUt(){
         Area bitArea = this.getRawArea();
@@ -0,0 +1,265 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits;
+
+import meshIneBits.util.Vector2;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Bits of a {@link Pavement} packed into columns of primitive arrays, so that
+ * paved layers nobody is looking at do not hold one object graph per bit.
+ * <br/>
+ * Bit <tt>i</tt> owns the shapes from <tt>bitShapes[i]</tt> (inclusive) to
+ * <tt>bitShapes[i + 1]</tt> (exclusive): first its raw areas, then from
+ * <tt>cutPathStarts[i]</tt> its raw cut paths. Shape <tt>s</tt> spans the
+ * segment types from <tt>segmentStarts[s]</tt> and the coordinates from
+ * <tt>coordStarts[s]</tt>, as given by its {@link PathIterator}.
+ * <br/>
+ * Untrimmed bits keep no area: they get back the rectangle shared by
+ * {@link Bit2D}. Keys and origins are kept as they are, so that the restored
+ * map answers to the same {@link Vector2} instances.
+ *
+ * @see Pavement#compact()
+ */
+final class BitStore {
+    private static final byte USED_FOR_NN = 1;
+    private static final byte INVERSE_IN_CUT = 2;
+    private static final byte FULL_LENGTH = 4;
+    private static final byte UNTRIMMED = 8;
+    private static final byte NO_CUT_PATHS = 16;
+
+    private final Vector2[] keys;
+    private final Vector2[] origins;
+    private final double[] orientations;
+    private final double[] sizes;
+    private final byte[] flags;
+    private final int[] bitShapes;
+    private final int[] cutPathStarts;
+
+    private int shapeCount;
+    private int[] segmentStarts = new int[16];
+    private int[] coordStarts = new int[16];
+    private byte[] windingRules = new byte[16];
+    private int segmentCount;
+    private byte[] segmentTypes = new byte[64];
+    private int coordCount;
+    private double[] coords = new double[128];
+
+    private BitStore(int size) {
+        keys = new Vector2[size];
+        origins = new Vector2[size];
+        orientations = new double[2 * size];
+        sizes = new double[2 * size];
+        flags = new byte[size];
+        bitShapes = new int[size + 1];
+        cutPathStarts = new int[size];
+    }
+
+    /**
+     * @param mapBits bits to pack, in {@link Mesh} coordinate system
+     * @return a store holding the same bits
+     */
+    static BitStore of(Map<Vector2, Bit2D> mapBits) {
+        BitStore store = new BitStore(mapBits.size());
+        int i = 0;
+        for (Map.Entry<Vector2, Bit2D> entry : mapBits.entrySet()) {
+            store.add(i++, entry.getKey(), entry.getValue());
+        }
+        store.trim();
+        return store;
+    }
+
+    /**
+     * @return a new map of new bits, equal to the packed ones
+     */
+    Map<Vector2, Bit2D> toMap() {
+        Map<Vector2, Bit2D> mapBits = new HashMap<>(keys.length * 4 / 3 + 1);
+        for (int i = 0; i < keys.length; i++) {
+            mapBits.put(keys[i], get(i));
+        }
+        return mapBits;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return keys of the packed bits, not to be modified
+     */
+    List<Vector2> getKeys() {
+        return Arrays.asList(keys);
+    }
+
+    private void add(int i, Vector2 key, Bit2D bit) {
+        keys[i] = key;
+        origins[i] = bit.getOrigin();
+        orientations[2 * i] = bit.getOrientation().x;
+        orientations[2 * i + 1] = bit.getOrientation().y;
+        sizes[2 * i] = bit.getLength();
+        sizes[2 * i + 1] = bit.getWidth();
+        byte flag = 0;
+        if (bit.isUsedForNN()) flag |= USED_FOR_NN;
+        if (bit.getInverseInCut()) flag |= INVERSE_IN_CUT;
+        if (Boolean.TRUE.equals(bit.isFullLength())) flag |= FULL_LENGTH;
+        bitShapes[i] = shapeCount;
+        if (bit.isUntrimmed()) {
+            flag |= UNTRIMMED;
+        } else {
+            for (Area area : bit.getRawAreas()) {
+                addShape(area);
+            }
+        }
+        cutPathStarts[i] = shapeCount;
+        Vector<Path2D> cutPaths = bit.getRawCutPaths();
+        if (cutPaths == null) {
+            flag |= NO_CUT_PATHS;
+        } else {
+            for (Path2D cutPath : cutPaths) {
+                addShape(cutPath);
+            }
+        }
+        flags[i] = flag;
+        bitShapes[i + 1] = shapeCount;
+    }
+
+    private Bit2D get(int i) {
+        byte flag = flags[i];
+        Vector<Area> areas = null;
+        if ((flag & UNTRIMMED) == 0) {
+            areas = new Vector<>(cutPathStarts[i] - bitShapes[i]);
+            for (int s = bitShapes[i]; s < cutPathStarts[i]; s++) {
+                areas.add(new Area(getShape(s)));
+            }
+        }
+        Vector<Path2D> cutPaths = null;
+        if ((flag & NO_CUT_PATHS) == 0) {
+            cutPaths = new Vector<>(Math.max(bitShapes[i + 1] - cutPathStarts[i], 1));
+            for (int s = cutPathStarts[i]; s < bitShapes[i + 1]; s++) {
+                cutPaths.add(getShape(s));
+            }
+        }
+        return new Bit2D(origins[i],
+                new Vector2(orientations[2 * i], orientations[2 * i + 1]),
+                sizes[2 * i],
+                sizes[2 * i + 1],
+                areas,
+                cutPaths,
+                (flag & INVERSE_IN_CUT) != 0,
+                (flag & FULL_LENGTH) != 0,
+                (flag & USED_FOR_NN) != 0);
+    }
+
+    private void addShape(Shape shape) {
+        if (shapeCount + 1 >= segmentStarts.length) {
+            segmentStarts = Arrays.copyOf(segmentStarts, 2 * segmentStarts.length);
+            coordStarts = Arrays.copyOf(coordStarts, 2 * coordStarts.length);
+            windingRules = Arrays.copyOf(windingRules, 2 * windingRules.length);
+        }
+        double[] segment = new double[6];
+        PathIterator iterator = shape.getPathIterator(null);
+        windingRules[shapeCount] = (byte) iterator.getWindingRule();
+        for (; !iterator.isDone(); iterator.next()) {
+            int type = iterator.currentSegment(segment);
+            int length = coordinatesOf(type);
+            if (segmentCount == segmentTypes.length)
+                segmentTypes = Arrays.copyOf(segmentTypes, 2 * segmentTypes.length);
+            if (coordCount + length > coords.length)
+                coords = Arrays.copyOf(coords, Math.max(2 * coords.length, coordCount + length));
+            segmentTypes[segmentCount++] = (byte) type;
+            System.arraycopy(segment, 0, coords, coordCount, length);
+            coordCount += length;
+        }
+        shapeCount++;
+        segmentStarts[shapeCount] = segmentCount;
+        coordStarts[shapeCount] = coordCount;
+    }
+
+    private Path2D getShape(int s) {
+        Path2D.Double path = new Path2D.Double(windingRules[s],
+                segmentStarts[s + 1] - segmentStarts[s]);
+        int c = coordStarts[s];
+        for (int t = segmentStarts[s]; t < segmentStarts[s + 1]; t++) {
+            switch (segmentTypes[t]) {
+                case PathIterator.SEG_MOVETO:
+                    path.moveTo(coords[c], coords[c + 1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    path.lineTo(coords[c], coords[c + 1]);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    path.quadTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3]);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    path.curveTo(coords[c], coords[c + 1], coords[c + 2], coords[c + 3],
+                            coords[c + 4], coords[c + 5]);
+                    break;
+                default:
+                    path.closePath();
+            }
+            c += coordinatesOf(segmentTypes[t]);
+        }
+        return path;
+    }
+
+    private static int coordinatesOf(int segmentType) {
+        switch (segmentType) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Drop the spare room left by growing the arenas
+     */
+    private void trim() {
+        segmentStarts = Arrays.copyOf(segmentStarts, shapeCount + 1);
+        coordStarts = Arrays.copyOf(coordStarts, shapeCount + 1);
+        windingRules = Arrays.copyOf(windingRules, shapeCount);
+        segmentTypes = Arrays.copyOf(segmentTypes, segmentCount);
+        coords = Arrays.copyOf(coords, coordCount);
+    }
+}
@@ -35,7 +35,8 @@ import meshIneBits.patterntemplates.ManualPattern;
 import meshIneBits.patterntemplates.PatternTemplate;
 import meshIneBits.slicer.Slice;
 import meshIneBits.util.AreaTool;
-import meshIneBits.util.Logger;
+import meshIneBits.util.Contours;
+import meshIneBits.util.DistanceField;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.Area;
@@ -61,15 +62,44 @@ import java.awt.geom.AffineTransform;
  * bits. It is then cloned and shaped to fit the linked {@link Slice}.
  */
 public class Layer extends Observable implements Serializable {
+    private static final long serialVersionUID = 6083001111496121964L;
 
     private int layerNumber;
     private Slice horizontalSection;
-    private transient Area horizontalArea;
+    /**
+     * Area inside {@link #horizontalSection}, built on first use.
+     * <tt>null</tt> until then
+     *
+     * @see #getHorizontalArea()
+     */
+    private transient volatile Area horizontalArea;
+    /**
+     * {@link #horizontalArea} packed for {@link meshIneBits.util.PolygonClipper},
+     * built on first use when {@link CraftConfig#polygonClipping} is on
+     */
+    private transient volatile Contours horizontalContours;
+    /**
+     * Signed distance raster of {@link #horizontalArea}, built on first use
+     * if {@link CraftConfig#distanceFieldResolution} is set
+     *
+     * @see #getDistanceField()
+     */
+    private transient volatile DistanceField distanceField;
     private Path2D horizontalAreaConvert;
     private Pavement flatPavement;
     private PatternTemplate patternTemplate;
-    private Map<Vector2, Bit3D> mapBits3D;
+    /**
+     * <tt>null</tt> after {@link #compact()}, until next access
+     *
+     * @see #getMapBits3D()
+     */
+    private volatile Map<Vector2, Bit3D> mapBits3D;
     private boolean paved = false;
+    /**
+     * <tt>null</tt> until asked after a {@link #rebuild()}
+     *
+     * @see #getKeysOfIrregularBits()
+     */
     private Collection<Vector2> irregularBits; // should be concurrent
     private double lowerAltitude;
     private double higherAltitude;
@@ -115,14 +145,14 @@ public class Layer extends Observable implements Serializable {
 //    }
     private void writeObject(ObjectOutputStream oos) throws IOException {
         // Write normal fields
-        horizontalAreaConvert=SerializeArea.toPath2D(horizontalArea);
+        horizontalAreaConvert=SerializeArea.toPath2D(getInternalHorizontalArea());
         oos.writeInt(layerNumber);
         oos.writeObject(horizontalSection);
         oos.writeObject(horizontalAreaConvert);
         oos.writeObject(flatPavement);
         oos.writeObject(patternTemplate);
         oos.writeObject(mapBits3D);
-        oos.writeObject(irregularBits);
+        oos.writeObject(getKeysOfIrregularBits());
         oos.writeBoolean(paved);
         oos.writeDouble(lowerAltitude);
         oos.writeDouble(higherAltitude);
@@ -132,7 +162,7 @@ public class Layer extends Observable implements Serializable {
         this.layerNumber = ois.readInt();
         this.horizontalSection = (Slice) ois.readObject();
         this.horizontalAreaConvert = (Path2D) ois.readObject();
-        this.horizontalArea = SerializeArea.toArea(horizontalAreaConvert);
+        // Converted back on first use
         //noinspection unchecked
         this.flatPavement = (Pavement) ois.readObject();
         this.patternTemplate = (PatternTemplate) ois.readObject();
@@ -168,11 +198,13 @@ public class Layer extends Observable implements Serializable {
     }
 
     public void convertHorizontalAreatoPath2D() {
-        this.horizontalAreaConvert = SerializeArea.toPath2D(this.horizontalArea);
+        this.horizontalAreaConvert = SerializeArea.toPath2D(getInternalHorizontalArea());
     }
 
     public void convertPath2DtoHorizontalArea() {
         this.horizontalArea = SerializeArea.toArea(this.horizontalAreaConvert);
+        this.horizontalContours = null;
+        this.distanceField = null;
     }
 
 
@@ -181,9 +213,10 @@ public class Layer extends Observable implements Serializable {
      * {@link Layer}
      */
     public void rebuild() {
-        flatPavement.computeBits(horizontalArea);
+        flatPavement.computeBits(getInternalHorizontalArea());
         extrudeBitsTo3D();
-        findKeysOfIrregularBits();
+        // Lift points are only computed once irregular bits are asked
+        irregularBits = null;
         setChanged();
         notifyObservers(new M(
                 M.LAYER_REBUILT,
@@ -194,9 +227,10 @@ public class Layer extends Observable implements Serializable {
         ));
     }
 
-    private void findKeysOfIrregularBits() {
-        irregularBits = mapBits3D.keySet().parallelStream()
-                .filter(key -> mapBits3D.get(key).isIrregular())
+    private Collection<Vector2> findKeysOfIrregularBits() {
+        Map<Vector2, Bit3D> bits = readMapBits3D();
+        return bits.keySet().parallelStream()
+                .filter(key -> bits.get(key).isIrregular())
                 .collect(Collectors.toCollection(ConcurrentLinkedQueue::new));
     }
 
@@ -213,6 +247,54 @@ public class Layer extends Observable implements Serializable {
                         ConcurrentHashMap::new));
     }
 
+    /**
+     * @return extruded bits, extruded again after a {@link #compact()}.
+     * <tt>null</tt> if not paved yet
+     */
+    private Map<Vector2, Bit3D> getMapBits3D() {
+        Map<Vector2, Bit3D> bits = mapBits3D;
+        if (bits == null && flatPavement != null) {
+            synchronized (this) {
+                if (mapBits3D == null)
+                    extrudeBitsTo3D();
+                bits = mapBits3D;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Unlike {@link #getMapBits3D()}, leaves a {@link #compact() compacted}
+     * layer as it is: its bits are then extruded into a new map that this
+     * layer does not keep
+     *
+     * @return extruded bits only to be read. <tt>null</tt> if not paved yet
+     */
+    private Map<Vector2, Bit3D> readMapBits3D() {
+        Map<Vector2, Bit3D> bits = mapBits3D;
+        if (bits != null || flatPavement == null)
+            return bits;
+        return flatPavement.readMapBits().entrySet().parallelStream()
+                .collect(Collectors.toConcurrentMap(Map.Entry::getKey,
+                        entry -> new Bit3D(entry.getValue(), this),
+                        (u, v) -> u,
+                        ConcurrentHashMap::new));
+    }
+
+    /**
+     * Pack the bits of this layer to save memory. They are restored on next
+     * access, so it is best done once the layer is paved and not looked at
+     *
+     * @see Pavement#compact()
+     */
+    public synchronized void compact() {
+        if (flatPavement == null)
+            return;
+        flatPavement.compact();
+        mapBits3D = null;
+        distanceField = null;
+    }
+
     /**
      * Extrude {@link Bit2D} to {@link Bit3D} and detect irregularities
      *
@@ -221,15 +303,20 @@ public class Layer extends Observable implements Serializable {
     private void rebuild(Vector2 key) {
         if (flatPavement.getBit(key) != null) {
             Bit3D bit3D = new Bit3D(flatPavement.getBit(key), this);
-            mapBits3D.put(key, bit3D);
-            if (bit3D.isIrregular())
+            getMapBits3D().put(key, bit3D);
+            if (irregularBits != null && bit3D.isIrregular())
                 irregularBits.add(key);
         }
     }
 
     public Vector<Vector2> getBits3dKeys() {
-        if(mapBits3D==null)return new Vector<>();
-        return new Vector<>(mapBits3D.keySet());
+        Map<Vector2, Bit3D> bits = mapBits3D;
+        if (bits != null)
+            return new Vector<>(bits.keySet());
+        if (flatPavement == null)
+            return new Vector<>();
+        // Not extruded again for keys only
+        return new Vector<>(flatPavement.getBitsKeys());
     }
 
     /**
@@ -241,9 +328,7 @@ public class Layer extends Observable implements Serializable {
     public Layer(int layerNumber, Slice horizontalSection) {
         this.layerNumber = layerNumber;
         this.horizontalSection = horizontalSection;
-        this.horizontalArea = AreaTool.getAreaFrom(horizontalSection);
-//        Area area = AreaTool.getAreaFrom(horizontalSection);
-//        AreaSerializable areaSerializable = (AreaSerializable) horizontalArea;
+        // Horizontal area is built on demand
         this.patternTemplate = null;
         this.flatPavement = null;
         this.lowerAltitude = horizontalSection.getAltitude()
@@ -261,13 +346,15 @@ public class Layer extends Observable implements Serializable {
      */
     public Vector<Pair<Bit3D, Vector2>> sortBits() {
         Vector<Pair<Bit3D, Vector2>> keySet = new Vector<>();
-        if (mapBits3D == null) {
+        Map<Vector2, Bit3D> bits = getMapBits3D();
+        if (bits == null) {
             return keySet;
         }
-        for (Vector2 key : mapBits3D.keySet()) {
-            for (Vector2 pos : mapBits3D.get(key).getLiftPoints()) {
+        Bit3D.prefetch(bits.values());
+        for (Vector2 key : bits.keySet()) {
+            for (Vector2 pos : bits.get(key).getLiftPoints()) {
                 if (pos != null) {
-                    keySet.add(new Pair<>(mapBits3D.get(key), pos));
+                    keySet.add(new Pair<>(bits.get(key), pos));
                 }
             }
         }
@@ -293,13 +380,10 @@ public class Layer extends Observable implements Serializable {
      * <tt>null</tt> if out of bound
      */
     public Vector2 addBit(Bit2D bit, boolean b) {
-        Area bitArea = getInteriorArea(bit);
-        if (bitArea == null) {
+        if (!cutAlongBorder(bit)) {
             // Out of bound
             return null;
         } else {
-            bit.updateBoundaries(bitArea);
-            bit.calcCutPath();
             Vector2 key = flatPavement.addBit(bit);
             rebuild(key);
             if (b) {
@@ -316,16 +400,39 @@ public class Layer extends Observable implements Serializable {
         }
     }
 
+    /**
+     * Cut <tt>bit2D</tt> along the border of this layer and recalculate its
+     * cut paths. Untrimmed full size bits lying inside keep their boundary
+     *
+     * @param bit2D target
+     * @return <tt>false</tt> if outside
+     */
+    private boolean cutAlongBorder(Bit2D bit2D) {
+        DistanceField field = getDistanceField();
+        if (field == null || !bit2D.isUntrimmedInside(field)) {
+            Area bitArea = getInteriorArea(bit2D);
+            if (bitArea == null)
+                return false;
+            bit2D.updateBoundaries(bitArea);
+        }
+        bit2D.calcCutPath();
+        return true;
+    }
+
     /**
      * @param bit2D target
      * @return <tt>null</tt> if outside
      */
     private Area getInteriorArea(Bit2D bit2D) {
         Area bitArea = bit2D.getArea();
-        if (horizontalArea == null) {
-            Logger.message("null valeur");
+        DistanceField field = getDistanceField();
+        if (field != null && field.surelyExcludes(bit2D.getBounds2D()))
+            return null;
+        if (CraftConfig.polygonClipping) {
+            bitArea = AreaTool.intersect(bitArea, getHorizontalContours());
+        } else {
+            bitArea = AreaTool.intersect(bitArea, getInternalHorizontalArea());
         }
-        bitArea.intersect(horizontalArea);
         if (bitArea.isEmpty()) {
             // Out of bound
             return null;
@@ -366,6 +473,71 @@ public class Layer extends Observable implements Serializable {
         return horizontalSection;
     }
 
+    /**
+     * The area is built from {@link #getHorizontalSection()} on first call,
+     * possibly in background by {@link Mesh#prefetchLayersAround(int)}, then
+     * kept.
+     *
+     * @return a copy of the area inside the boundary of layer, free to modify
+     */
+    public Area getHorizontalArea() {
+        return (Area) getInternalHorizontalArea().clone();
+    }
+
+    /**
+     * Build the horizontal area now, if not done yet, so that later calls of
+     * {@link #getHorizontalArea()} return without delay.
+     */
+    public void prepareHorizontalArea() {
+        getInternalHorizontalArea();
+    }
+
+    /**
+     * @return <tt>true</tt> if the horizontal area has been built already
+     * @see #prepareHorizontalArea()
+     */
+    public boolean isHorizontalAreaPrepared() {
+        return horizontalArea != null;
+    }
+
+    /**
+     * @return cached area, not to be modified
+     */
+    private synchronized Area getInternalHorizontalArea() {
+        if (horizontalArea == null) {
+            horizontalArea = horizontalAreaConvert != null ?
+                    SerializeArea.toArea(horizontalAreaConvert) : AreaTool.getAreaFrom(horizontalSection);
+        }
+        return horizontalArea;
+    }
+
+    /**
+     * @return cached contours of horizontal area
+     */
+    private synchronized Contours getHorizontalContours() {
+        if (horizontalContours == null)
+            horizontalContours = Contours.from(getInternalHorizontalArea());
+        return horizontalContours;
+    }
+
+    /**
+     * The raster is built from the horizontal area on first call, at
+     * {@link CraftConfig#distanceFieldResolution}, then kept until that
+     * setting changes or the layer is {@link #compact() compacted}.
+     *
+     * @return inside and clearance queries on the horizontal area.
+     * <tt>null</tt> if {@link CraftConfig#distanceFieldResolution} is 0
+     */
+    public synchronized DistanceField getDistanceField() {
+        if (CraftConfig.distanceFieldResolution <= 0) {
+            distanceField = null;
+            return null;
+        }
+        if (distanceField == null || distanceField.getResolution() != CraftConfig.distanceFieldResolution)
+            distanceField = new DistanceField(getInternalHorizontalArea(), CraftConfig.distanceFieldResolution);
+        return distanceField;
+    }
+
     /**
      * Move a bit. The distance of displacement will be determined in dependence
      * on the pattern template. Not use in quick succession because after each
@@ -376,7 +548,8 @@ public class Layer extends Observable implements Serializable {
      * @return the new origin of the moved bit
      */
     public Vector2 moveBit(Bit3D bit3D, Vector2 direction) {
-        irregularBits.remove(bit3D.getOrigin());
+        if (irregularBits != null)
+            irregularBits.remove(bit3D.getOrigin());
         double distance = 0;
         if (direction.x == 0) {// up or down
             distance = CraftConfig.bitWidth / 2;
@@ -432,13 +605,10 @@ public class Layer extends Observable implements Serializable {
         Collection<Bit3D> newBit3Ds = new ConcurrentLinkedQueue<>();
         for (Vector2 pos : new HashSet<>(newPositions)) {
             Bit2D bit2D = flatPavement.getBit(pos);
-            Area a = getInteriorArea(bit2D);
-            if (a == null) {
+            if (!cutAlongBorder(bit2D)) {
                 flatPavement.removeBit(pos);
                 newPositions.remove(pos);
             } else {
-                bit2D.updateBoundaries(a);
-                bit2D.calcCutPath();
                 rebuild(pos);
                 newBit3Ds.add(getBit3D(pos));
             }
@@ -463,11 +633,11 @@ public class Layer extends Observable implements Serializable {
      * @return extruded version of bit 2D
      */
     public Bit3D getBit3D(Vector2 key) {
-        return mapBits3D.get(key);
+        return getMapBits3D().get(key);
     }
 
     public List<Bit3D> getAllBit3D() {
-        return new ArrayList<>(mapBits3D.values());
+        return new ArrayList<>(getMapBits3D().values());
     }
 
     /**
@@ -479,8 +649,9 @@ public class Layer extends Observable implements Serializable {
     public void removeBit(Vector2 key, boolean b) {
         Bit3D oldBit = getBit3D(key);
         flatPavement.removeBit(key);
-        mapBits3D.remove(key);
-        irregularBits.remove(key);
+        getMapBits3D().remove(key);
+        if (irregularBits != null)
+            irregularBits.remove(key);
         if (b) {
             setChanged();
             notifyObservers(new M(
@@ -565,8 +736,19 @@ public class Layer extends Observable implements Serializable {
         return paved;
     }
 
-    public Collection<Vector2> getKeysOfIrregularBits() {
-        return irregularBits;
+    /**
+     * Computes the lift points of every bit on first call after a
+     * {@link #rebuild()}
+     *
+     * @return origins of bits without enough lift points
+     */
+    public synchronized Collection<Vector2> getKeysOfIrregularBits() {
+        Collection<Vector2> keys = irregularBits;
+        if (keys == null) {
+            keys = findKeysOfIrregularBits();
+            irregularBits = keys;
+        }
+        return keys;
     }
 
     public void paveRegion(Area region, PatternTemplate patternTemplate) {
@@ -591,6 +773,6 @@ public class Layer extends Observable implements Serializable {
     }
 
     public Collection<Vector2> getIrregularBits() {
-        return irregularBits;
+        return getKeysOfIrregularBits();
     }
 }
\ No newline at end of file
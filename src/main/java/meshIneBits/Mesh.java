@@ -34,6 +34,7 @@ import meshIneBits.patterntemplates.PatternTemplate;
 import meshIneBits.scheduler.AScheduler;
 import meshIneBits.slicer.Slice;
 import meshIneBits.slicer.SliceTool;
+import meshIneBits.slicer.StreamingSlicer;
 import meshIneBits.util.*;
 import meshIneBits.util.supportExportFile.MeshXMLTool;
 
@@ -41,6 +42,7 @@ import java.awt.geom.Area;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * This object is the equivalent of the piece which will be printed
@@ -48,11 +50,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class Mesh extends Observable implements Observer, Serializable {
 
     private static final long serialVersionUID = 20180000400L;
+    /**
+     * Number of layers prefetched on each side of the one asked
+     */
+    private static final int PREFETCH_RADIUS = 2;
 
     private Vector<Layer> layers = new Vector<>();
     private Vector<Slice> slices = new Vector<>();
     private double skirtRadius;
     private transient SliceTool slicer;
+    /**
+     * Whether the model file is sliced without loading its triangles
+     */
+    private boolean outOfCore;
     private Model model;
     private MeshEvents state;
     private AScheduler scheduler = CraftConfig.schedulerPreloaded[0];
@@ -89,6 +99,7 @@ public class Mesh extends Observable implements Observer, Serializable {
             this.model = new Model(filepath);
             this.model.center();
             this.modelFile = filepath;
+            this.outOfCore = false;
         } catch (Exception e) {
             e.printStackTrace();
             setState(MeshEvents.IMPORT_FAILED);
@@ -104,6 +115,64 @@ public class Mesh extends Observable implements Observer, Serializable {
         setState(MeshEvents.IMPORTED);
     }
 
+    /**
+     * Register a model file too big to be loaded. Its triangles are never
+     * kept in memory: each slicing reads the file again with a
+     * {@link StreamingSlicer}. The {@link #getModel() model} stays empty.
+     *
+     * @param filepath model file to slice
+     * @throws Exception when an other action is currently executing
+     */
+    public void importLargeModel(String filepath) throws Exception {
+        if (state.isWorking()) throw new SimultaneousOperationsException(this);
+
+        setState(MeshEvents.IMPORTING);
+        this.model = Model.emptyOf(filepath);
+        this.modelFile = filepath;
+        this.outOfCore = true;
+
+        // Crash all slices and layers
+        slices.clear();
+        layers.clear();
+
+        Logger.updateStatus("Model from " + filepath + " registered. Ready to slice out of core");
+        // Signal to update
+        setState(MeshEvents.IMPORTED);
+    }
+
+    /**
+     * Import a model file with {@link #importLargeModel(String)} if it is
+     * bigger than {@link CraftConfig#outOfCoreImportSize}, with
+     * {@link #importModel(String)} otherwise
+     *
+     * @param filepath model file
+     * @throws Exception when an other action is currently executing
+     */
+    public void importModelFile(String filepath) throws Exception {
+        if (isLargeModel(filepath))
+            importLargeModel(filepath);
+        else
+            importModel(filepath);
+    }
+
+    /**
+     * @param filepath model file
+     * @return <code>true</code> if the file is bigger than
+     * {@link CraftConfig#outOfCoreImportSize}
+     */
+    public static boolean isLargeModel(String filepath) {
+        return CraftConfig.outOfCoreImportSize > 0
+                && new File(filepath).length() > CraftConfig.outOfCoreImportSize * 1024 * 1024;
+    }
+
+    /**
+     * @return <code>true</code> if the model file is sliced without loading
+     * its triangles
+     */
+    public boolean isOutOfCore() {
+        return outOfCore;
+    }
+
     /**
      * Start slicing the registered model and generating layers
      *
@@ -117,6 +186,10 @@ public class Mesh extends Observable implements Observer, Serializable {
         slices.clear();
         layers.clear();
         // start
+        if (outOfCore) {
+            new StreamingSlicer(this).sliceModel();
+            return;
+        }
         double zMin = this.model.getMin().z;
         if (zMin != 0) this.model.center(); // recenter before slicing
         slicer = new SliceTool(this);
@@ -275,6 +348,8 @@ public class Mesh extends Observable implements Observer, Serializable {
                 case READY:
                     break;
                 case IMPORT_FAILED:
+                    // Out of core slicing could not read the file
+                    if (o instanceof StreamingSlicer) setState(MeshEvents.IMPORT_FAILED);
                     break;
                 case IMPORTING:
                     break;
@@ -285,7 +360,8 @@ public class Mesh extends Observable implements Observer, Serializable {
                 case SLICED:
                     // Slice job has been done
                     // Slicer sends messages
-                    this.slices = slicer.getSlices();
+                    this.slices = o instanceof StreamingSlicer ?
+                            ((StreamingSlicer) o).getSlices() : slicer.getSlices();
                     // sliced = true;
                     setSkirtRadius();
                     initLayers();
@@ -369,9 +445,49 @@ public class Mesh extends Observable implements Observer, Serializable {
         Logger.updateStatus("Generating layers");
         int jobsize = slices.size();
         for (int i = 0; i < jobsize; i++) {
-            layers.add(new Layer(i, slices.get(i)));
+            layers.add(new Layer(i, simplify(i, slices.get(i))));
             Logger.setProgress(i + 1, jobsize);
         }
+        // The first layer is shown first
+        prefetchLayersAround(0);
+    }
+
+    /**
+     * Drop the vertices of a slice which barely shape it, so that later
+     * operations on the layer deal with fewer of them. The slice itself is
+     * kept as it is, for reslicing.
+     *
+     * @param layerNumber index of layer
+     * @param slice       raw slice
+     * @return <tt>slice</tt> if {@link CraftConfig#simplificationTolerance} is 0
+     */
+    private Slice simplify(int layerNumber, Slice slice) {
+        if (CraftConfig.simplificationTolerance <= 0) return slice;
+        Slice simplified = slice.simplify(CraftConfig.simplificationTolerance);
+        Logger.message("Layer " + layerNumber + ": " + slice.getVertexCount()
+                + " vertices simplified to " + simplified.getVertexCount());
+        return simplified;
+    }
+
+    /**
+     * Build in background the horizontal areas of a layer and its
+     * neighbours, which are likely to be asked next.
+     *
+     * @param layerNumber index of layer
+     * @see Layer#getHorizontalArea()
+     */
+    public void prefetchLayersAround(int layerNumber) {
+        Vector<Layer> currentLayers = layers;
+        synchronized (currentLayers) {
+            // Nearest first
+            for (int d = 0; d <= PREFETCH_RADIUS; d++) {
+                for (int i : d == 0 ? new int[]{layerNumber} : new int[]{layerNumber + d, layerNumber - d}) {
+                    if (i >= 0 && i < currentLayers.size()) {
+                        ForkJoinPool.commonPool().execute(currentLayers.get(i)::prepareHorizontalArea);
+                    }
+                }
+            }
+        }
     }
 
     public AScheduler getScheduler() {
@@ -524,6 +640,8 @@ public class Mesh extends Observable implements Observer, Serializable {
             for (int i = 0; i < jobsize; i++) {
                 layers.get(i).setPatternTemplate(patternTemplate);
                 layers.get(i).startPaver();
+                if (CraftConfig.compactPavedLayers)
+                    layers.get(i).compact();
                 Logger.setProgress(i + 1, jobsize);
             }
             Logger.updateStatus(layers.size() + " layers have been paved");
@@ -572,6 +690,8 @@ public class Mesh extends Observable implements Observer, Serializable {
             }
             if (finishedJobsCount == jobsTotalCount) {
                 // Finished all
+                if (CraftConfig.compactPavedLayers)
+                    layers.forEach(Layer::compact);
                 Logger.updateStatus(layers.size() + " layers have been paved");
                 // Notify
                 setChanged();
@@ -29,27 +29,71 @@
 
 package meshIneBits;
 
+import meshIneBits.slicer.SweepSlicer;
+import meshIneBits.util.AsciiSTLReader;
+import meshIneBits.util.BinarySTLReader;
+import meshIneBits.util.IndexedMesh;
 import meshIneBits.util.Logger;
 import meshIneBits.util.Triangle;
+import meshIneBits.util.TriangleStore;
 import meshIneBits.util.Vector3;
-import org.bytedeco.opencv.presets.opencv_core;
 import remixlab.dandelion.geom.Rotation;
 import remixlab.dandelion.geom.Vec;
 
-import java.awt.geom.AffineTransform;
 import java.io.*;
+import java.util.Collection;
 import java.util.Vector;
+import java.util.stream.IntStream;
 
 
 /**
  * A model is the full set of triangle of the existing 3D mesh to pattern. Model
  * is created from a
  * <a href="https://en.wikipedia.org/wiki/STL_(file_format)">STL file</a>.
+ * Triangles are kept in an {@link IndexedMesh}, sharing their vertices.
  */
 public class Model implements Serializable {
-    private Vector<Triangle> triangles = new Vector<>();
+    private static final long serialVersionUID = -5777743428387583249L;
+
+    /**
+     * Number of vertices transformed by one task
+     */
+    private static final int VERTICES_PER_CHUNK = 1 << 14;
+
+    private IndexedMesh triangles = IndexedMesh.weld(new TriangleStore());
+    /**
+     * Affine transform (row-major 3x4) not yet applied to {@link #triangles}.
+     * <tt>null</tt> if none
+     */
+    private transient double[] pendingTransform;
+    /**
+     * Bounding box of {@link #triangles} as stored, without
+     * {@link #pendingTransform}. <tt>null</tt> if not computed yet
+     */
+    private transient double[] storedBounds;
+    /**
+     * Index of {@link #triangles} by altitude, kept until vertices move.
+     * <tt>null</tt> if not built yet
+     */
+    private transient SweepSlicer zIndex;
     private Vector3 position = new Vector3(0, 0, 0);
     private String modelName;
+    private Model() {
+    }
+
+    /**
+     * A model without triangles, standing for a file too big to be loaded.
+     *
+     * @param filename The STL file path
+     * @return empty model
+     * @see meshIneBits.slicer.StreamingSlicer
+     */
+    public static Model emptyOf(String filename) {
+        Model model = new Model();
+        model.modelName = filename.substring(0, filename.lastIndexOf('.'));
+        return model;
+    }
+
     /**
      * Read all the triangles of the STL file, whether it's an Ascii or a Binary
      * STL.
@@ -69,13 +113,15 @@ public class Model implements Serializable {
             br.close();
             String header = new String(buf);
 
+            TriangleStore read;
             if (header.equals("solid")) {
-                this.triangles.addAll(readAsciiSTL(filename));
-                //this.triangles.addAll(readBinarySTL(filename));
-                if(triangles.size()==0)this.triangles.addAll(readBinarySTL(filename));
+                read = AsciiSTLReader.read(filename);
+                if (read.size() == 0) read = BinarySTLReader.read(filename);
             } else {
-                this.triangles.addAll(readBinarySTL(filename));
+                read = BinarySTLReader.read(filename);
             }
+            this.triangles = IndexedMesh.weld(read);
+            Logger.message("Vertex count: " + triangles.getVertexCount());
         } else {
             Logger.error("Unknown model format: " + filename);
             throw new Exception();
@@ -106,25 +152,9 @@ public class Model implements Serializable {
      *
      * @return {@link Vector3}
      */
-    public Vector3 getMax() {
-        Vector3 ret = new Vector3();
-        ret.x = Double.MIN_VALUE;
-        ret.y = Double.MIN_VALUE;
-        ret.z = Double.MIN_VALUE;
-        for (Triangle t : triangles) {
-            for (int i = 0; i < 3; i++) {
-                if (ret.x < t.point[i].x) {
-                    ret.x = t.point[i].x;
-                }
-                if (ret.y < t.point[i].y) {
-                    ret.y = t.point[i].y;
-                }
-                if (ret.z < t.point[i].z) {
-                    ret.z = t.point[i].z;
-                }
-            }
-        }
-        return ret;
+    public synchronized Vector3 getMax() {
+        double[] b = getBounds();
+        return new Vector3(b[3], b[4], b[5]);
     }
 
     /**
@@ -132,146 +162,214 @@ public class Model implements Serializable {
      *
      * @return {@link Vector3}
      */
-    public Vector3 getMin() {
-        Vector3 ret = new Vector3();
-        ret.x = Double.MAX_VALUE;
-        ret.y = Double.MAX_VALUE;
-        ret.z = Double.MAX_VALUE;
-        for (Triangle t : triangles) {
-            for (int i = 0; i < 3; i++) {
-                if (ret.x > t.point[i].x) {
-                    ret.x = t.point[i].x;
-                }
-                if (ret.y > t.point[i].y) {
-                    ret.y = t.point[i].y;
-                }
-                if (ret.z > t.point[i].z) {
-                    ret.z = t.point[i].z;
-                }
-            }
+    public synchronized Vector3 getMin() {
+        double[] b = getBounds();
+        return new Vector3(b[0], b[1], b[2]);
+    }
+
+    /**
+     * Bounding box of the transformed model. While the pending transform only
+     * scales and translates along the axes, the box is derived from
+     * {@link #storedBounds} in constant time, with the same arithmetic as
+     * {@link #applyPendingTransform()} would do on each vertex. Otherwise the
+     * transform is applied first.
+     *
+     * @return minX, minY, minZ, maxX, maxY, maxZ
+     */
+    private double[] getBounds() {
+        if (pendingTransform != null && !isAxisAligned(pendingTransform)) {
+            applyPendingTransform();
+        }
+        if (storedBounds == null) {
+            storedBounds = transformAndBound(null);
+        }
+        if (pendingTransform == null || triangles.size() == 0) {
+            return storedBounds;
         }
-        return ret;
+        double[] m = pendingTransform;
+        double[] bounds = new double[6];
+        for (int axis = 0; axis < 3; axis++) {
+            double scale = m[axis * 4 + axis];
+            double low = transform(m, axis, storedBounds[0], storedBounds[1], storedBounds[2]);
+            double high = transform(m, axis, storedBounds[3], storedBounds[4], storedBounds[5]);
+            bounds[axis] = scale >= 0 ? low : high;
+            bounds[axis + 3] = scale >= 0 ? high : low;
+        }
+        return bounds;
     }
 
+    private static boolean isAxisAligned(double[] m) {
+        return m[1] == 0 && m[2] == 0 && m[4] == 0 && m[6] == 0 && m[8] == 0 && m[9] == 0;
+    }
 
-    public Vector<Triangle> getTriangles() {
-        return triangles;
+    private static double transform(double[] m, int row, double x, double y, double z) {
+        int o = row * 4;
+        return m[o] * x + m[o + 1] * y + m[o + 2] * z + m[o + 3];
     }
 
     /**
-     * Translate all the triangle adding value of a {@link Vector3}
-     *
-     * @param translate {@link Vector3}
+     * Apply the pending transform to every vertex, if any. An identity
+     * transform, like centering an already centered model, leaves the
+     * vertices and {@link #zIndex} untouched.
      */
-    public void move(Vector3 translate) {
-        for (Triangle t : triangles) {
-            for (int i = 0; i < 3; i++) {
-                t.point[i].addToSelf(translate);
+    private void applyPendingTransform() {
+        if (pendingTransform != null) {
+            if (!isIdentity(pendingTransform)) {
+                storedBounds = transformAndBound(pendingTransform);
+                zIndex = null;
             }
+            pendingTransform = null;
         }
     }
 
+    private static boolean isIdentity(double[] m) {
+        return m[0] == 1 && m[5] == 1 && m[10] == 1 && isAxisAligned(m)
+                && m[3] == 0 && m[7] == 0 && m[11] == 0;
+    }
+
     /**
-     * Convert ascii STL file to a {@link Vector} of {@link Triangle}.
+     * Transform the stored vertices and compute their bounding box in the
+     * same parallel pass. Each shared vertex is visited once.
      *
-     * @param filename path of input file
-     * @return {@link Vector} of {@link Triangle}
-     * @throws IOException when bad input
+     * @param m row-major 3x4 affine matrix. <tt>null</tt> to only compute
+     *          the bounding box
+     * @return minX, minY, minZ, maxX, maxY, maxZ
      */
-    private Vector<Triangle> readAsciiSTL(String filename) throws IOException {
-        BufferedReader br = new BufferedReader(new FileReader(filename));
-        String line;
-        int i = 0;
-        Vector3 normal = null;
-        Triangle nextTri = new Triangle();
-        Vector<Triangle> resultTriangles = new Vector<>();
-        while ((line = br.readLine()) != null) {
-            line = line.trim();
-            if (line.startsWith("facet normal")) {
-                String[] parts = line.split(" +");
-                normal = new Vector3(Double.parseDouble(parts[2]), Double.parseDouble(parts[3]), Double.parseDouble(parts[4]));
-            }
-            if (line.startsWith("vertex")) {
-                String[] parts = line.split(" +");
-                nextTri.point[i] = new Vector3(Double.parseDouble(parts[1]), Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
-                i++;
-                if (i == 3) {
-                    //noinspection ConstantConditions
-                    if ((normal.vSize2() > 0.1)) {
-                        nextTri.getNormal().dot(normal);
+    private double[] transformAndBound(double[] m) {
+        double[] c = triangles.getVertices();
+        int vertexCount = triangles.getVertexCount();
+        int chunkCount = (vertexCount + VERTICES_PER_CHUNK - 1) / VERTICES_PER_CHUNK;
+        boolean translationOnly = m != null && m[0] == 1 && m[5] == 1 && m[10] == 1 && isAxisAligned(m);
+        return IntStream.range(0, chunkCount).parallel()
+                .mapToObj(chunk -> {
+                    double[] bounds = emptyBounds();
+                    int end = Math.min(vertexCount, (chunk + 1) * VERTICES_PER_CHUNK) * 3;
+                    for (int i = chunk * VERTICES_PER_CHUNK * 3; i < end; i += 3) {
+                        if (translationOnly) {
+                            c[i] += m[3];
+                            c[i + 1] += m[7];
+                            c[i + 2] += m[11];
+                        } else if (m != null) {
+                            double x = c[i], y = c[i + 1], z = c[i + 2];
+                            c[i] = transform(m, 0, x, y, z);
+                            c[i + 1] = transform(m, 1, x, y, z);
+                            c[i + 2] = transform(m, 2, x, y, z);
+                        }
+                        for (int axis = 0; axis < 3; axis++) {
+                            if (bounds[axis] > c[i + axis]) {
+                                bounds[axis] = c[i + axis];
+                            }
+                            if (bounds[axis + 3] < c[i + axis]) {
+                                bounds[axis + 3] = c[i + axis];
+                            }
+                        }
                     }
-                    // Triangle winding order and normal don't point in the same direction...
-                    // Flip the triangle?
-                    resultTriangles.add(nextTri);
-                    nextTri = new Triangle();
-                    i = 0;
-                }
-            }
-        }
-        br.close();
-        return resultTriangles;
+                    return bounds;
+                })
+                .reduce((b1, b2) -> {
+                    for (int axis = 0; axis < 3; axis++) {
+                        b1[axis] = Math.min(b1[axis], b2[axis]);
+                        b1[axis + 3] = Math.max(b1[axis + 3], b2[axis + 3]);
+                    }
+                    return b1;
+                })
+                .orElseGet(Model::emptyBounds);
+    }
+
+    private static double[] emptyBounds() {
+        return new double[]{
+                Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+                -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE
+        };
     }
 
     /**
-     * Convert binary STL file to a {@link Vector} of {@link Triangle}.
+     * Compose the pending transform with a new one, applied after.
      *
-     * @param filename path of input file
-     * @return {@link Vector} of {@link Triangle}
-     * @throws IOException when bad input
+     * @param linear row-major 3x3 matrix
+     * @param tx     translation along X
+     * @param ty     translation along Y
+     * @param tz     translation along Z
      */
-    private Vector<Triangle> readBinarySTL(String filename) throws IOException {
-        Logger.message("ReadBinarySTL starts");
-        RandomAccessFile raf = new RandomAccessFile(filename, "r");
-        byte[] header = new byte[80];
-        raf.read(header);
-        int triangleCount = Integer.reverseBytes(raf.readInt());
-        Vector<Triangle> resultTriangles = new Vector<>();
-        for (int i = 0; i < triangleCount; i++) {
-            Logger.setProgress(i, triangleCount - 1);
-            for (int j = 0; j < 3; j++) {
-                raf.readFloat();
+    private void appendTransform(double[] linear, double tx, double ty, double tz) {
+        double[] m = pendingTransform != null ? pendingTransform : new double[]{
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0
+        };
+        double[] result = new double[12];
+        for (int row = 0; row < 3; row++) {
+            for (int column = 0; column < 4; column++) {
+                result[row * 4 + column] = linear[row * 3] * m[column]
+                        + linear[row * 3 + 1] * m[4 + column]
+                        + linear[row * 3 + 2] * m[8 + column];
             }
-
-            Triangle t = new Triangle();
-            float x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            float y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            float z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            t.point[0] = new Vector3(x, y, z);
-            x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            t.point[1] = new Vector3(x, y, z);
-            x = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            y = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            z = Float.intBitsToFloat(Integer.reverseBytes(raf.readInt()));
-            t.point[2] = new Vector3(x, y, z);
-            raf.readShort();// flags
-            resultTriangles.add(t);
         }
-        raf.close();
-        return resultTriangles;
+        result[3] += tx;
+        result[7] += ty;
+        result[11] += tz;
+        pendingTransform = result;
     }
 
     /**
-     * Rotate all triangles
+     * @return triangles of the model, with all transforms applied
+     */
+    public synchronized IndexedMesh getTriangles() {
+        applyPendingTransform();
+        return triangles;
+    }
+
+    /**
+     * The index is built on first call, then shared by every slicing until
+     * the model is moved, rotated or scaled. It also keeps the slices of its
+     * last run, so that a new run only computes the altitudes which changed.
      *
-     * @param r angle
+     * @return triangles of the model indexed by altitude
      */
-    public void rotate(Rotation r) {
-        for (Triangle t : triangles) {
-            rotateTriangle(t, r);
+    public synchronized SweepSlicer getZIndex() {
+        applyPendingTransform();
+        if (zIndex == null) {
+            zIndex = new SweepSlicer(triangles);
         }
+        return zIndex;
     }
 
-    private void rotateTriangle(Triangle t, Rotation rot) {
-        for (Vector3 p : t.point) {
-            Vec v = rot.rotate(new Vec((float) p.x, (float) p.y, (float) p.z));
-            p.x = v.x();
-            p.y = v.y();
-            p.z = v.z();
+    /**
+     * Translate all the triangle adding value of a {@link Vector3}. Vertices
+     * are updated lazily.
+     *
+     * @param translate {@link Vector3}
+     */
+    public synchronized void move(Vector3 translate) {
+        if (pendingTransform == null) {
+            pendingTransform = new double[]{
+                    1, 0, 0, translate.x,
+                    0, 1, 0, translate.y,
+                    0, 0, 1, translate.z
+            };
+        } else {
+            pendingTransform[3] += translate.x;
+            pendingTransform[7] += translate.y;
+            pendingTransform[11] += translate.z;
         }
     }
 
+    /**
+     * Rotate all triangles. Vertices are updated lazily.
+     *
+     * @param r angle
+     */
+    public synchronized void rotate(Rotation r) {
+        Vec ex = r.rotate(new Vec(1, 0, 0));
+        Vec ey = r.rotate(new Vec(0, 1, 0));
+        Vec ez = r.rotate(new Vec(0, 0, 1));
+        appendTransform(new double[]{
+                ex.x(), ey.x(), ez.x(),
+                ex.y(), ey.y(), ez.y(),
+                ex.z(), ey.z(), ez.z()
+        }, 0, 0, 0);
+    }
+
     public void translate(Vector3 trans) {
         position.x += trans.x;
         position.y += trans.y;
@@ -287,15 +385,50 @@ public class Model implements Serializable {
         position = t;
     }
 
-    public void applyScale(float scaling) {
-        for (Triangle t : triangles) {
-            scaleTriangle(t, scaling);
-        }
+    /**
+     * Scale all triangles from the origin. Vertices are updated lazily.
+     *
+     * @param scaling factor
+     */
+    public synchronized void applyScale(float scaling) {
+        appendTransform(new double[]{
+                scaling, 0, 0,
+                0, scaling, 0,
+                0, 0, scaling
+        }, 0, 0, 0);
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        applyPendingTransform();
+        out.defaultWriteObject();
     }
 
-    private void scaleTriangle(Triangle t, float scaling) {
-        for (Vector3 p : t.point) {
-            p.addToSelf(new Vector3(p.x*scaling-p.x,p.y*scaling-p.y,p.z*scaling-p.z));
+    /**
+     * Meshes saved before {@link TriangleStore} hold the triangles as a
+     * {@link Vector} of {@link Triangle}, packed here on reading
+     *
+     * @param in stream of reading
+     * @throws IOException            if error of reading
+     * @throws ClassNotFoundException if error of reading
+     */
+    private synchronized void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        position = (Vector3) fields.get("position", new Vector3(0, 0, 0));
+        modelName = (String) fields.get("modelName", null);
+        Object saved = fields.get("triangles", null);
+        if (saved instanceof IndexedMesh) {
+            triangles = (IndexedMesh) saved;
+        } else {
+            TriangleStore read = new TriangleStore();
+            if (saved instanceof Collection) {
+                for (Object o : (Collection<?>) saved) {
+                    Vector3[] p = ((Triangle) o).point;
+                    read.add(p[0].x, p[0].y, p[0].z,
+                            p[1].x, p[1].y, p[1].z,
+                            p[2].x, p[2].y, p[2].z);
+                }
+            }
+            triangles = IndexedMesh.weld(read);
         }
     }
 }
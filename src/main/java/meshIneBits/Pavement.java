@@ -30,15 +30,20 @@
 package meshIneBits;
 
 import meshIneBits.artificialIntelligence.DebugTools;
+import meshIneBits.config.CraftConfig;
 import meshIneBits.config.patternParameter.DoubleParam;
 import meshIneBits.patterntemplates.PatternTemplate;
 import meshIneBits.slicer.Slice;
 import meshIneBits.util.AreaTool;
+import meshIneBits.util.Contours;
+import meshIneBits.util.DistanceField;
 import meshIneBits.util.Logger;
+import meshIneBits.util.PolygonClipper;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.Area;
 import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -51,10 +56,32 @@ import java.util.stream.Collectors;
  * Literally a {@link Set} of {@link Bit2D}.
  */
 public class Pavement implements Cloneable, Serializable {
+    private static final long serialVersionUID = -809205666473869931L;
+
     /**
      * The key is the origin of {@link Bit2D} in {@link Mesh} coordinate system.
+     * <tt>null</tt> while packed into {@link #bitStore}
+     *
+     * @see #getMapBits()
+     */
+    private volatile Map<Vector2, Bit2D> mapBits;
+    /**
+     * Bits packed by {@link #compact()}, until next access
+     */
+    private transient BitStore bitStore;
+    /**
+     * Keys of {@link #mapBits} by square cell of side {@link #keyCellSize},
+     * so that keys {@link Vector2#asGoodAsEqual(Vector2) as good as equal} to
+     * a point lie in its cell or the 8 around. Built on first use
+     *
+     * @see #getKeyCells()
      */
-    private Map<Vector2, Bit2D> mapBits;
+    private transient Map<Long, List<Vector2>> keyCells;
+    /**
+     * 10<sup>-{@link CraftConfig#errorAccepted}</sup> when {@link #keyCells}
+     * was built
+     */
+    private transient double keyCellSize;
 
     private Area areaAvailable;
     private Path2D areaConverted;
@@ -74,7 +101,7 @@ public class Pavement implements Cloneable, Serializable {
     private void writeObject(ObjectOutputStream oos) throws IOException {
         // Write normal fields
         areaConverted= Layer.SerializeArea.toPath2D(areaAvailable);
-        oos.writeObject(mapBits);
+        oos.writeObject(readMapBits());
         oos.writeObject(areaConverted);
     }
 
@@ -111,7 +138,7 @@ public class Pavement implements Cloneable, Serializable {
     public Vector2 addBit(Bit2D bit) {
         Vector2 origin = bit.getOrigin();
         // We check that there is not already a bit at this place
-        for (Vector2 key : getBitsKeys()) {
+        for (Vector2 key : getKeysNear(origin)) {
             if (origin.asGoodAsEqual(key)) {
                 Logger.warning(
                         "A bit already exists at these coordinates: "
@@ -120,15 +147,114 @@ public class Pavement implements Cloneable, Serializable {
                 removeBit(key);
             }
         }
-        mapBits.put(origin, bit);
+        getMapBits().put(origin, bit);
+        addToCell(getKeyCells(), origin);
         return origin;
     }
 
+    /**
+     * @param point in {@link Mesh} coordinate system
+     * @return a new list of the keys in the cell of <tt>point</tt> and the 8
+     * around, which hold all keys {@link Vector2#asGoodAsEqual(Vector2) as
+     * good as equal} to it
+     */
+    private List<Vector2> getKeysNear(Vector2 point) {
+        Map<Long, List<Vector2>> cells = getKeyCells();
+        long cellX = cellOf(point.x);
+        long cellY = cellOf(point.y);
+        List<Vector2> keys = new ArrayList<>();
+        for (long i = cellX - 1; i <= cellX + 1; i++) {
+            for (long j = cellY - 1; j <= cellY + 1; j++) {
+                List<Vector2> cell = cells.get(cellKey(i, j));
+                if (cell != null)
+                    keys.addAll(cell);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return {@link #keyCells}, built again if {@link CraftConfig#errorAccepted}
+     * has changed
+     */
+    private Map<Long, List<Vector2>> getKeyCells() {
+        double cellSize = Math.pow(10, -CraftConfig.errorAccepted);
+        if (keyCells == null || keyCellSize != cellSize) {
+            keyCellSize = cellSize;
+            Map<Long, List<Vector2>> cells = new HashMap<>();
+            for (Vector2 key : getMapBits().keySet())
+                addToCell(cells, key);
+            keyCells = cells;
+        }
+        return keyCells;
+    }
+
+    private void addToCell(Map<Long, List<Vector2>> cells, Vector2 key) {
+        cells.computeIfAbsent(cellKey(cellOf(key.x), cellOf(key.y)), k -> new ArrayList<>(1))
+                .add(key);
+    }
+
+    private long cellOf(double coordinate) {
+        return (long) Math.floor(coordinate / keyCellSize);
+    }
+
+    private static long cellKey(long cellX, long cellY) {
+        return (cellX << 32) ^ (cellY & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Pack all bits into columns to save memory. They are restored, as new
+     * {@link Bit2D} under the same keys, on next access
+     */
+    public synchronized void compact() {
+        if (mapBits == null)
+            return;
+        bitStore = BitStore.of(mapBits);
+        mapBits = null;
+        keyCells = null;
+    }
+
+    /**
+     * @return <code>true</code> if bits are packed since last
+     * {@link #compact()}
+     */
+    public boolean isCompacted() {
+        return mapBits == null;
+    }
+
+    /**
+     * @return {@link #mapBits}, restored first if {@link #compact() compacted}
+     */
+    private Map<Vector2, Bit2D> getMapBits() {
+        Map<Vector2, Bit2D> bits = mapBits;
+        if (bits == null) {
+            synchronized (this) {
+                if (mapBits == null) {
+                    mapBits = bitStore.toMap();
+                    bitStore = null;
+                }
+                bits = mapBits;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Unlike {@link #getMapBits()}, leaves a {@link #compact() compacted}
+     * pavement as it is: its bits are then restored into a new map that this
+     * pavement does not keep
+     *
+     * @return bits only to be read
+     */
+    synchronized Map<Vector2, Bit2D> readMapBits() {
+        return mapBits != null ? mapBits : bitStore.toMap();
+    }
+
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     public Pavement clone() {
-        Collection<Bit2D> clonedMapBits = this.getBitsKeys().stream()
-                .map(vector2 -> getBit(vector2).clone())
+        Collection<Bit2D> clonedMapBits = readMapBits().values().stream()
+                .map(Bit2D::clone)
                 .collect(Collectors.toSet());
         return new Pavement(clonedMapBits);
     }
@@ -153,7 +279,7 @@ public class Pavement implements Cloneable, Serializable {
      * @return {@link Bit2D} in {@link Mesh} coordinate system
      */
     public Bit2D getBit(Vector2 key) {
-        return mapBits.get(key);
+        return getMapBits().get(key);
     }
 
     /**
@@ -163,7 +289,16 @@ public class Pavement implements Cloneable, Serializable {
      * @return a {@link Set} in {@link Mesh} coordinate system
      */
     public Set<Vector2> getBitsKeys() {
-        return new HashSet<>(mapBits.keySet());
+        Map<Vector2, Bit2D> bits = mapBits;
+        if (bits == null) {
+            synchronized (this) {
+                if (mapBits == null)
+                    // Still compacted
+                    return new HashSet<>(bitStore.getKeys());
+                bits = mapBits;
+            }
+        }
+        return new HashSet<>(bits.keySet());
     }
 
     /**
@@ -176,7 +311,7 @@ public class Pavement implements Cloneable, Serializable {
      * @return the key of the newly added bit in {@link Mesh} coordinate system
      */
     public Vector2 moveBit(Vector2 key, Vector2 direction, double distance) {
-        Bit2D bitToMove = mapBits.get(key); // in Mesh coordinate system
+        Bit2D bitToMove = getMapBits().get(key); // in Mesh coordinate system
         System.out.println(key.toString());
         Vector2 translationInMesh =
                 direction.rotate(bitToMove.getOrientation())
@@ -199,7 +334,15 @@ public class Pavement implements Cloneable, Serializable {
      * @param key origin of bit in {@link Mesh} coordinate system
      */
     public void removeBit(Vector2 key) {
-        mapBits.remove(key);
+        if (getMapBits().remove(key) != null && keyCells != null) {
+            long cellKey = cellKey(cellOf(key.x), cellOf(key.y));
+            List<Vector2> cell = keyCells.get(cellKey);
+            if (cell != null) {
+                cell.remove(key);
+                if (cell.isEmpty())
+                    keyCells.remove(cellKey);
+            }
+        }
     }
 
     /**
@@ -229,14 +372,36 @@ public class Pavement implements Cloneable, Serializable {
      * @see #computeBits(Slice)
      */
     public void computeBits(Area areaSlider) {
+        // Bits are far larger than the border details, a coarse raster is enough
+        computeBits(areaSlider, new DistanceField(areaSlider, CraftConfig.bitWidth / 2));
+    }
+
+    /**
+     * Recompute surfaces of {@link Bit2D}s. Untrimmed full size bits lying
+     * inside <tt>areaSlider</tt> are kept as they are
+     *
+     * @param areaSlider in {@link Mesh} coordinate system
+     * @param field      distance raster of <tt>areaSlider</tt>
+     * @see Bit2D#isUntrimmedInside(DistanceField)
+     */
+    public void computeBits(Area areaSlider, DistanceField field) {
         areaAvailable = (Area) areaSlider.clone();
+        Contours contoursAvailable = CraftConfig.polygonClipping ? Contours.from(areaAvailable) : null;
         for (Vector2 key : getBitsKeys()) {
             Bit2D bit = getBit(key);
-            Area bitArea = bit.getArea();
-            bitArea.intersect(areaAvailable);
+            if (bit.isUntrimmedInside(field)) {
+                bit.calcCutPath();
+                continue;
+            }
+            Area bitArea;
+            if (contoursAvailable != null) {
+                bitArea = AreaTool.intersect(bit.getArea(), contoursAvailable);
+            } else {
+                bitArea = AreaTool.intersect(bit.getArea(), areaAvailable);
+            }
             if (bitArea.isEmpty()) {
                 // Outside of border
-                mapBits.remove(key);
+                removeBit(key);
             } else {
                 bit.updateBoundaries(bitArea);
                 bit.calcCutPath();
@@ -244,25 +409,102 @@ public class Pavement implements Cloneable, Serializable {
         }
     }
 
+    /**
+     * Cut bits along <tt>area</tt>, each one losing the safeguard space around
+     * the bits before it.
+     * <br/>
+     * A bit only loses the safeguards of earlier bits close to it. Bits are
+     * grouped in waves so that each one only depends on earlier waves, and the
+     * bits of a wave are cut and expanded in parallel.
+     *
+     * @param area in {@link Mesh} coordinate system
+     */
     public void computeBitsWithSpaceAround(Area area){
         areaAvailable = (Area) area.clone();
-        for (Vector2 key : getBitsKeys()) {
-            Bit2D bit = getBit(key);
-            Area bitArea = bit.getArea();
-            bitArea.intersect(areaAvailable);
-            if (bitArea.isEmpty()) {
-                // Outside of border
-                mapBits.remove(key);
-            } else {
-                bit.updateBoundaries(bitArea);
-                bit.calcCutPath();
-                //areaSlider.subtract(bitArea);
-                //updateAvailableArea();
-                areaAvailable.subtract(
-                        AreaTool.expand(
-                                bitArea, // in real
-                                safeguardSpaceParam.getCurrentValue()));
+        // Remaining space is only kept as contours with the polygon clipper
+        Contours contoursAvailable = CraftConfig.polygonClipping ? Contours.from(areaAvailable) : null;
+        double space = safeguardSpaceParam.getCurrentValue();
+        List<Vector2> keys = new ArrayList<>(getBitsKeys());
+        int n = keys.size();
+        Rectangle2D[] bounds = new Rectangle2D[n];
+        for (int i = 0; i < n; i++)
+            bounds[i] = getBit(keys.get(i)).getBounds2D();
+
+        // Earlier bits whose safeguard may reach each bit. Bits are bucketed
+        // in a grid whose cells hold a bit with its safeguard, so each bit
+        // only meets the bits of the cells it overlaps
+        List<List<Integer>> neighbours = new ArrayList<>(n);
+        List<List<Integer>> waves = new ArrayList<>();
+        int[] wave = new int[n];
+        double reach = AreaTool.MITER_LIMIT * space + Math.pow(10, -CraftConfig.errorAccepted);
+        double cellSize = reach;
+        for (Rectangle2D b : bounds)
+            cellSize = Math.max(cellSize, Math.max(b.getWidth(), b.getHeight()) + 2 * reach);
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Rectangle2D b = bounds[i];
+            SortedSet<Integer> candidates = new TreeSet<>();
+            for (long x = (long) Math.floor(b.getMinX() / cellSize); x <= (long) Math.floor(b.getMaxX() / cellSize); x++)
+                for (long y = (long) Math.floor(b.getMinY() / cellSize); y <= (long) Math.floor(b.getMaxY() / cellSize); y++) {
+                    List<Integer> cell = cells.get(cellKey(x, y));
+                    if (cell != null)
+                        candidates.addAll(cell);
+                }
+            List<Integer> before = new ArrayList<>();
+            for (int j : candidates) {
+                if (bounds[j].getMinX() - reach <= b.getMaxX()
+                        && b.getMinX() <= bounds[j].getMaxX() + reach
+                        && bounds[j].getMinY() - reach <= b.getMaxY()
+                        && b.getMinY() <= bounds[j].getMaxY() + reach) {
+                    before.add(j);
+                    wave[i] = Math.max(wave[i], wave[j] + 1);
+                }
             }
+            neighbours.add(before);
+            if (wave[i] == waves.size())
+                waves.add(new ArrayList<>());
+            waves.get(wave[i]).add(i);
+            for (long x = (long) Math.floor((b.getMinX() - reach) / cellSize); x <= (long) Math.floor((b.getMaxX() + reach) / cellSize); x++)
+                for (long y = (long) Math.floor((b.getMinY() - reach) / cellSize); y <= (long) Math.floor((b.getMaxY() + reach) / cellSize); y++)
+                    cells.computeIfAbsent(cellKey(x, y), k -> new ArrayList<>(1)).add(i);
+        }
+
+        Area[] safeguards = new Area[n];
+        boolean[] outside = new boolean[n];
+        for (List<Integer> bitsOfWave : waves) {
+            bitsOfWave.parallelStream().forEach(i -> {
+                Bit2D bit = getBit(keys.get(i));
+                Area bitArea;
+                if (contoursAvailable != null) {
+                    bitArea = AreaTool.intersect(bit.getArea(), contoursAvailable);
+                } else {
+                    bitArea = AreaTool.intersect(bit.getArea(), area);
+                }
+                for (int j : neighbours.get(i))
+                    if (safeguards[j] != null)
+                        bitArea = AreaTool.subtract(bitArea, safeguards[j]);
+                if (bitArea.isEmpty()) {
+                    // Outside of border
+                    outside[i] = true;
+                } else {
+                    bit.updateBoundaries(bitArea);
+                    bit.calcCutPath();
+                    safeguards[i] = AreaTool.expand(
+                            bitArea, // in real
+                            space);
+                }
+            });
         }
+        for (int i = 0; i < n; i++)
+            if (outside[i])
+                removeBit(keys.get(i));
+
+        Area allSafeguards = AreaTool.union(Arrays.stream(safeguards)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList()));
+        if (contoursAvailable != null)
+            areaAvailable = PolygonClipper.difference(contoursAvailable, Contours.from(allSafeguards)).toArea();
+        else
+            areaAvailable.subtract(allSafeguards);
     }
 }
\ No newline at end of file
@@ -33,6 +33,7 @@ package meshIneBits.artificialIntelligence.genetics;
 import meshIneBits.Bit2D;
 import meshIneBits.artificialIntelligence.GeneralTools;
 import meshIneBits.config.CraftConfig;
+import meshIneBits.util.AreaTool;
 import meshIneBits.util.CalculateAreaSurface;
 import meshIneBits.util.Segment2D;
 import meshIneBits.util.Vector2;
@@ -118,8 +119,7 @@ public class Solution {
      */
     private double getAreaScore() {
         bit = getBit(startPoint);
-        Area availableBitArea = bit.getArea();
-        availableBitArea.intersect(layerAvailableArea);
+        Area availableBitArea = AreaTool.intersect(bit.getArea(), layerAvailableArea);
 
         if (availableBitArea.isEmpty()) {// || DetectorTool.checkIrregular(availableBitArea)) { // Outside of border or irregular
             this.generation.solutions.remove(this);
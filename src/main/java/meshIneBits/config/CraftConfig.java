@@ -86,6 +86,44 @@ public class CraftConfig {
     )
     public static double joinMinCosAngle = 0.995;
 
+    @IntegerSetting(
+            title = "Slicing threads",
+            description = "Number of threads slicing the model. 1 slices sequentially, 0 uses all available processors.",
+            minValue = 0,
+            maxValue = 256,
+            defaultValue = 0
+    )
+    @SlicerSetting(
+            order = 3
+    )
+    public static int slicerParallelism = 0;
+
+    @DoubleSetting(
+            title = "Simplification tolerance (mm)",
+            description = "Largest deviation allowed when removing vertices of slice contours before generating layers.\nNearly aligned vertices of finely tessellated models are dropped. 0 keeps every vertex.\nContours are not checked afterwards, so keep it well below the gap between close walls.",
+            step = 0.001,
+            minValue = 0.0,
+            maxValue = 1.0,
+            defaultValue = 0
+    )
+    @SlicerSetting(
+            order = 4
+    )
+    public static double simplificationTolerance = 0;
+
+    @DoubleSetting(
+            title = "Out-of-core import size (MB)",
+            description = "STL files bigger than this are not loaded in memory, but read again at each slicing.\nThe 3D view then stays empty. 0 always loads the model.",
+            step = 64,
+            minValue = 0.0,
+            maxValue = 1000000.0,
+            defaultValue = 1024
+    )
+    @SlicerSetting(
+            order = 5
+    )
+    public static double outOfCoreImportSize = 1024;
+
 
 
 
@@ -257,6 +295,49 @@ public class CraftConfig {
     )
     public static int errorAccepted = 5;
 
+    @BooleanSetting(
+            title = "Polygon clipping",
+            description = "Trim bits with the polygon clipping engine instead of java.awt.geom.Area",
+            defaultValue = false
+    )
+    @AssemblerSetting(
+            order = 2
+    )
+    public static boolean polygonClipping = false;
+
+    @BooleanSetting(
+            title = "Integer geometry",
+            description = "With polygon clipping, snap coordinates to a grid of 10^(-errorAccepted) mm and decide exactly on it",
+            defaultValue = false
+    )
+    @AssemblerSetting(
+            order = 3
+    )
+    public static boolean integerGeometry = false;
+
+    @DoubleSetting(
+            title = "Distance field resolution (mm)",
+            description = "Spacing of the signed distance raster of each layer, used to answer quickly whether a point is inside the slice and how far from its border.\nEach layer keeps its raster until compacted. 0 builds none.",
+            step = 0.1,
+            minValue = 0.0,
+            maxValue = 10.0,
+            defaultValue = 0.0
+    )
+    @AssemblerSetting(
+            order = 4
+    )
+    public static double distanceFieldResolution = 0.0;
+
+    @BooleanSetting(
+            title = "Compact paved layers",
+            description = "Pack the bits of each layer once paved, to save memory on large meshes. Bits are unpacked when the layer is used again",
+            defaultValue = false
+    )
+    @AssemblerSetting(
+            order = 5
+    )
+    public static boolean compactPavedLayers = false;
+
 
 
 
@@ -107,6 +107,15 @@ public class CraftConfigLoader {
                     continue;
                 }
 
+                // This is a boolean field
+                BooleanSetting boolAnno = field.getAnnotation(BooleanSetting.class);
+                if (boolAnno != null) {
+                    String str = craftProperties.getProperty(field.getName());
+                    if (str != null)
+                        field.setBoolean(null, Boolean.parseBoolean(str));
+                    continue;
+                }
+
                 // This is an integer field
                 IntegerSetting intAnno = field.getAnnotation(IntegerSetting.class);
                 if (intAnno != null) {
@@ -29,11 +29,13 @@
 
 package meshIneBits.gui.utilities.patternParamRenderer;
 
+import meshIneBits.config.BooleanSetting;
 import meshIneBits.config.patternParameter.BooleanParam;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.lang.reflect.Field;
 
 /**
  * Render {@link BooleanParam}
@@ -49,6 +51,7 @@ public class Checkbox extends Renderer {
 
     private JCheckBox checkbox;
     private BooleanParam config;
+    private boolean defaultValue;
 
     /**
      * @param config predefined parameter
@@ -59,6 +62,46 @@ public class Checkbox extends Renderer {
         this.initGUI();
     }
 
+    /**
+     * Render a {@link BooleanSetting} of {@link meshIneBits.config.CraftConfig}
+     *
+     * @param field   annotated static field
+     * @param setting its annotation
+     */
+    public Checkbox(Field field, BooleanSetting setting) {
+        super();
+        this.defaultValue = setting.defaultValue();
+        this.setOpaque(false);
+        this.setLayout(new BorderLayout());
+        this.setBorder(new EmptyBorder(4, 0, 0, 0));
+
+        JLabel lblName = new JLabel(setting.title());
+        lblName.setToolTipText(setting.description());
+        this.add(lblName, BorderLayout.WEST);
+
+        checkbox = new JCheckBox();
+        try {
+            checkbox.setSelected(field.getBoolean(null));
+        } catch (IllegalArgumentException | IllegalAccessException e) {
+            e.printStackTrace();
+        }
+        checkbox.addItemListener(e -> {
+            try {
+                field.setBoolean(null, checkbox.isSelected());
+            } catch (IllegalArgumentException | IllegalAccessException e1) {
+                e1.printStackTrace();
+            }
+        });
+        this.add(checkbox, BorderLayout.EAST);
+    }
+
+    /**
+     * Restore the default value of the rendered {@link BooleanSetting}
+     */
+    public void reset() {
+        checkbox.setSelected(defaultValue);
+    }
+
     private void initGUI() {
         // Visual options
         this.setOpaque(false);
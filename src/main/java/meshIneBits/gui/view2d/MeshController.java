@@ -314,16 +314,14 @@ public class MeshController extends Observable implements Observer, HandlerRedoU
     }
 
     private void updateAvailableArea() {
-        availableArea = AreaTool.getAreaFrom(getCurrentLayer().getHorizontalSection());
+        availableArea = getCurrentLayer().getHorizontalArea();
         Pavement pavement = getCurrentLayer().getFlatPavement();
         if (pavement == null) return; // Empty layer
-        pavement.getBitsKeys()
-                .forEach(key -> availableArea.subtract(
-                AreaTool.expand(
-                        pavement.getBit(key)
-                                .getArea(), // in real
-                        safeguardSpaceParam.getCurrentValue())
-        ));
+        List<Area> bitAreas = pavement.getBitsKeys().stream()
+                .map(key -> pavement.getBit(key).getArea()) // in real
+                .collect(Collectors.toList());
+        availableArea.subtract(AreaTool.union(
+                AreaTool.expandAll(bitAreas, safeguardSpaceParam.getCurrentValue())));
     }
 
     public void setLayer(int layerNum) {
@@ -336,6 +334,7 @@ public class MeshController extends Observable implements Observer, HandlerRedoU
         }
         layerNumber = layerNum;
         getCurrentLayer().addObserver(this);
+        mesh.prefetchLayersAround(layerNum);
         updateAvailableArea();
         reset();
         // Notify selector
@@ -526,8 +525,12 @@ public class MeshController extends Observable implements Observer, HandlerRedoU
     public Area getAvailableBitAreaFrom(Shape bitPreviewInReal) {
         Area a = new Area(bitPreviewInReal);
 
-        // Intersect
-        a.intersect(availableArea);
+        // Intersect, unless far out of the slice
+        DistanceField field = getCurrentLayer().getDistanceField();
+        if (field != null && field.surelyExcludes(a.getBounds2D()))
+            a.reset();
+        else
+            a.intersect(availableArea);
         calcBitFullLengthOrNormal(a);
         // Cache
         bitAreaPreview = (Area) a.clone();
@@ -673,7 +676,7 @@ public class MeshController extends Observable implements Observer, HandlerRedoU
         }
         Pavement flatPavement = getCurrentLayer().getFlatPavement();
         for (Vector2 key : flatPavement.getBitsKeys()) {
-            if (bulkSelectZone.contains(flatPavement.getBit(key).getArea().getBounds2D()))
+            if (bulkSelectZone.contains(flatPavement.getBit(key).getBounds2D()))
                 selectedBitKeys.add(key);
         }
         clearBulkSelect();
@@ -1041,7 +1044,7 @@ public class MeshController extends Observable implements Observer, HandlerRedoU
             notifyObservers(MeshEvents.READY);
             String filename = file.toString();
             try {
-                mesh.importModel(filename); // sync task
+                mesh.importModelFile(filename); // sync task
             } catch (Exception e) {
                 handleException(e);
                 setChanged();
@@ -31,6 +31,7 @@ package meshIneBits.gui.view2d;
 
 import meshIneBits.config.*;
 import meshIneBits.gui.utilities.IconLoader;
+import meshIneBits.gui.utilities.patternParamRenderer.Checkbox;
 import meshIneBits.gui.utilities.patternParamRenderer.LabeledSpinner;
 
 import javax.swing.*;
@@ -112,6 +113,8 @@ class MeshSettingsWindow extends JFrame {
                     add(new LabeledSpinner(field, field.getAnnotation(FloatSetting.class)));
                 else if (field.isAnnotationPresent(IntegerSetting.class))
                     add(new LabeledSpinner(field, field.getAnnotation(IntegerSetting.class)));
+                else if (field.isAnnotationPresent(BooleanSetting.class))
+                    add(new Checkbox(field, field.getAnnotation(BooleanSetting.class)));
                 // TODO renderer of string setting
             }
         }
@@ -120,6 +123,8 @@ class MeshSettingsWindow extends JFrame {
             for (Component component : getComponents()) {
                 if (component instanceof LabeledSpinner)
                     ((LabeledSpinner) component).reset();
+                else if (component instanceof Checkbox)
+                    ((Checkbox) component).reset();
             }
         }
     }
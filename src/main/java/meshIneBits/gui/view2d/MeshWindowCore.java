@@ -494,8 +494,7 @@ class MeshWindowCore extends JPanel implements MouseMotionListener, MouseListene
         for (Vector2 b : previousLayerBitKeys) {
 
             Bit3D bit = previousLayer.getBit3D(b);
-            Area area = bit.getBaseBit().getArea();
-            area.transform(realToView);
+            Area area = bit.getBaseBit().getArea().createTransformedArea(realToView);
 
             g2d.draw(area);
         }
@@ -576,8 +575,7 @@ class MeshWindowCore extends JPanel implements MouseMotionListener, MouseListene
         //Draw bits Areas
         Vector<Bit2D> bits = DebugTools.Bits;
         for (Bit2D bit : bits) {
-            Area area = bit.getArea();
-            area.transform(realToView);
+            Area area = bit.getArea().createTransformedArea(realToView);
             g2d.setColor(Color.RED);
             g2d.fill(area);
             g2d.setColor(Color.DARK_GRAY);
@@ -700,10 +698,10 @@ class MeshWindowCore extends JPanel implements MouseMotionListener, MouseListene
     }
 
     private void drawModelArea(Graphics2D g2d, Area area) {
-        area.transform(realToView);
+        Shape viewArea = realToView.createTransformedShape(area);
 
-        g2d.fill(area);
-        g2d.draw(area);
+        g2d.fill(viewArea);
+        g2d.draw(viewArea);
     }
 
     private void drawModelCircle(Graphics2D g2d, double x, double y, int radius) {
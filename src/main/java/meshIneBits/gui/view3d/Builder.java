@@ -79,30 +79,31 @@ class Builder extends PApplet implements Observer {
      */
     void buildShape(Model model, PShape shape) {
         Logger.updateStatus("Start building STL model");
-        Vector<Triangle> stlTriangles = model.getTriangles();
+        IndexedMesh stlTriangles = model.getTriangles();
         //pApplet.shapeMode(CORNER);
-        for (Triangle t : stlTriangles) {
-            PShape shape1 = getPShapeFromTriangle(t);
+        for (int t = 0; t < stlTriangles.size(); t++) {
+            PShape shape1 = getPShapeFromTriangle(stlTriangles, t);
             shape.addChild(shape1);
         }
         Logger.updateStatus("STL model built.");
     }
 
     /**
-     * Return {@link PShape} from {@link Triangle}
+     * Return {@link PShape} from a triangle of {@link IndexedMesh}
      *
-     * @param t {@link Triangle triangle}
+     * @param triangles {@link IndexedMesh mesh}
+     * @param t         index of triangle
      * @return {@link PShape}
      */
-    private PShape getPShapeFromTriangle(Triangle t) {
+    private PShape getPShapeFromTriangle(IndexedMesh triangles, int t) {
 
         PShape face = pApplet.createShape();
         //face.setStroke(color(9, 72, 217));
         face.setFill(MODEL_COLOR);
         face.beginShape();
         face.noStroke();
-        for (Vector3 p : t.point) {
-            face.vertex((float) p.x, (float) p.y, (float) p.z);
+        for (int v = 0; v < 3; v++) {
+            face.vertex((float) triangles.getX(t, v), (float) triangles.getY(t, v), (float) triangles.getZ(t, v));
         }
         face.endShape(CLOSE);
 
@@ -1556,7 +1556,7 @@ public class ProcessingModelView extends PApplet implements Observer, SubWindow
         Mesh mesh = new Mesh();
         File file = new File("E:\\UTT\\MeshIneBits\\src\\test\\resources\\stlModel\\Blob.stl");
         try {
-            mesh.importModel(file.getPath());
+            mesh.importModelFile(file.getPath());
             mesh.setState(MeshEvents.IMPORTED);
             mesh.slice();
             mesh.setState(MeshEvents.SLICED);
@@ -105,7 +105,7 @@ public class AI_Pavement extends PatternTemplate {
         }
         for (Bit2D bit : bits) {
             if (bit.getArea() == null) continue;
-            Area bitArea = bit.getArea();
+            Area bitArea = (Area) bit.getArea().clone();
             bitArea.intersect(availableArea);
             if (!bitArea.isEmpty()) {
                 bit.updateBoundaries(bitArea);
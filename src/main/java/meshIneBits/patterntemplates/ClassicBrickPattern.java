@@ -35,7 +35,6 @@ import meshIneBits.Mesh;
 import meshIneBits.Pavement;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.config.patternParameter.DoubleParam;
-import meshIneBits.util.AreaTool;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.Area;
@@ -53,7 +52,7 @@ public class ClassicBrickPattern extends PatternTemplate {
     //lengthBit can change
     @Override
     public Pavement pave(Layer layer) {
-        Area areaToPave = AreaTool.getAreaFrom(layer.getHorizontalSection());
+        Area areaToPave = layer.getHorizontalArea();
         Vector2[] p = calculatePatternStartEnd(areaToPave);
         // layer with even index will have a 90° rotation
         Collection<Bit2D> bits;
@@ -67,7 +66,7 @@ public class ClassicBrickPattern extends PatternTemplate {
 
     @Override
     public Pavement pave(Layer layer, Area area) {
-        area.intersect(AreaTool.getAreaFrom(layer.getHorizontalSection()));
+        area.intersect(layer.getHorizontalArea());
         Vector2[] p = calculatePatternStartEnd(area);
 
         // layer with even index will have a 90° rotation
@@ -35,7 +35,6 @@ import meshIneBits.Mesh;
 import meshIneBits.Pavement;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.config.patternParameter.DoubleParam;
-import meshIneBits.util.AreaTool;
 import meshIneBits.util.Vector2;
 
 import java.awt.geom.AffineTransform;
@@ -52,7 +51,7 @@ public class DiagonalHerringbonePattern extends PatternTemplate {
 
     @Override
     public Pavement pave(Layer layer) {
-        Area area = AreaTool.getAreaFrom(layer.getHorizontalSection());
+        Area area = layer.getHorizontalArea();
         // Rotate area
         double diffRotation = Math.toRadians(
                 ((Double) config.get("diffRotation").getCurrentValue()) * layer.getLayerNumber());
@@ -70,7 +69,7 @@ public class DiagonalHerringbonePattern extends PatternTemplate {
     @Override
     public Pavement pave(Layer layer, Area area) {
         // Start
-        area.intersect(AreaTool.getAreaFrom(layer.getHorizontalSection()));
+        area.intersect(layer.getHorizontalArea());
         // Rotate area
         double diffRotation = Math.toRadians(
                 ((Double) config.get("diffRotation").getCurrentValue()) * layer.getLayerNumber());
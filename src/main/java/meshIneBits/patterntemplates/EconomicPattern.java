@@ -96,12 +96,12 @@ public class EconomicPattern extends PatternTemplate {
      */
     @Override
     public Pavement pave(Layer layer) {
-        return pave(layer.getLayerNumber(), AreaTool.getAreaFrom(layer.getHorizontalSection()));
+        return pave(layer.getLayerNumber(), layer.getHorizontalArea());
     }
 
     @Override
     public Pavement pave(Layer layer, Area area) {
-        area.intersect(AreaTool.getAreaFrom(layer.getHorizontalSection()));
+        area.intersect(layer.getHorizontalArea());
         Pavement pavement = pave(layer.getLayerNumber(), area);
         pavement.computeBits(area);
         return pavement;
@@ -356,7 +356,7 @@ public class EconomicPattern extends PatternTemplate {
                 }
                 Bit2D newBit = new Bit2D(origin, new Vector2(1, 0), thisBitLength, bandWidth);
                 // Update the area of the bit
-                Area newBitArea = newBit.getArea();
+                Area newBitArea = (Area) newBit.getArea().clone();
                 newBitArea.intersect(unpavedSpace);
                 if (newBitArea.isEmpty()) {
                     // If no space left,
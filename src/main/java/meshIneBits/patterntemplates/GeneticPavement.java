@@ -95,7 +95,7 @@ public class GeneticPavement extends PatternTemplate {
         this.solutions = new Vector<>();
         try {
             this.start(
-                    AreaTool.getAreaFrom(layer.getHorizontalSection()),
+                    layer.getHorizontalArea(),
                     (double) config.get("genNumber").getCurrentValue(),
                     (double) config.get("popSize").getCurrentValue(),
                     (double) config.get("ratio").getCurrentValue(),
@@ -195,7 +195,7 @@ public class GeneticPavement extends PatternTemplate {
         }
         for (Bit2D bit : solutions) {
             if (bit.getArea() == null) continue;
-            Area bitArea = bit.getArea();
+            Area bitArea = (Area) bit.getArea().clone();
             bitArea.intersect(availableArea);
             if (!bitArea.isEmpty()) {
                 bit.updateBoundaries(bitArea);
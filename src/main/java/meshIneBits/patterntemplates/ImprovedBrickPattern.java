@@ -36,7 +36,6 @@ import meshIneBits.Pavement;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.config.patternParameter.DoubleParam;
 import meshIneBits.slicer.Slice;
-import meshIneBits.util.AreaTool;
 import meshIneBits.util.DetectorTool;
 import meshIneBits.util.Logger;
 import meshIneBits.util.Vector2;
@@ -101,7 +100,7 @@ public class ImprovedBrickPattern extends PatternTemplate {
         AffineTransform t1 = new AffineTransform(), t2 = new AffineTransform();
         t1.rotate(customizedRotation.x, -customizedRotation.y); // Rotate backward
         t2.rotate(customizedRotation.x, customizedRotation.y); // Rotate forward
-        area.intersect(AreaTool.getAreaFrom(layer.getHorizontalSection())); // what we need to pave
+        area.intersect(layer.getHorizontalArea()); // what we need to pave
         Shape r2 = t1.createTransformedShape(area);
         Rectangle2D bound = r2.getBounds2D();
         Vector2 newPatternStart = new Vector2(bound.getX(), bound.getY()),
@@ -200,7 +200,7 @@ public class UnitSquarePattern extends PatternTemplate {
 
     @Override
     public Pavement pave(Layer layer, Area area) {
-        area.intersect(AreaTool.getAreaFrom(layer.getHorizontalSection()));
+        area.intersect(layer.getHorizontalArea());
         Pavement pavement = pave(layer.getLayerNumber(), area);
         pavement.computeBits(area);
         return pavement;
@@ -40,6 +40,8 @@ import java.io.Serializable;
  * @see Shape2D
  */
 public class Slice extends Shape2D implements Serializable {
+    private static final long serialVersionUID = 3432946744966729828L;
+
     public Slice() {
     }
 
@@ -52,4 +54,18 @@ public class Slice extends Shape2D implements Serializable {
     public void setAltitude(double altitude) {
         this.altitude = altitude;
     }
+
+    /**
+     * @param tolerance largest distance from a removed vertex to the new
+     *                  contours, in mm
+     * @return a copy at the same altitude whose polygons are simplified. This
+     * slice is not modified
+     * @see meshIneBits.util.Polygon#simplify(double)
+     */
+    public Slice simplify(double tolerance) {
+        Slice simplified = new Slice();
+        simplified.setAltitude(altitude);
+        simplified.addSimplifiedPolygonsOf(this, tolerance);
+        return simplified;
+    }
 }
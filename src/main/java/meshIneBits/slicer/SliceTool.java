@@ -34,24 +34,37 @@ import meshIneBits.MeshEvents;
 import meshIneBits.Model;
 import meshIneBits.config.CraftConfig;
 import meshIneBits.util.Logger;
+import meshIneBits.util.IndexedMesh;
 import meshIneBits.util.Segment2D;
-import meshIneBits.util.Triangle;
 import meshIneBits.util.Vector3;
 
 import java.util.Observable;
 import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The slice tool slices the model into slices, it does so by going trough all
  * model triangles and slice those into 2D lines. <br>
  * <img src="./doc-files/slices.png" alt=""> <br>
- * For each slice, it go through all the triangles of the model. If the z of the
- * slice is between the z_min and the z_max of the triangle, then it call the
- * method {@link Triangle#project2D(double)}, which returns a
- * {@link Segment2D} (class representing in a plane since it admits only Coordinates in
- * x and y). Each segment is then recorded in the {@link Slice} object. At the end of
- * {@link #sliceModel()} we get a collection of slices composed of segments that form
- * the outline of the mesh.
+ * For each slice, it go through the triangles of the model whose z range
+ * contains the z of the slice, found with the {@link Model#getZIndex() z index}
+ * of the model, and call the method {@link IndexedMesh#project2D(int, double)},
+ * which returns a {@link Segment2D} (class representing in a plane since it
+ * admits only Coordinates in x and y). Each segment is then recorded in the
+ * {@link Slice} object. At the end of {@link #sliceModel()} we get a collection
+ * of slices composed of segments that form the outline of the mesh.
+ * <br>
+ * Slices whose altitude did not change since the last slicing of the same
+ * model are reused. Unless {@link CraftConfig#slicerParallelism} is 1, slices
+ * are processed on several threads, with the same result.
+ * <br>
+ * A triangle is projected on a plane when <tt>zMin &lt;= z &lt;= zMax</tt>.
+ * Slicers before {@link SweepSlicer} found the planes of a triangle by
+ * rounding <tt>(zMin - firstSliceHeight) / sliceDistance</tt> down, which may
+ * add or skip a plane when a vertex lies exactly on it. Slices can only
+ * differ from theirs in that case.
+ *
+ * @see SweepSlicer
  */
 public class SliceTool extends Observable implements Runnable {
     private Model model;
@@ -82,59 +95,45 @@ public class SliceTool extends Observable implements Runnable {
     public void run() {
         Logger.updateStatus("Slicing mesh");
         Vector3 modelMax = model.getMax();
-        double sliceDistance = CraftConfig.bitThickness + CraftConfig.layersOffset;
-        double firstSliceHeight = CraftConfig.firstSliceHeightPercent / 100 * CraftConfig.bitThickness; // right at the middle
-        int sliceCount = (int) (Math.floor((modelMax.z - firstSliceHeight) / sliceDistance) + 1);
+        double[] altitudes = getAltitudes(modelMax.z);
 
-        for (int i = 0; i < sliceCount; i++) {
-            Slice s = new Slice();
-            s.setAltitude(firstSliceHeight + i * sliceDistance);
-            slices.add(s); // holder
+        SweepSlicer zIndex = model.getZIndex();
+        // Parallel streams run in the pool of their caller
+        ForkJoinPool pool = new ForkJoinPool(getParallelism());
+        try {
+            slices = pool.submit(() -> zIndex.slice(altitudes)).join();
+        } finally {
+            pool.shutdown();
         }
 
-        int n = 0;
-        int totalProgress = model.getTriangles().size() + sliceCount;
-        for (Triangle t : model.getTriangles()) {
-            Logger.setProgress(++n, totalProgress);
-
-            // Finding zMin between 3 vertices
-            double zMin = t.point[0].z;
-            if (t.point[1].z < zMin) {
-                zMin = t.point[1].z;
-            }
-            if (t.point[2].z < zMin) {
-                zMin = t.point[2].z;
-            }
-
-            // Finding zMax between 3 vertices
-            double zMax = t.point[0].z;
-            if (t.point[1].z > zMax) {
-                zMax = t.point[1].z;
-            }
-            if (t.point[2].z > zMax) {
-                zMax = t.point[2].z;
-            }
+        Logger.updateStatus("Mesh sliced");
+        setChanged();
+        notifyObservers(MeshEvents.SLICED);
+    }
 
-            // Project each segment on slices
-            int inf = (int) Math.floor((zMin - firstSliceHeight) / sliceDistance); // index of lowest floor above zMin
-            int sup = (int) Math.floor((zMax - firstSliceHeight) / sliceDistance); // index of highest floor under zMax
-            for (int i = Math.max(inf, 0); i <= Math.min(sup, sliceCount - 1); i++) {
-                Slice s = slices.get(i);
-                double sliceZ = s.getAltitude();
-                Segment2D project2D = t.project2D(sliceZ);
-                if (project2D != null) s.addModelSegment(project2D);
-            }
-        }
+    /**
+     * @param modelMaxZ top of the model, whose bottom is at 0
+     * @return altitudes of slices, from bottom to top
+     */
+    static double[] getAltitudes(double modelMaxZ) {
+        double sliceDistance = CraftConfig.bitThickness + CraftConfig.layersOffset;
+        double firstSliceHeight = CraftConfig.firstSliceHeightPercent / 100 * CraftConfig.bitThickness; // right at the middle
+        int sliceCount = (int) (Math.floor((modelMaxZ - firstSliceHeight) / sliceDistance) + 1);
 
-        Logger.updateStatus("Optimizing slices");
-        for (int i = 0; i < sliceCount; i++) {
-            Logger.setProgress(++n, totalProgress);
-            slices.get(i).optimize();
+        double[] altitudes = new double[Math.max(sliceCount, 0)];
+        for (int i = 0; i < altitudes.length; i++) {
+            altitudes[i] = firstSliceHeight + i * sliceDistance;
         }
+        return altitudes;
+    }
 
-        Logger.updateStatus("Mesh sliced");
-        setChanged();
-        notifyObservers(MeshEvents.SLICED);
+    /**
+     * @return number of threads used to slice
+     * @see CraftConfig#slicerParallelism
+     */
+    static int getParallelism() {
+        return CraftConfig.slicerParallelism > 0 ?
+                CraftConfig.slicerParallelism : Runtime.getRuntime().availableProcessors();
     }
 
     /**
@@ -0,0 +1,389 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.slicer;
+
+import meshIneBits.Mesh;
+import meshIneBits.MeshEvents;
+import meshIneBits.Model;
+import meshIneBits.util.AsciiSTLReader;
+import meshIneBits.util.BinarySTLReader;
+import meshIneBits.util.Logger;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.TriangleStore;
+import meshIneBits.util.Vector2;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Observable;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Slices a STL file too big to be loaded as a {@link Model}.
+ * <br>
+ * The file is read twice, part by part. The first pass measures the bounding
+ * box, to place the model as {@link Model#center()} would. The second pass
+ * cuts each triangle by the planes it crosses and bins the segments per
+ * slice, as 4 doubles each. When more than a given number of segments are
+ * held in memory, all bins are appended to their own temporary file. Slices
+ * are finally rebuilt from their file and linked in parallel.
+ * <br>
+ * Segments come in file order, so the slices are the same as those of
+ * {@link SliceTool} on the loaded model.
+ */
+public class StreamingSlicer extends Observable implements Runnable {
+    /**
+     * Default number of segments held in memory before spilling, 128MB
+     */
+    public static final long DEFAULT_MAX_BUFFERED_SEGMENTS = 1 << 22;
+    /**
+     * Number of values stored per segment
+     */
+    private static final int SEGMENT_STRIDE = 4;
+    /**
+     * Number of segments read back at once from a spill file
+     */
+    private static final int SEGMENTS_PER_READ = 1 << 14;
+
+    private final String filename;
+    private final long maxBufferedSegments;
+    private Vector<Slice> slices = new Vector<>();
+    private long bufferedSegments;
+
+    /**
+     * Slice the model file of a {@link Mesh}, which is updated when the
+     * slicing is finished.
+     *
+     * @param mesh {@link Mesh} that will collect the slices when slicing is
+     *             finished
+     */
+    public StreamingSlicer(Mesh mesh) {
+        this(mesh.getModelFile(), DEFAULT_MAX_BUFFERED_SEGMENTS);
+        addObserver(mesh);
+    }
+
+    /**
+     * @param filename            path of STL file
+     * @param maxBufferedSegments number of segments held in memory before
+     *                            spilling them to temporary files
+     */
+    public StreamingSlicer(String filename, long maxBufferedSegments) {
+        this.filename = filename;
+        this.maxBufferedSegments = maxBufferedSegments;
+    }
+
+    /**
+     * @return {@link Vector} of {@link Slice}
+     */
+    public Vector<Slice> getSlices() {
+        return slices;
+    }
+
+    @Override
+    public void run() {
+        Logger.updateStatus("Slicing " + filename + " out of core");
+        try {
+            slices = slice();
+        } catch (IOException | UncheckedIOException e) {
+            e.printStackTrace();
+            Logger.error("Cannot slice " + filename + ": " + e.getMessage());
+            setChanged();
+            notifyObservers(MeshEvents.IMPORT_FAILED);
+            return;
+        }
+        Logger.updateStatus("Mesh sliced");
+        setChanged();
+        notifyObservers(MeshEvents.SLICED);
+    }
+
+    /**
+     * Start the slicing in a thread.
+     */
+    public void sliceModel() {
+        Thread t = new Thread(this);
+        t.start();
+    }
+
+    /**
+     * Read the file twice and slice it.
+     *
+     * @return slices from bottom to top
+     * @throws IOException when the file cannot be read, or spilling fails
+     */
+    public Vector<Slice> slice() throws IOException {
+        boolean ascii = hasAsciiHeader();
+        Logger.updateStatus("Measuring " + filename);
+        double[] bounds = {
+                Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+                -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE
+        };
+        TriangleStore.Receiver measure = part -> bound(part, bounds);
+        long triangleCount = read(ascii, measure);
+        if (ascii && triangleCount == 0) {
+            ascii = false;
+            triangleCount = read(false, measure);
+        }
+        Logger.message("Triangle count: " + triangleCount);
+
+        // Same translation as Model#center()
+        double tx = -(bounds[3] + bounds[0]) / 2;
+        double ty = -(bounds[4] + bounds[1]) / 2;
+        double tz = -bounds[2];
+        double[] altitudes = SliceTool.getAltitudes(bounds[5] + tz);
+        SegmentBin[] bins = new SegmentBin[altitudes.length];
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] = new SegmentBin();
+        }
+        bufferedSegments = 0;
+
+        try {
+            Logger.updateStatus("Cutting " + filename);
+            read(ascii, part -> cut(part, tx, ty, tz, altitudes, bins));
+
+            Logger.updateStatus("Optimizing slices");
+            Slice[] result = new Slice[altitudes.length];
+            ForkJoinPool pool = new ForkJoinPool(SliceTool.getParallelism());
+            try {
+                pool.submit(() -> IntStream.range(0, altitudes.length).parallel().forEach(i -> {
+                    Slice slice = new Slice();
+                    slice.setAltitude(altitudes[i]);
+                    try {
+                        bins[i].drainTo(slice);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    slice.optimize();
+                    result[i] = slice;
+                })).join();
+            } finally {
+                pool.shutdown();
+            }
+            return new Vector<>(Arrays.asList(result));
+        } finally {
+            for (SegmentBin bin : bins) {
+                bin.delete();
+            }
+        }
+    }
+
+    /**
+     * Same test as {@link Model#Model(String)}
+     */
+    private boolean hasAsciiHeader() throws IOException {
+        char[] buf = new char[5];
+        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
+            //noinspection ResultOfMethodCallIgnored
+            br.read(buf);
+        }
+        return new String(buf).equals("solid");
+    }
+
+    private long read(boolean ascii, TriangleStore.Receiver receiver) throws IOException {
+        return ascii ? AsciiSTLReader.stream(filename, receiver) : BinarySTLReader.stream(filename, receiver);
+    }
+
+    private static void bound(TriangleStore part, double[] bounds) {
+        double[] c = part.getCoordinates();
+        int end = part.size() * TriangleStore.STRIDE;
+        for (int i = 0; i < end; i += 3) {
+            for (int axis = 0; axis < 3; axis++) {
+                if (bounds[axis] > c[i + axis]) {
+                    bounds[axis] = c[i + axis];
+                }
+                if (bounds[axis + 3] < c[i + axis]) {
+                    bounds[axis + 3] = c[i + axis];
+                }
+            }
+        }
+    }
+
+    /**
+     * Translate the triangles, then bin their intersections with every plane
+     * between their lowest and highest z, bounds included.
+     *
+     * @param altitudes ascending
+     */
+    private void cut(TriangleStore part, double tx, double ty, double tz, double[] altitudes, SegmentBin[] bins)
+            throws IOException {
+        double[] c = part.getCoordinates();
+        int end = part.size() * TriangleStore.STRIDE;
+        for (int i = 0; i < end; i += 3) {
+            c[i] += tx;
+            c[i + 1] += ty;
+            c[i + 2] += tz;
+        }
+        for (int t = 0; t < part.size(); t++) {
+            double zMin = part.getZ(t, 0);
+            double zMax = zMin;
+            for (int v = 1; v < 3; v++) {
+                double z = part.getZ(t, v);
+                if (z < zMin) {
+                    zMin = z;
+                }
+                if (z > zMax) {
+                    zMax = z;
+                }
+            }
+            for (int i = firstAtOrAbove(altitudes, zMin); i < altitudes.length && altitudes[i] <= zMax; i++) {
+                Segment2D segment = part.project2D(t, altitudes[i]);
+                // Dropped anyway by Slice#addModelSegment
+                if (segment == null || segment.start.asGoodAsEqual(segment.end)) {
+                    continue;
+                }
+                bins[i].add(segment);
+                if (++bufferedSegments > maxBufferedSegments) {
+                    for (SegmentBin bin : bins) {
+                        bin.spill();
+                    }
+                    bufferedSegments = 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param sorted ascending values
+     * @return index of first value not less than key, or length if none
+     */
+    private static int firstAtOrAbove(double[] sorted, double key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Segments of one slice, in memory then in a temporary file
+     */
+    private static class SegmentBin {
+        private double[] buffer = new double[SEGMENT_STRIDE * 16];
+        private int size;
+        private Path spillFile;
+
+        void add(Segment2D segment) {
+            if (size + SEGMENT_STRIDE > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = segment.start.x;
+            buffer[size++] = segment.start.y;
+            buffer[size++] = segment.end.x;
+            buffer[size++] = segment.end.y;
+        }
+
+        /**
+         * Append buffered segments to the file and free the memory
+         */
+        void spill() throws IOException {
+            if (size == 0) {
+                buffer = new double[SEGMENT_STRIDE * 16];
+                return;
+            }
+            if (spillFile == null) {
+                spillFile = Files.createTempFile("meshIneBits-slice", ".bin");
+                spillFile.toFile().deleteOnExit();
+            }
+            ByteBuffer bytes = ByteBuffer.allocate(size * Double.BYTES);
+            bytes.asDoubleBuffer().put(buffer, 0, size);
+            try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                while (bytes.hasRemaining()) {
+                    channel.write(bytes);
+                }
+            }
+            buffer = new double[SEGMENT_STRIDE * 16];
+            size = 0;
+        }
+
+        /**
+         * Add all segments to the slice, spilled ones first, then empty
+         * the bin.
+         */
+        void drainTo(Slice slice) throws IOException {
+            if (spillFile != null) {
+                ByteBuffer bytes = ByteBuffer.allocate(SEGMENTS_PER_READ * SEGMENT_STRIDE * Double.BYTES);
+                double[] values = new double[SEGMENTS_PER_READ * SEGMENT_STRIDE];
+                try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+                    while (channel.read(bytes) >= 0 || bytes.position() > 0) {
+                        bytes.flip();
+                        int count = bytes.remaining() / Double.BYTES / SEGMENT_STRIDE * SEGMENT_STRIDE;
+                        DoubleBuffer doubles = bytes.asDoubleBuffer();
+                        doubles.get(values, 0, count);
+                        bytes.position(count * Double.BYTES);
+                        bytes.compact();
+                        addTo(slice, values, count);
+                        if (count == 0 && bytes.position() > 0 && channel.position() == channel.size()) {
+                            throw new IOException("Truncated spill file " + spillFile);
+                        }
+                    }
+                }
+            }
+            addTo(slice, buffer, size);
+            buffer = null;
+            size = 0;
+            delete();
+        }
+
+        private static void addTo(Slice slice, double[] values, int count) {
+            for (int i = 0; i < count; i += SEGMENT_STRIDE) {
+                slice.addModelSegment(new Segment2D(
+                        new Vector2(values[i], values[i + 1]),
+                        new Vector2(values[i + 2], values[i + 3])));
+            }
+        }
+
+        void delete() {
+            if (spillFile != null) {
+                try {
+                    Files.deleteIfExists(spillFile);
+                } catch (IOException e) {
+                    Logger.warning("Cannot delete " + spillFile);
+                }
+                spillFile = null;
+            }
+        }
+    }
+}
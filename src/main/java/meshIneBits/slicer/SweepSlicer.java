@@ -0,0 +1,242 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.slicer;
+
+import meshIneBits.config.CraftConfig;
+import meshIneBits.util.IndexedMesh;
+import meshIneBits.util.Logger;
+import meshIneBits.util.Segment2D;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Slices a model at any list of altitudes, uniform or not.
+ * <br>
+ * Triangles are sorted once by their lowest z into an event list. The planes
+ * are then swept upward: triangles enter an active set when the plane reaches
+ * their lowest z and leave it once the plane is above their highest z. Each
+ * plane only projects the triangles of the active set, so slicing costs
+ * <tt>O(n log n + k)</tt> for <tt>n</tt> triangles and <tt>k</tt>
+ * intersections.
+ * <br>
+ * The event list only depends on the triangles. The same instance may slice
+ * again at other altitudes without sorting, as long as the vertices have not
+ * been moved. Slices of the last run are kept, and returned again for the
+ * altitudes asked anew.
+ *
+ * @see SliceTool
+ */
+public class SweepSlicer {
+    private final IndexedMesh triangles;
+    private final double[] zMin;
+    private final double[] zMax;
+    /**
+     * Indices of triangles, by ascending {@link #zMin}
+     */
+    private final int[] events;
+    /**
+     * Slices of the last run, by altitude
+     */
+    private Map<Double, Slice> lastSlices = new HashMap<>();
+    /**
+     * Settings used by {@link Slice#optimize()} in the last run
+     *
+     * @see #getOptimizeSettings()
+     */
+    private List<Number> lastSettings;
+
+    /**
+     * Sort the triangles by their lowest z.
+     *
+     * @param triangles to slice. Must not be modified while this slicer is
+     *                  in use
+     */
+    public SweepSlicer(IndexedMesh triangles) {
+        this.triangles = triangles;
+        int n = triangles.size();
+        zMin = new double[n];
+        zMax = new double[n];
+        for (int t = 0; t < n; t++) {
+            zMin[t] = triangles.getZMin(t);
+            zMax[t] = triangles.getZMax(t);
+        }
+        events = sortIndices(zMin);
+    }
+
+    /**
+     * @return the triangles indexed by this slicer
+     */
+    public IndexedMesh getTriangles() {
+        return triangles;
+    }
+
+    /**
+     * Find the triangles spanning each plane, that is whose lowest z is
+     * below or at the altitude and highest z above or at it.
+     *
+     * @param altitudes in any order
+     * @return for each altitude, indices of triangles in ascending order
+     */
+    public int[][] findCrossingTriangles(double[] altitudes) {
+        int[][] crossing = new int[altitudes.length][];
+        int[] planes = sortIndices(altitudes);
+        int[] active = new int[16];
+        int activeCount = 0;
+        int nextEvent = 0;
+        for (int plane : planes) {
+            double z = altitudes[plane];
+            // Enter
+            while (nextEvent < events.length && zMin[events[nextEvent]] <= z) {
+                if (activeCount == active.length) {
+                    active = Arrays.copyOf(active, active.length * 2);
+                }
+                active[activeCount++] = events[nextEvent++];
+            }
+            // Leave
+            int kept = 0;
+            for (int i = 0; i < activeCount; i++) {
+                if (zMax[active[i]] >= z) {
+                    active[kept++] = active[i];
+                }
+            }
+            activeCount = kept;
+            int[] hits = Arrays.copyOf(active, activeCount);
+            Arrays.sort(hits);
+            crossing[plane] = hits;
+        }
+        return crossing;
+    }
+
+    /**
+     * Cut the triangles by each plane and link the segments into polygons.
+     * Segments are added in triangle order. Slices
+     * are processed in parallel, in the pool of the caller.
+     * <br>
+     * Altitudes already sliced by the previous call are not recomputed: the
+     * same {@link Slice} instances are returned. They must not be modified.
+     * All slices are recomputed if {@link CraftConfig#errorAccepted} or
+     * {@link CraftConfig#joinMinCosAngle} has changed since.
+     *
+     * @param altitudes in any order
+     * @return one optimized slice per altitude, in the same order
+     */
+    public synchronized Vector<Slice> slice(double[] altitudes) {
+        Slice[] slices = new Slice[altitudes.length];
+        List<Number> settings = getOptimizeSettings();
+        if (!settings.equals(lastSettings)) {
+            // Polygons would be linked differently
+            lastSlices.clear();
+        }
+        for (int i = 0; i < altitudes.length; i++) {
+            slices[i] = lastSlices.get(altitudes[i]);
+        }
+        int[] missing = IntStream.range(0, altitudes.length).filter(i -> slices[i] == null).toArray();
+        int missingCount = missing.length;
+        double[] missingAltitudes = new double[missingCount];
+        for (int j = 0; j < missingCount; j++) {
+            missingAltitudes[j] = altitudes[missing[j]];
+        }
+        if (missingCount < altitudes.length) {
+            Logger.message("Reusing " + (altitudes.length - missingCount) + " of " + altitudes.length + " slices");
+        }
+
+        int[][] crossing = findCrossingTriangles(missingAltitudes);
+        AtomicInteger progress = new AtomicInteger();
+        IntStream.range(0, missingCount).parallel().forEach(j -> {
+            Slice slice = new Slice();
+            slice.setAltitude(missingAltitudes[j]);
+            for (int t : crossing[j]) {
+                Segment2D segment = triangles.project2D(t, missingAltitudes[j]);
+                if (segment != null) slice.addModelSegment(segment);
+            }
+            slice.optimize();
+            slices[missing[j]] = slice;
+            Logger.setProgress(progress.incrementAndGet(), missingCount);
+        });
+
+        lastSlices = new HashMap<>();
+        for (Slice slice : slices) {
+            lastSlices.put(slice.getAltitude(), slice);
+        }
+        lastSettings = settings;
+        return new Vector<>(Arrays.asList(slices));
+    }
+
+    /**
+     * @return the settings on which linking and merging segments into
+     * polygons depends
+     */
+    private static List<Number> getOptimizeSettings() {
+        return Arrays.asList(CraftConfig.errorAccepted, CraftConfig.joinMinCosAngle);
+    }
+
+    /**
+     * Stable sort of indices by key, ignoring <tt>NaN</tt> keys, which are
+     * put last.
+     *
+     * @param keys values to order
+     * @return indices of keys, by ascending value
+     */
+    private static int[] sortIndices(double[] keys) {
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = i;
+        }
+        int[] buffer = new int[keys.length];
+        // Bottom-up merge sort
+        for (int width = 1; width < indices.length; width *= 2) {
+            for (int from = 0; from < indices.length; from += 2 * width) {
+                int middle = Math.min(from + width, indices.length);
+                int to = Math.min(from + 2 * width, indices.length);
+                int left = from, right = middle, out = from;
+                while (left < middle && right < to) {
+                    // NaN compares as greater with Double.compare
+                    if (Double.compare(keys[indices[right]], keys[indices[left]]) < 0) {
+                        buffer[out++] = indices[right++];
+                    } else {
+                        buffer[out++] = indices[left++];
+                    }
+                }
+                while (left < middle) buffer[out++] = indices[left++];
+                while (right < to) buffer[out++] = indices[right++];
+            }
+            int[] swap = indices;
+            indices = buffer;
+            buffer = swap;
+        }
+        return indices;
+    }
+}
@@ -36,6 +36,10 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 public class AreaTool {
+    /**
+     * Longest miter when expanding, in widths
+     */
+    public static final double MITER_LIMIT = 2;
 
     /**
      * Returns the barycenter of an area
@@ -47,14 +51,10 @@ public class AreaTool {
 
     private static Vector2 compute2DPolygonCentroid(Area area) {
 
-        Vector<Segment2D> segments = getLargestPolygon(area);
-        if (segments == null) return null;
-
-        Vector<Vector2> vertices = new Vector<>();
-        for (Segment2D s : segments) {
-            vertices.add(s.start);
-            vertices.addElement(s.end);
-        }
+        Outline outline = Outline.from(area);
+        int largest = getLargestRing(outline);
+        if (largest < 0) return null;
+        int first = outline.ringStart(largest);
 
         double centroidX = 0;
         double centroidY = 0;
@@ -64,14 +64,17 @@ public class AreaTool {
         double x1; // Next vertex X
         double y1; // Next vertex Y
         double a; // Partial signed area
-        int vertexCount = vertices.size();
+        // Both ends of each edge, one after another
+        int vertexCount = 2 * (outline.ringEnd(largest) - first);
 
         // For all vertices
         for (int i = 0; i < vertexCount; ++i) {
-            x0 = vertices.get(i).x;
-            y0 = vertices.get(i).y;
-            x1 = vertices.get((i + 1) % vertexCount).x;
-            y1 = vertices.get((i + 1) % vertexCount).y;
+            int e = first + i / 2;
+            x0 = i % 2 == 0 ? outline.startX(e) : outline.endX(e);
+            y0 = i % 2 == 0 ? outline.startY(e) : outline.endY(e);
+            e = first + ((i + 1) % vertexCount) / 2;
+            x1 = (i + 1) % 2 == 0 ? outline.startX(e) : outline.endX(e);
+            y1 = (i + 1) % 2 == 0 ? outline.startY(e) : outline.endY(e);
             a = (x0 * y1) - (x1 * y0);
             signedArea += a;
             centroidX += (x0 + x1) * a;
@@ -118,23 +121,31 @@ public class AreaTool {
      * @return outside boundaries. <tt>null</tt> if area is empty
      */
     public static Vector<Segment2D> getLargestPolygon(Area area) {
-        Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
-        if (segments.isEmpty()) return null;
-        Vector<Double> boundLength = new Vector<>();
-        for (Vector<Segment2D> poly : segments) {
+        Outline outline = Outline.from(area);
+        int largest = getLargestRing(outline);
+        if (largest < 0) return null;
+        return getSegmentsFrom(outline, largest);
+    }
+
+    /**
+     * @param outline border of an area
+     * @return index of the ring with the longest perimeter, the first one in
+     * case of tie. <tt>-1</tt> if there is no ring
+     */
+    private static int getLargestRing(Outline outline) {
+        int largestRingIndex = -1;
+        double largestLength = 0;
+        for (int r = 0; r < outline.ringCount(); r++) {
             double length = 0;
-            for (Segment2D s : poly) {
-                length += s.getLength();
+            for (int e = outline.ringStart(r); e < outline.ringEnd(r); e++) {
+                length += outline.length(e);
             }
-            boundLength.add(length);
-        }
-        int largestPolygonIndex = 0;
-        for (int i = 1; i < segments.size(); i++) {
-            if (boundLength.get(i) > boundLength.get(largestPolygonIndex)) {
-                largestPolygonIndex = i;
+            if (largestRingIndex < 0 || length > largestLength) {
+                largestRingIndex = r;
+                largestLength = length;
             }
         }
-        return segments.get(largestPolygonIndex);
+        return largestRingIndex;
     }
 
     /**
@@ -177,83 +188,48 @@ public class AreaTool {
             return null;
         }
 
-        Vector<Vector<Area>> areasByLevel = new Vector<>();
-        // We fill the vector with null values, it cannot have more levels than
-        // areas
-        for (@SuppressWarnings("unused")
-                Area a : areas) {
-            areasByLevel.add(null);
-        }
-
         /*
-         * Sort the areas by their "inclusion level": if no other area contains
-         * the area A, then A's level will be 0, if A is contained by only one
-         * then A's level will be 1, etc...
+         * The "inclusion level" of an area is the number of other areas
+         * containing it: if it's even this area is filled, if it's odd this
+         * area is a hole
          */
+        PolygonNesting nesting = PolygonNesting.of(areas);
+        return digHoles(areas, nesting);
+    }
+
+    /**
+     * Subtract from each area of even level the areas right inside it
+     *
+     * @param areas   targets, modified
+     * @param nesting of <tt>areas</tt>
+     * @return the filled surfaces, by level then in the order of <tt>areas</tt>
+     */
+    private static Vector<Area> digHoles(List<Area> areas, PolygonNesting nesting) {
         int levelMax = 0;
-        for (Area currentArea : areas) {
-            int levelCurrentArea = 0; // If level is even this area is filled,
-            // if it's odd this area is a hole
-            for (Area otherArea : areas) {
-                if (!currentArea.equals(otherArea)) {
-                    Area currentAreaClone = (Area) currentArea.clone();
-                    currentAreaClone.intersect(otherArea);
-                    if (currentAreaClone.equals(currentArea)) {
-                        // currentArea is inside otherArea
-                        levelCurrentArea++;
-                    }
-                    /*
-                     * Following code is just a help to understand the
-                     * algorithm:
-                     *
-                     * else if(currentAreaClone.equals(otherArea)){ //otherArea
-                     * is inside currentArea } else{ //These two are two
-                     * separate areas }
-                     */
-                }
-            }
-            if (areasByLevel.get(levelCurrentArea) == null) {
-                for (int i = 0; i <= levelCurrentArea; i++) {
-                    if (areasByLevel.get(i) == null) {
-                        areasByLevel.set(i, new Vector<>());
-                    }
-                }
-            }
-            areasByLevel.get(levelCurrentArea).add(currentArea);
-            if (levelCurrentArea > levelMax) {
-                levelMax = levelCurrentArea;
-            }
+        for (int i = 0; i < nesting.size(); i++)
+            levelMax = Math.max(levelMax, nesting.getDepth(i));
+        boolean[] levelHasHoles = new boolean[levelMax + 2];
+        Map<Integer, Area> holes = new HashMap<>();
+        for (int i = 0; i < nesting.size(); i++) {
+            if (nesting.getDepth(i) % 2 == 0) continue;
+            levelHasHoles[nesting.getDepth(i) - 1] = true;
+            holes.computeIfAbsent(nesting.getParent(i), k -> new Area()).add(areas.get(i));
         }
 
-//		for (Area level0Area : areasByLevel.get(0)) {
-//			for (int level = 1; level <= levelMax; level++) {
-//				for (Area higherLevelArea : areasByLevel.get(level)) {
-//					if ((level % 2) != 0) {
-//						level0Area.subtract(higherLevelArea);
-//					} else {
-//						level0Area.add(higherLevelArea);
-//					}
-//				}
-//			}
-//		}
-
         Vector<Area> surfaces = new Vector<>();
-
-        for (int i = 0; i <= levelMax; i = i + 2) {
-            if (i + 1 > levelMax || areasByLevel.get(i + 1).isEmpty()) {
-                surfaces.addAll(areasByLevel.get(i));
-                continue;
-            }
-            Area hole = new Area();
-            areasByLevel.get(i + 1).forEach(hole::add);
-            // Reconstruct even level area
-            areasByLevel.get(i).forEach(area -> {
-                area.subtract(hole);
+        for (int level = 0; level <= levelMax; level += 2) {
+            for (int i = 0; i < nesting.size(); i++) {
+                if (nesting.getDepth(i) != level) continue;
+                Area area = areas.get(i);
+                if (!levelHasHoles[level]) {
+                    surfaces.add(area);
+                    continue;
+                }
+                Area hole = holes.get(i);
+                if (hole != null) area.subtract(hole);
                 if (!area.isEmpty()) surfaces.add(area);
-            });
+            }
         }
-
-//		return areasByLevel.get(0);
         return surfaces;
     }
 
@@ -268,58 +244,20 @@ public class AreaTool {
      * @since 0.3
      */
     private static List<Area> getContinuousSurfacesFrom(List<Polygon> polygons) {
-        Map<Polygon, Integer> ranking = new HashMap<>();
-        for (Polygon newPolygon : polygons) {
-            List<Polygon> containingPolygons = new Vector<>();
-            List<Polygon> containedPolygons = new Vector<>();
-            for (Polygon polygon : ranking.keySet()) {
-                if (polygon.approximatelyContains(newPolygon)) {
-                    // Check the keys containing the new polygon
-                    containingPolygons.add(polygon);
-                } else if (newPolygon.approximatelyContains(polygon)) {
-                    // Check if it contains old polygons
-                    containedPolygons.add(polygon);
-                }
-            }
-            // Calculate the level of new polygon
-            ranking.put(newPolygon, 0);
-            containingPolygons.stream()
-                    .mapToInt(ranking::get).max()
-                    .ifPresent(l -> ranking.put(newPolygon, l + 1));
-            // Promote level of contained polygons
-            containedPolygons.forEach((Polygon p)
-                    -> ranking.put(p, ranking.get(p) + 1));
-        }
-        // Regroup into level
-        List<List<Polygon>> classing = new Vector<>();
-        polygons.forEach(polygon -> classing.add(new Vector<>()));
-        ranking.keySet().forEach((Polygon p) -> {
-            int r = ranking.get(p);
-            if (classing.get(r) == null)
-                classing.set(r, new Vector<>());
-            else
-                classing.get(r).add(p);
-        });
-        // Calculate areas
+        if (polygons.isEmpty()) return new Vector<>();
+        Rectangle2D[] bounds = new Rectangle2D[polygons.size()];
+        List<Area> areas = new Vector<>(polygons.size());
+        for (int i = 0; i < polygons.size(); i++) {
+            bounds[i] = polygons.get(i).toPath2D().getBounds2D();
+            areas.add(AreaTool.getAreaFrom(polygons.get(i)));
+        }
         // Even level polygons will be the outer border,
         // minus the holes which are the next odd level polygons
-        List<Area> surfaces = new Vector<>();
-        for (int i = 0; i < classing.size(); i++) {
-            assert classing.get(i) != null;
-            if (i % 2 != 0) continue;
-            // Prepare the big hole
-            Area hole = new Area();
-            if (i + 1 < classing.size())
-                classing.get(i + 1).forEach((Polygon p)
-                        -> hole.add(AreaTool.getAreaFrom(p)));
-            // Dig the polygon in even level
-            for (Polygon p : classing.get(i)) {
-                Area newSurface = AreaTool.getAreaFrom(p);
-                newSurface.subtract(hole);
-                if (!newSurface.isEmpty())
-                    surfaces.add(newSurface);
-            }
-        }
+        PolygonNesting nesting = new PolygonNesting(bounds,
+                2 * Math.pow(10, -CraftConfig.errorAccepted),
+                (outer, inner) -> polygons.get(outer).approximatelyContains(polygons.get(inner)));
+        List<Area> surfaces = digHoles(areas, nesting);
+        surfaces.removeIf(Area::isEmpty);
         return surfaces;
     }
 
@@ -364,194 +302,181 @@ public class AreaTool {
         // We check if the barycenter would be ok
         Vector2 barycenter = AreaTool.compute2DPolygonCentroid(area);
         if (barycenter == null) return null;
-        Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
+        Outline outline = Outline.from(area);
         if (area.contains(barycenter.x, barycenter.y)) {
             // To be sure every other
             // distances will be smaller
-            double minDist = CraftConfig.lengthFull * 2;
-            for (Vector<Segment2D> polygon : segments) {
-                for (Segment2D segment : polygon) {
-                    double dist = segment.distFromPoint(barycenter);
-                    if (dist < minDist) {
-                        minDist = dist;
-                    }
-                }
-            }
+            double minDist = Math.min(CraftConfig.lengthFull * 2, outline.distanceTo(barycenter.x, barycenter.y));
             if (minDist >= minRadius) {
                 return new Vector2(barycenter.x, barycenter.y);
             }
         }
         // In case the barycenter is not in the area
         // or the circle of sucker is not fit in the area,
-        // we fill the area with points
-        Rectangle2D bounds = area.getBounds2D();
-        double stepX = 1;
-        double stepY = 1;
-        double startX = bounds.getMinX();
-        double startY = bounds.getMinY();
-        double endX = bounds.getMaxX();
-        double endY = bounds.getMaxY();
-        Vector<Vector2> points = new Vector<>();
-        for (double x = startX; x <= endX; x += stepX) {
-            for (double y = startY; y <= endY; y += stepY) {
-                Vector2 point = new Vector2(x, y);
-                if (area.contains(new Point2D.Double(point.x, point.y))) {
-                    points.add(point);
+        // we look for the closest point of a 1mm lattice
+        // covering the area which fits the sucker cup
+        return new LiftPointSearch(area, outline, barycenter, minRadius).run();
+    }
+
+    /**
+     * Best-first search over the lattice used to place the sucker cup. The
+     * lattice is split as a quadtree. Each cell is bounded by the distance from
+     * the barycenter to its rectangle and by the clearance of its center plus
+     * its half diagonal, so that cells which cannot hold a valid point are
+     * dropped without sampling them. Points come out by distance from the
+     * barycenter, then in scan order, which is the order of the former
+     * exhaustive scan.
+     */
+    private static class LiftPointSearch {
+        /**
+         * Margin against rounding when pruning cells
+         */
+        private static final double MARGIN = 1e-9;
+        private final Area area;
+        private final Outline outline;
+        private final Vector2 barycenter;
+        private final double minRadius;
+        private final double[] xs;
+        private final double[] ys;
+
+        LiftPointSearch(Area area, Outline outline, Vector2 barycenter, double minRadius) {
+            this.area = area;
+            this.outline = outline;
+            this.barycenter = barycenter;
+            this.minRadius = minRadius;
+            Rectangle2D bounds = area.getBounds2D();
+            xs = ClearanceField.lattice(bounds.getMinX(), bounds.getMaxX(), 1);
+            ys = ClearanceField.lattice(bounds.getMinY(), bounds.getMaxY(), 1);
+        }
+
+        Vector2 run() {
+            if (xs.length == 0 || ys.length == 0)
+                return null;
+            PriorityQueue<Cell> queue = new PriorityQueue<>();
+            queue.add(new Cell(0, xs.length - 1, 0, ys.length - 1));
+            while (!queue.isEmpty()) {
+                Cell cell = queue.poll();
+                if (cell.isPoint()) {
+                    Vector2 p = new Vector2(xs[cell.i0], ys[cell.j0]);
+                    if (fitsSuckerCup(p))
+                        return p;
+                    continue;
                 }
+                if (!mayHoldLiftPoint(cell))
+                    continue;
+                int im = (cell.i0 + cell.i1) >>> 1;
+                int jm = (cell.j0 + cell.j1) >>> 1;
+                queue.add(new Cell(cell.i0, im, cell.j0, jm));
+                if (im < cell.i1)
+                    queue.add(new Cell(im + 1, cell.i1, cell.j0, jm));
+                if (jm < cell.j1)
+                    queue.add(new Cell(cell.i0, im, jm + 1, cell.j1));
+                if (im < cell.i1 && jm < cell.j1)
+                    queue.add(new Cell(im + 1, cell.i1, jm + 1, cell.j1));
             }
-        }
-
-        if (points.isEmpty()) {
             return null;
         }
 
-        // We sort the points by their distance from the barycenter, the smaller
-        // distances on top
-        Vector<Double> distances = new Vector<>();
-        Vector<Vector2> sortedPoints = new Vector<>();
-        distances.add(Math.sqrt(Vector2.dist2(new Vector2(points.get(0).x, points.get(0).y), barycenter)));
-        sortedPoints.add(points.get(0));
-        for (int j = 1; j < points.size(); j++) {
-            double distance = Math.sqrt(Vector2.dist2(new Vector2(points.get(j).x, points.get(j).y), barycenter));
-            boolean addAtTheEnd = true;
-            for (int i = 0; i < distances.size(); i++) {
-                if (distance < distances.get(i)) {
-                    distances.insertElementAt(distance, i);
-                    sortedPoints.insertElementAt(points.get(j), i);
-                    addAtTheEnd = false;
-                    break;
-                }
-            }
-            if (addAtTheEnd) {
-                distances.addElement(distance);
-                sortedPoints.add(points.get(j));
+        /**
+         * Exact test, as done on every sample before
+         */
+        private boolean fitsSuckerCup(Vector2 p) {
+            return area.contains(new Point2D.Double(p.x, p.y))
+                    && !(outline.distanceTo(p.x, p.y) < minRadius);
+        }
+
+        private boolean mayHoldLiftPoint(Cell cell) {
+            double cx = (xs[cell.i0] + xs[cell.i1]) / 2;
+            double cy = (ys[cell.j0] + ys[cell.j1]) / 2;
+            double halfDiagonal = Math.hypot(xs[cell.i1] - xs[cell.i0], ys[cell.j1] - ys[cell.j0]) / 2;
+            double clearance = outline.distanceTo(cx, cy);
+            if (clearance + halfDiagonal < minRadius - MARGIN)
+                return false;
+            // Entirely outside
+            return clearance <= halfDiagonal + MARGIN || area.contains(cx, cy);
+        }
+
+        private class Cell implements Comparable<Cell> {
+            final int i0, i1, j0, j1;
+            /**
+             * Lower bound of the distances from the barycenter
+             */
+            final double distance;
+
+            Cell(int i0, int i1, int j0, int j1) {
+                this.i0 = i0;
+                this.i1 = i1;
+                this.j0 = j0;
+                this.j1 = j1;
+                double x = Math.max(xs[i0], Math.min(xs[i1], barycenter.x));
+                double y = Math.max(ys[j0], Math.min(ys[j1], barycenter.y));
+                distance = Math.sqrt(Vector2.dist2(new Vector2(x, y), barycenter));
             }
-        }
 
-        // We review each points and check if it is far enough from the edges to
-        // fit the sucker cup, the first one to be ok will be the liftPoint
-        Vector2 liftPoint = null;
-        for (Vector2 p : sortedPoints) {
-            // To be sure every other distances will be smaller
-            double minDistFromBounds = CraftConfig.lengthFull * 2;
-            for (Vector<Segment2D> polygon : segments) {
-                for (Segment2D segment : polygon) {
-                    double dist = segment.distFromPoint(new Vector2(p.x, p.y));
-                    if (dist < minDistFromBounds) {
-                        minDistFromBounds = dist;
-                    }
-                }
+            boolean isPoint() {
+                return i0 == i1 && j0 == j1;
             }
-            if (minDistFromBounds >= minRadius) {
-                liftPoint = p;
-                break;
+
+            @Override
+            public int compareTo(Cell o) {
+                int c = Double.compare(distance, o.distance);
+                if (c != 0) return c;
+                // Open cells first, so that their points are ranked too
+                if (isPoint() != o.isPoint())
+                    return isPoint() ? 1 : -1;
+                c = Integer.compare(i0, o.i0);
+                return c != 0 ? c : Integer.compare(j0, o.j0);
             }
         }
-        return liftPoint;
     }
 
     /**
-     * It converts the outline of an area into a vector of segment2D. Taken
-     * from
-     * <a href= "http://stackoverflow.com/questions/8144156/using-pathiterator-to-return-all-line-segments-that-constrain-an-area">this
-     * link</a>.
+     * It converts the outline of an area into a vector of segment2D. Callers
+     * which only read coordinates should use {@link Outline} directly.
      *
      * @param area target to extract
      * @return segmentation of border
+     * @see Outline#from(java.awt.Shape)
      */
     public static Vector<Vector<Segment2D>> getSegmentsFrom(Area area) {
-        Vector<double[]> areaPoints = new Vector<>();
-
-        double[] coords = new double[6];
-        int polygonCount = 0;
-
-        for (PathIterator pi = area.getPathIterator(null); !pi.isDone(); pi.next()) {
-            // The type will be SEG_LINETO, SEG_MOVETO, or SEG_CLOSE
-            // Because the Area is composed of straight lines
-            int type = pi.currentSegment(coords);
-            // We record a double array of {segment type, x coord, y coord}
-            double[] pathIteratorCoords = {type, coords[0], coords[1]};
-            areaPoints.add(pathIteratorCoords);
-            if (type == PathIterator.SEG_MOVETO) {
-                polygonCount++;
-            }
-        }
-
-        double[] start = new double[3]; // To record where each polygon starts
-
-        Vector<Vector<Segment2D>> polygons = new Vector<>(polygonCount);
-
-        for (int i = 0; i < polygonCount; i++) {
-            polygons.add(new Vector<>());
-        }
-        int currentPolygonIndex = 0;
-
-        for (int i = 0; i < areaPoints.size(); i++) {
-            // If we're not on the last point, return a line from this point to
-            // the next
-            double[] currentElement = areaPoints.get(i);
-
-            // We need a default value in case we've reached the end of the
-            // ArrayList
-            double[] nextElement = {-1, -1, -1};
-            if (i < (areaPoints.size() - 1)) {
-                nextElement = areaPoints.get(i + 1);
-            }
-
-            // Make the lines
-            if (currentElement[0] == PathIterator.SEG_MOVETO) {
-                start = currentElement; // Record where the polygon started to
-                // close it later
-                if (!polygons.get(currentPolygonIndex).isEmpty()) {
-                    currentPolygonIndex++;
-                    if (currentPolygonIndex >= polygonCount) {
-                        currentPolygonIndex = 0;
-                    }
-                }
-            }
-
-            if (nextElement[0] == PathIterator.SEG_LINETO) {
-                polygons.get(currentPolygonIndex).insertElementAt(new Segment2D(
-                        new Vector2(nextElement[1], nextElement[2]), new Vector2(currentElement[1], currentElement[2])
-
-                ), 0);
-            } else if (nextElement[0] == PathIterator.SEG_CLOSE) {
-                polygons.get(currentPolygonIndex).insertElementAt(
-                        new Segment2D(new Vector2(start[1], start[2]), new Vector2(currentElement[1], currentElement[2])
-
-                        ), 0);
-            }
-        }
-
-        // Clean the result by removing segments which have the same start and
-        // end (java.awt.geom.Area.intersect issue)
-        Iterator<Vector<Segment2D>> itrPolygons = polygons.iterator();
-        while (itrPolygons.hasNext()) {
-            Vector<Segment2D> polygon = itrPolygons.next();
-            polygon.removeIf(s -> s.start.asGoodAsEqual(s.end));
-            if (polygon.isEmpty()) {
-                itrPolygons.remove();
-            }
+        Outline outline = Outline.from(area);
+        Vector<Vector<Segment2D>> polygons = new Vector<>(outline.ringCount());
+        for (int r = 0; r < outline.ringCount(); r++) {
+            polygons.add(getSegmentsFrom(outline, r));
         }
-
-        // areaSegments now contains all the line segments
         return polygons;
     }
 
+    /**
+     * @param outline border of an area
+     * @param r       ring index
+     * @return edges of ring <tt>r</tt> as segments
+     */
+    private static Vector<Segment2D> getSegmentsFrom(Outline outline, int r) {
+        Vector<Segment2D> polygon = new Vector<>(outline.ringEnd(r) - outline.ringStart(r));
+        for (int e = outline.ringStart(r); e < outline.ringEnd(r); e++) {
+            polygon.add(new Segment2D(
+                    new Vector2(outline.startX(e), outline.startY(e)),
+                    new Vector2(outline.endX(e), outline.endY(e))));
+        }
+        return polygon;
+    }
+
     /**
      * @param area target to extract
      * @return the separated surfaces
      */
     public static Vector<Area> segregateArea(Area area) {
 
-        Vector<Vector<Segment2D>> polygons = AreaTool.getSegmentsFrom(area);
+        Outline outline = Outline.from(area);
         Vector<Area> segregatedAreas = new Vector<>();
 
-        for (Vector<Segment2D> pathLine : polygons) {
+        for (int r = 0; r < outline.ringCount(); r++) {
             Path2D path2D = new Path2D.Double();
-            path2D.moveTo(pathLine.get(0).start.x, pathLine.get(0).start.y);
-            for (int i = 1; i < pathLine.size(); i++) {
-                path2D.lineTo(pathLine.get(i).start.x, pathLine.get(i).start.y);
+            int first = outline.ringStart(r);
+            path2D.moveTo(outline.startX(first), outline.startY(first));
+            for (int e = first + 1; e < outline.ringEnd(r); e++) {
+                path2D.lineTo(outline.startX(e), outline.startY(e));
             }
             // path2D.lineTo(pathLine.get(pathLine.size() - 1).end.x,
             // pathLine.get(pathLine.size() - 1).end.y);
@@ -566,27 +491,62 @@ public class AreaTool {
     }
 
     /**
-     * Expand <tt>area</tt> by a certain width
+     * Expand <tt>area</tt> by a certain width. Edges are moved by
+     * <tt>width</tt> and extended until they meet, corners sharper than
+     * {@link #MITER_LIMIT} being beveled
      *
      * @param area  target. Should not be <tt>null</tt> or empty
      * @param width in mm. Positive to enlarge, negative to shrink
      * @return <tt>null</tt> if <tt>area</tt> is <tt>null</tt> or empty
+     * @see PolygonOffset
      */
     public static Area expand(Area area, Double width) {
         if (area == null || area.isEmpty())
             return new Area();
         if (width == 0) return area;
+        return PolygonOffset.offset(area, width, PolygonOffset.JoinType.MITER, MITER_LIMIT);
+    }
 
-        // Each polygon is a set of unordered segments
-        List<Polygon> inflatedPolygons = getPolygonsFrom(area).stream()
-                .map(p -> expand(p, area, width))
-                .collect(Collectors.toList());
-        Area finalArea = new Area();
-        getContinuousSurfacesFrom(inflatedPolygons).forEach(finalArea::add);
-        return finalArea;
+    /**
+     * Union of many areas in one pass. Their contours, oriented by nesting,
+     * are merged under the non-zero winding rule instead of adding areas one
+     * by one
+     *
+     * @param areas targets. Not modified
+     * @return a new area
+     */
+    public static Area union(Collection<Area> areas) {
+        Path2D path = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        for (Area area : areas) {
+            Contours contours = Contours.from(area, 0);
+            for (int r = 0; r < contours.ringCount(); r++) {
+                int from = contours.ringStarts[r];
+                path.moveTo(contours.xy[2 * from], contours.xy[2 * from + 1]);
+                for (int i = from + 1; i < contours.ringStarts[r + 1]; i++)
+                    path.lineTo(contours.xy[2 * i], contours.xy[2 * i + 1]);
+                path.closePath();
+            }
+        }
+        return new Area(path);
+    }
+
+    /**
+     * Expand several areas in parallel
+     *
+     * @param areas targets. Not modified
+     * @param width in mm. Positive to enlarge, negative to shrink
+     * @return expanded areas, in the same order
+     * @see #expand(Area, Double)
+     */
+    public static List<Area> expandAll(List<Area> areas, double width) {
+        if (width == 0) return new Vector<>(areas);
+        return PolygonOffset.offsetAll(areas, width, PolygonOffset.JoinType.MITER, MITER_LIMIT);
     }
 
     /**
+     * @deprecated use {@link #expand(Area, Double)}, which does not fail on
+     * irregular borders
+     * <br/>
      * Expand / Shrink polygon given its area. For fast computing, we only
      * check approximately. So if an edge is too close to another ( &lt; 2 * 10^
      * {@link CraftConfig#errorAccepted -errorAccepted}), some unpredictable
@@ -597,6 +557,7 @@ public class AreaTool {
      * @param width   in mm. Positive to expand, negative to shrink
      * @return transformed polygon. <tt>null</tt> if invalid border
      */
+    @Deprecated
     public static Polygon expand(Polygon polygon, Area area, Double width) {
         Iterator<Segment2D> pi = polygon.iterator();
         // Init
@@ -668,30 +629,124 @@ public class AreaTool {
      * @return {@link Vector list} of {@link Vector2 points}points founded
      */
     public static Vector<Vector2> getTwoMostDistantPointFromArea(Area area){
-        Vector<Vector2> positionTwoMostDistantPoint = new Vector<>();
+        double[] xy = getVerticesFrom(area);
+        int[] hull = getConvexHull(xy);
+        int h = hull.length;
+        if (h < 2) return null;
+        // Rotating calipers: the most distant points form an antipodal pair
+        int first = -1;
+        int second = -1;
         double longestDistance = 0;
-        for (PathIterator p1 = area.getPathIterator(null); !p1.isDone(); p1.next()) {
-            double[] coord1 = new double[6];
-            int type1 = p1.currentSegment(coord1);
-            Vector2 v1 = new Vector2(coord1[0], coord1[1]);
-            if (type1 == PathIterator.SEG_CLOSE) continue;
-
-            for (PathIterator p2 = area.getPathIterator(null); !p2.isDone(); p2.next()) {
-                double[] coord2 = new double[6];
-                int type2 = p2.currentSegment(coord2);
-                if (type2 == PathIterator.SEG_CLOSE) {
-                    continue;
+        int j = 1;
+        for (int i = 0; i < h; i++) {
+            int a = hull[i];
+            int b = hull[(i + 1) % h];
+            while (triangleArea2(xy, a, b, hull[(j + 1) % h]) > triangleArea2(xy, a, b, hull[j]))
+                j = (j + 1) % h;
+            int c = hull[j];
+            int d = hull[(j + 1) % h];
+            boolean parallel = triangleArea2(xy, a, b, d) == triangleArea2(xy, a, b, c);
+            for (int k = 0; k < (parallel ? 4 : 2); k++) {
+                int p = k % 2 == 0 ? a : b;
+                int q = k < 2 ? c : d;
+                double distance = Math.sqrt(
+                        (xy[2 * p] - xy[2 * q]) * (xy[2 * p] - xy[2 * q])
+                                + (xy[2 * p + 1] - xy[2 * q + 1]) * (xy[2 * p + 1] - xy[2 * q + 1]));
+                int lower = Math.min(p, q);
+                int upper = Math.max(p, q);
+                // On ties, keep the pair met first along the path
+                if (distance > longestDistance
+                        || distance == longestDistance && distance > 0
+                        && (lower < first || lower == first && upper < second)) {
+                    longestDistance = distance;
+                    first = lower;
+                    second = upper;
                 }
-                Vector2 v2 = new Vector2(coord2[0], coord2[1]);
-                if (Vector2.dist(v1, v2) > longestDistance) {
-                    positionTwoMostDistantPoint.removeAllElements();
-                    positionTwoMostDistantPoint.add(v1);
-                    positionTwoMostDistantPoint.add(v2);
-                    longestDistance = Vector2.dist(v1, v2);
+            }
+        }
+        if (first < 0) return null;
+        Vector<Vector2> positionTwoMostDistantPoint = new Vector<>(2);
+        positionTwoMostDistantPoint.add(new Vector2(xy[2 * first], xy[2 * first + 1]));
+        positionTwoMostDistantPoint.add(new Vector2(xy[2 * second], xy[2 * second + 1]));
+        return positionTwoMostDistantPoint;
+    }
+
+    /**
+     * Convex hull of the vertices of an area
+     *
+     * @param area target
+     * @return vertices of the hull, counterclockwise. Empty if area is empty
+     */
+    public static Vector<Vector2> getConvexHull(Area area) {
+        double[] xy = getVerticesFrom(area);
+        int[] hull = getConvexHull(xy);
+        Vector<Vector2> vertices = new Vector<>(hull.length);
+        for (int i : hull)
+            vertices.add(new Vector2(xy[2 * i], xy[2 * i + 1]));
+        return vertices;
+    }
+
+    /**
+     * @return coordinates of vertices of <tt>area</tt> in path order, as
+     * <tt>x0, y0, x1, y1...</tt>
+     */
+    private static double[] getVerticesFrom(Area area) {
+        double[] xy = new double[64];
+        int n = 0;
+        double[] coords = new double[6];
+        for (PathIterator pi = area.getPathIterator(null); !pi.isDone(); pi.next()) {
+            if (pi.currentSegment(coords) == PathIterator.SEG_CLOSE) continue;
+            if (n == xy.length) xy = Arrays.copyOf(xy, 2 * n);
+            xy[n++] = coords[0];
+            xy[n++] = coords[1];
+        }
+        return Arrays.copyOf(xy, n);
+    }
+
+    /**
+     * Monotone chain. Collinear points are left out and, among equal points,
+     * only the first one in path order is kept
+     *
+     * @param xy packed coordinates
+     * @return indices of vertices of the hull, counterclockwise
+     */
+    private static int[] getConvexHull(double[] xy) {
+        int n = xy.length / 2;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> {
+            int c = Double.compare(xy[2 * i], xy[2 * j]);
+            if (c == 0) c = Double.compare(xy[2 * i + 1], xy[2 * j + 1]);
+            return c != 0 ? c : Integer.compare(i, j);
+        });
+        int[] hull = new int[2 * n + 1];
+        int k = 0;
+        // Lower chain then upper chain
+        for (int pass = 0; pass < 2; pass++) {
+            int start = k;
+            for (int s = 0; s < n; s++) {
+                int i = order[pass == 0 ? s : n - 1 - s];
+                if (k > 0 && xy[2 * hull[k - 1]] == xy[2 * i] && xy[2 * hull[k - 1] + 1] == xy[2 * i + 1]) {
+                    hull[k - 1] = Math.min(hull[k - 1], i);
+                    continue;
                 }
+                while (k - start >= 2 && triangleArea2(xy, hull[k - 2], hull[k - 1], i) <= 0)
+                    k--;
+                hull[k++] = i;
             }
+            // Last point is the first one of the next chain
+            k--;
         }
-        return positionTwoMostDistantPoint.size() > 0 ? positionTwoMostDistantPoint : null;
+        return Arrays.copyOf(hull, Math.max(k, Math.min(n, 1)));
+    }
+
+    /**
+     * @return twice the signed area of triangle <tt>abc</tt>, positive if counterclockwise
+     */
+    private static double triangleArea2(double[] xy, int a, int b, int c) {
+        return (xy[2 * b] - xy[2 * a]) * (xy[2 * c + 1] - xy[2 * a + 1])
+                - (xy[2 * b + 1] - xy[2 * a + 1]) * (xy[2 * c] - xy[2 * a]);
     }
 
     /**
@@ -721,8 +776,6 @@ public class AreaTool {
     /**
      * This method allows us to determine the two closest points {@link Vector2}
      * to the two furthest points in the provided {@link Area} , which are located on the border of the {@link Area}
-     * <br></br>
-     * TODO: <b>Optimized the algorithm</b>
      * @param area The {@link Area} provided to find the two {@link Vector2 points}
      * @param radius the value of the detection interval of two {@link Vector2 point} from the two most distant {@link Vector2 point}. ex: [radius,radius*3]
      * @return {@link Vector list} of {@link Vector2 points}points founded
@@ -734,55 +787,65 @@ public class AreaTool {
         Vector2 point1 = positionTwoMostDistantPoint.firstElement();
         Vector2 point2 = positionTwoMostDistantPoint.lastElement();
         Rectangle2D rectangle2D = area.getBounds2D();
-        double startX = rectangle2D.getMinX();
-        double startY = rectangle2D.getMinY();
         double endX = rectangle2D.getMaxX();
         double endY = rectangle2D.getMaxY();
-        boolean foundFirstPoint = false;
-        boolean foundSecondPoint = false;
-        Vector2 pointResult1 = null;
-        Vector2 pointResult2 = null;
-        double distant1;
-        double distant2;
-
-
-        //Find a point near first point of two most distant points
-        while (radius<20 && !(foundFirstPoint && foundSecondPoint)) {
-            for (double x = startX; x < endX; x += 1) {
-                for (double y = startY; y < endY; y += 1) {
-                    if (area.contains(x, y)
-                            && !(x == CraftConfig.lengthFull / 2 || x == -CraftConfig.lengthFull / 2)
-                            && !(y == CraftConfig.bitWidth / 2 || y == -CraftConfig.bitWidth / 2)) {
-                        if (!foundFirstPoint) {
-                            distant1 = Math.sqrt(((x - point1.x) * (x - point1.x)) + ((y - point1.y) * (y - point1.y)));
-                            if (pointResult2 == null || (x != pointResult2.x && y != pointResult2.y)) {
-                                if (distant1 > radius && distant1 <= radius * 3) {
-                                    if (checkPointInsideAreaWithRadius(x, y, area, CraftConfig.suckerDiameter/4)) {
-                                        pointResult1 = new Vector2(x, y);
-                                        foundFirstPoint = true;
-                                    }
-                                }
-                            }
-                        }
-                        if (!foundSecondPoint) {
-                            distant2 = Math.sqrt(((x - point2.x) * (x - point2.x)) + ((y - point2.y) * (y - point2.y)));
-                            if (pointResult1 == null || (x != pointResult1.x && y != pointResult1.y)) {
-                                if (distant2 > radius && distant2 <= radius * 3) {
-                                    if (checkPointInsideAreaWithRadius(x, y, area, CraftConfig.suckerDiameter/4)) {
-                                        pointResult2 = new Vector2(x, y);
-                                        foundSecondPoint = true;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    if (foundFirstPoint && foundSecondPoint) break;
+
+        // Whether a sample holds the sucker cup does not depend on the
+        // radius, so each one is tested once
+        ClearanceField field = new ClearanceField(area, 1);
+        int rows = field.getRowCount();
+        // Samples which may be picked, in the order they are scanned
+        int[] nodes = new int[field.getColumnCount() * rows];
+        int count = 0;
+        for (int i = 0; i < field.getColumnCount() && field.getX(i) < endX; i++) {
+            for (int j = 0; j < rows && field.getY(j) < endY; j++) {
+                double x = field.getX(i);
+                double y = field.getY(j);
+                if (!(x == CraftConfig.lengthFull / 2 || x == -CraftConfig.lengthFull / 2)
+                        && !(y == CraftConfig.bitWidth / 2 || y == -CraftConfig.bitWidth / 2))
+                    nodes[count++] = i * rows + j;
+            }
+        }
+        double[] distant1 = new double[count];
+        double[] distant2 = new double[count];
+        for (int k = 0; k < count; k++) {
+            double x = field.getX(nodes[k] / rows);
+            double y = field.getY(nodes[k] % rows);
+            distant1[k] = Math.sqrt(((x - point1.x) * (x - point1.x)) + ((y - point1.y) * (y - point1.y)));
+            distant2[k] = Math.sqrt(((x - point2.x) * (x - point2.x)) + ((y - point2.y) * (y - point2.y)));
+        }
+        // Sorted once, so that each radius only walks the samples in its ring
+        Integer[] byDistant1 = sortedBy(distant1);
+        Integer[] byDistant2 = sortedBy(distant2);
+        int from1 = 0;
+        int from2 = 0;
+        int found1 = -1;
+        int found2 = -1;
+
+        // Among the samples of the ring, keep the first one scanned. When
+        // both points are still missing, the one found first by the scan
+        // rules out its samples for the other
+        while (radius<20 && (found1 < 0 || found2 < 0)) {
+            while (from1 < count && distant1[byDistant1[from1]] <= radius) from1++;
+            while (from2 < count && distant2[byDistant2[from2]] <= radius) from2++;
+            if (found1 < 0 && found2 < 0) {
+                int first = firstScannedInRing(field, nodes, byDistant1, distant1, from1, radius, -1);
+                int second = firstScannedInRing(field, nodes, byDistant2, distant2, from2, radius, -1);
+                if (first >= 0 && (second < 0 || first <= second)) {
+                    found1 = first;
+                    found2 = firstScannedInRing(field, nodes, byDistant2, distant2, from2, radius, nodes[first]);
+                } else if (second >= 0) {
+                    found2 = second;
+                    found1 = firstScannedInRing(field, nodes, byDistant1, distant1, from1, radius, nodes[second]);
                 }
-                if (foundFirstPoint && foundSecondPoint) break;
+            } else if (found1 < 0) {
+                found1 = firstScannedInRing(field, nodes, byDistant1, distant1, from1, radius, nodes[found2]);
+            } else {
+                found2 = firstScannedInRing(field, nodes, byDistant2, distant2, from2, radius, nodes[found1]);
             }
-            if (pointResult1 != null && pointResult2 != null) {
-                twoDistantPoints.add(pointResult1);
-                twoDistantPoints.add(pointResult2);
+            if (found1 >= 0 && found2 >= 0) {
+                twoDistantPoints.add(new Vector2(field.getX(nodes[found1] / rows), field.getY(nodes[found1] % rows)));
+                twoDistantPoints.add(new Vector2(field.getX(nodes[found2] / rows), field.getY(nodes[found2] % rows)));
                 return twoDistantPoints;
             }
             radius++;
@@ -790,6 +853,42 @@ public class AreaTool {
         return twoDistantPoints;
     }
 
+    /**
+     * @return indices of <tt>values</tt>, by increasing value
+     */
+    private static Integer[] sortedBy(double[] values) {
+        Integer[] order = new Integer[values.length];
+        for (int k = 0; k < order.length; k++)
+            order[k] = k;
+        Arrays.sort(order, Comparator.comparingDouble(k -> values[k]));
+        return order;
+    }
+
+    /**
+     * @param byDistant samples sorted by distance
+     * @param from      first position in <tt>byDistant</tt> farther than <tt>radius</tt>
+     * @param excluded  node whose row and column are ruled out. Negative if none
+     * @return first scanned sample farther than <tt>radius</tt>, within
+     * <tt>radius * 3</tt>, where the sucker cup fits. Negative if none
+     */
+    private static int firstScannedInRing(ClearanceField field, int[] nodes, Integer[] byDistant,
+                                          double[] distant, int from, double radius, int excluded) {
+        int rows = field.getRowCount();
+        int found = -1;
+        for (int p = from; p < byDistant.length && distant[byDistant[p]] <= radius * 3; p++) {
+            int k = byDistant[p];
+            if (found >= 0 && k > found) continue;
+            int i = nodes[k] / rows;
+            int j = nodes[k] % rows;
+            if (excluded >= 0 && (field.getX(i) == field.getX(excluded / rows)
+                    || field.getY(j) == field.getY(excluded % rows)))
+                continue;
+            if (field.fits(i, j, CraftConfig.suckerDiameter / 4))
+                found = k;
+        }
+        return found;
+    }
+
     public static Vector<double[]> getListPointBorderOfArea(Area area) {
         Vector<double[]> listPoints = new Vector<>();
         for (PathIterator p2 = area.getPathIterator(null); !p2.isDone(); p2.next()) {
@@ -817,22 +916,11 @@ public class AreaTool {
      * @return
      */
     public static boolean checkPointInsideAreaWithRadius(double x, double y, Area area,double radius){
-        Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
-        Vector2 point = new Vector2(x,y);
         //check if the area contain point and the distant of the point inside with the segment is always smaller the radius
-        if(area.contains(point.x,point.y)){
-            for(Vector<Segment2D> polygon :segments){
-                for(Segment2D segment2D :polygon){
-                    if(radius>0 && segment2D.distFromPoint(point)<radius){
-                        return false;
-                    }
-                }
-            }
-        }else{
+        if(!area.contains(x,y)){
             return false;
         }
-
-        return true;
+        return radius <= 0 || !(Outline.from(area).distanceTo(x, y) < radius);
     }
 
     public static Vector2 detectPointNearestPointProvidedInAreaWithRadius(Area area, Vector2 pointProvided,double radius){
@@ -862,7 +950,63 @@ public class AreaTool {
         return pointResult;
     }
 
+    /**
+     * Intersection without touching the operands. Uses {@link PolygonClipper}
+     * if {@link CraftConfig#polygonClipping} is on
+     *
+     * @param a first operand
+     * @param b second operand
+     * @return a new {@link Area}
+     */
+    public static Area intersect(Area a, Area b) {
+        if (CraftConfig.polygonClipping)
+            return PolygonClipper.intersection(Contours.from(a), Contours.from(b)).toArea();
+        Area result = (Area) a.clone();
+        result.intersect(b);
+        return result;
+    }
 
+    /**
+     * Intersection with an operand already converted, for repeated clipping
+     * against the same surface
+     *
+     * @param a first operand
+     * @param b second operand
+     * @return a new {@link Area}
+     */
+    public static Area intersect(Area a, Contours b) {
+        return PolygonClipper.intersection(Contours.from(a), b).toArea();
+    }
 
+    /**
+     * Difference without touching the operands. Uses {@link PolygonClipper}
+     * if {@link CraftConfig#polygonClipping} is on
+     *
+     * @param a surface to cut
+     * @param b surface to remove
+     * @return a new {@link Area}
+     */
+    public static Area subtract(Area a, Area b) {
+        if (CraftConfig.polygonClipping)
+            return PolygonClipper.difference(Contours.from(a), Contours.from(b)).toArea();
+        Area result = (Area) a.clone();
+        result.subtract(b);
+        return result;
+    }
 
+    /**
+     * Union without touching the operands. Uses {@link PolygonClipper}
+     * if {@link CraftConfig#polygonClipping} is on
+     *
+     * @param a first operand
+     * @param b second operand
+     * @return a new {@link Area}
+     */
+    public static Area union(Area a, Area b) {
+        if (CraftConfig.polygonClipping)
+            return PolygonClipper.union(Contours.from(a), Contours.from(b)).toArea();
+        Area result = (Area) a.clone();
+        result.add(b);
+        return result;
+    }
 }
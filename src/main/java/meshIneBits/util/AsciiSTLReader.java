@@ -0,0 +1,425 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel reader of ascii STL files.
+ * <p>
+ * The file is cut into byte ranges starting on a <tt>facet</tt> line, which
+ * are mapped into memory and scanned concurrently on the common
+ * {@link ForkJoinPool}. Each range yields the coordinates of its
+ * <tt>vertex</tt> lines; ranges are concatenated in file order and every 3
+ * vertices form a triangle, exactly as the former line by line reader did.
+ * Numbers are decoded directly from the bytes when the conversion is
+ * guaranteed exact, otherwise they fall back to
+ * {@link Double#parseDouble(String)}.
+ */
+public class AsciiSTLReader {
+    private static final long MIN_CHUNK_SIZE = 1 << 20;
+    private static final long MAX_CHUNK_SIZE = 1 << 28;
+    private static final long STREAM_CHUNK_SIZE = 1 << 24;
+    private static final int SCAN_WINDOW_SIZE = 1 << 16;
+    private static final byte[] FACET = "facet".getBytes();
+    private static final byte[] VERTEX = "vertex".getBytes();
+    /**
+     * Largest mantissa exactly representable by a double
+     */
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+    /**
+     * Powers of ten exactly representable by a double
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20,
+            1e21, 1e22
+    };
+
+    /**
+     * Read all triangles of an ascii STL file.
+     *
+     * @param filename path of input file
+     * @return read triangles. Empty if no vertex has been found
+     * @throws IOException when bad input
+     */
+    public static TriangleStore read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE,
+                    channel.size() / (ForkJoinPool.getCommonPoolParallelism() * 4L)));
+            Chunk[] chunks = cut(channel, chunkSize);
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(chunks);
+                }
+            });
+
+            long vertexCount = 0;
+            for (Chunk chunk : chunks) {
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+                vertexCount += chunk.size / 3;
+            }
+            int triangleCount = (int) (vertexCount / 3);
+            double[] coordinates = new double[triangleCount * TriangleStore.STRIDE];
+            int offset = 0;
+            for (Chunk chunk : chunks) {
+                int length = Math.min(chunk.size, coordinates.length - offset);
+                System.arraycopy(chunk.coordinates, 0, coordinates, offset, length);
+                offset += length;
+            }
+            return new TriangleStore(coordinates, triangleCount);
+        }
+    }
+
+    /**
+     * Read all triangles of an ascii STL file without keeping them. As many
+     * chunks of {@link #STREAM_CHUNK_SIZE} bytes as threads of the common
+     * pool are parsed at once, then handed over in file order.
+     *
+     * @param filename path of input file
+     * @param receiver called for each group of triangles, in file order
+     * @return number of read triangles. 0 if no vertex has been found
+     * @throws IOException when bad input, or thrown by receiver
+     */
+    public static long stream(String filename, TriangleStore.Receiver receiver) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            Chunk[] chunks = cut(channel, STREAM_CHUNK_SIZE);
+            int batchSize = ForkJoinPool.getCommonPoolParallelism();
+            // Vertices of a triangle spread over two chunks
+            double[] carry = new double[0];
+            long triangleCount = 0;
+            for (int from = 0; from < chunks.length; from += batchSize) {
+                Chunk[] batch = Arrays.copyOfRange(chunks, from, Math.min(from + batchSize, chunks.length));
+                ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        invokeAll(batch);
+                    }
+                });
+                for (Chunk chunk : batch) {
+                    if (chunk.error != null) {
+                        throw chunk.error;
+                    }
+                    int available = carry.length + chunk.size;
+                    int triangles = available / TriangleStore.STRIDE;
+                    double[] coordinates = new double[available];
+                    System.arraycopy(carry, 0, coordinates, 0, carry.length);
+                    System.arraycopy(chunk.coordinates, 0, coordinates, carry.length, chunk.size);
+                    chunk.coordinates = null;
+                    carry = Arrays.copyOfRange(coordinates, triangles * TriangleStore.STRIDE, available);
+                    if (triangles > 0) {
+                        receiver.receive(new TriangleStore(coordinates, triangles));
+                        triangleCount += triangles;
+                    }
+                }
+            }
+            return triangleCount;
+        }
+    }
+
+    /**
+     * Cut the file into chunks starting on a <tt>facet</tt> line.
+     *
+     * @param chunkSize approximate size of chunk in bytes
+     * @return chunks in file order, not parsed yet
+     */
+    private static Chunk[] cut(FileChannel channel, long chunkSize) throws IOException {
+        long fileSize = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(0L);
+        long bound = 0;
+        while (bound < fileSize) {
+            bound = bound + chunkSize < fileSize ? findFacetLine(channel, bound + chunkSize, fileSize) : fileSize;
+            bounds.add(bound);
+        }
+
+        Chunk[] chunks = new Chunk[bounds.size() - 1];
+        AtomicInteger done = new AtomicInteger();
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new Chunk(channel, bounds.get(i), bounds.get(i + 1), done, chunks.length);
+        }
+        return chunks;
+    }
+
+    /**
+     * Find the start of the first line beginning with <tt>facet</tt> at or
+     * after a given position. If none is found in the first scanned window,
+     * the first line start is used.
+     *
+     * @param channel  opened file
+     * @param from     where to start searching. Strictly positive
+     * @param fileSize size of file
+     * @return position of line start, or <tt>fileSize</tt>
+     * @throws IOException when the file cannot be read
+     */
+    private static long findFacetLine(FileChannel channel, long from, long fileSize) throws IOException {
+        long firstLineStart = -1;
+        // Windows overlap by one byte to see the line end before each byte
+        for (long windowStart = from - 1; windowStart < fileSize - 1; windowStart += SCAN_WINDOW_SIZE) {
+            long windowEnd = Math.min(fileSize, windowStart + SCAN_WINDOW_SIZE + 1);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowEnd - windowStart);
+            int limit = window.limit();
+            for (int i = 1; i < limit; i++) {
+                if (isLineEnd(window.get(i - 1)) && !isLineEnd(window.get(i))) {
+                    int keyword = i;
+                    while (keyword < limit && isBlank(window.get(keyword)) && !isLineEnd(window.get(keyword))) {
+                        keyword++;
+                    }
+                    if (startsWith(window, keyword, limit, FACET)) {
+                        return windowStart + i;
+                    }
+                    if (firstLineStart < 0) {
+                        firstLineStart = windowStart + i;
+                    }
+                }
+            }
+            if (firstLineStart >= 0) {
+                return firstLineStart;
+            }
+        }
+        return fileSize;
+    }
+
+    private static boolean startsWith(ByteBuffer buffer, int from, int to, byte[] keyword) {
+        if (to - from < keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length; i++) {
+            if (buffer.get(from + i) != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLineEnd(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    /**
+     * @return <tt>true</tt> if the byte would be removed by
+     * {@link String#trim()}
+     */
+    private static boolean isBlank(byte b) {
+        return b >= 0 && b <= ' ';
+    }
+
+    /**
+     * A byte range of the file, starting at a line start
+     */
+    private static class Chunk extends RecursiveAction {
+        private static final long serialVersionUID = 4294694777659797587L;
+
+        private final FileChannel channel;
+        private final long start;
+        private final long end;
+        private final AtomicInteger done;
+        private final int total;
+        private double[] coordinates = new double[3 * 1024];
+        private int size;
+        private IOException error;
+
+        private Chunk(FileChannel channel, long start, long end, AtomicInteger done, int total) {
+            this.channel = channel;
+            this.start = start;
+            this.end = end;
+            this.done = done;
+            this.total = total;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+                int length = (int) (end - start);
+                int lineStart = 0;
+                while (lineStart < length) {
+                    int lineEnd = lineStart;
+                    while (lineEnd < length && !isLineEnd(buffer.get(lineEnd))) {
+                        lineEnd++;
+                    }
+                    parseLine(buffer, lineStart, lineEnd);
+                    lineStart = lineEnd + 1;
+                }
+            } catch (IOException e) {
+                error = e;
+            } catch (RuntimeException e) {
+                error = new IOException(e.getMessage(), e);
+            }
+            Logger.setProgress(done.incrementAndGet(), total);
+        }
+
+        /**
+         * Same as trimming the line, testing it starts with <tt>vertex</tt>
+         * and reading the 2nd, 3rd and 4th parts after splitting on spaces.
+         */
+        private void parseLine(ByteBuffer buffer, int from, int to) throws IOException {
+            while (from < to && isBlank(buffer.get(from))) {
+                from++;
+            }
+            while (to > from && isBlank(buffer.get(to - 1))) {
+                to--;
+            }
+            if (!startsWith(buffer, from, to, VERTEX)) {
+                return;
+            }
+            if (size + 3 > coordinates.length) {
+                double[] grown = new double[coordinates.length * 2];
+                System.arraycopy(coordinates, 0, grown, 0, size);
+                coordinates = grown;
+            }
+            // Skip first part
+            int position = from + VERTEX.length;
+            while (position < to && buffer.get(position) != ' ') {
+                position++;
+            }
+            for (int part = 0; part < 3; part++) {
+                while (position < to && buffer.get(position) == ' ') {
+                    position++;
+                }
+                if (position >= to) {
+                    throw new IOException("Missing coordinate in vertex line at byte " + (start + from));
+                }
+                int tokenStart = position;
+                while (position < to && buffer.get(position) != ' ') {
+                    position++;
+                }
+                coordinates[size + part] = parseDouble(buffer, tokenStart, position);
+            }
+            size += 3;
+        }
+    }
+
+    /**
+     * Decode a number written in <tt>[+-]digits[.digits][(e|E)[+-]digits]</tt>
+     * with at most 53 bits of significant digits and a decimal exponent
+     * within [-22, 22], for which one multiplication or division by an exact
+     * power of ten is correctly rounded. Any other token is handed to
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param buffer source
+     * @param from   first byte of token
+     * @param to     end of token (exclusive)
+     * @return same as {@link Double#parseDouble(String)}
+     */
+    static double parseDouble(ByteBuffer buffer, int from, int to) {
+        int position = from;
+        boolean negative = false;
+        byte b = buffer.get(position);
+        if (b == '-' || b == '+') {
+            negative = b == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean exact = true;
+        while (position < to && (b = buffer.get(position)) >= '0' && b <= '9') {
+            if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + (b - '0');
+            } else {
+                exact = false;
+            }
+            digits++;
+            position++;
+        }
+        if (position < to && buffer.get(position) == '.') {
+            position++;
+            while (position < to && (b = buffer.get(position)) >= '0' && b <= '9') {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    exponent--;
+                } else {
+                    exact = false;
+                }
+                digits++;
+                position++;
+            }
+        }
+        if (digits > 0 && position < to && ((b = buffer.get(position)) == 'e' || b == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < to && ((b = buffer.get(position)) == '-' || b == '+')) {
+                negativeExponent = b == '-';
+                position++;
+            }
+            int exponentDigits = 0;
+            int explicitExponent = 0;
+            while (position < to && (b = buffer.get(position)) >= '0' && b <= '9') {
+                if (explicitExponent < 1000) {
+                    explicitExponent = explicitExponent * 10 + (b - '0');
+                }
+                exponentDigits++;
+                position++;
+            }
+            if (exponentDigits == 0) {
+                exact = false;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+        if (exact && digits > 0 && position == to) {
+            double value;
+            if (mantissa == 0) {
+                value = 0;
+            } else if (exponent >= 0 && exponent < EXACT_POWERS_OF_TEN.length) {
+                value = (double) mantissa * EXACT_POWERS_OF_TEN[exponent];
+            } else if (exponent < 0 && -exponent < EXACT_POWERS_OF_TEN.length) {
+                value = (double) mantissa / EXACT_POWERS_OF_TEN[-exponent];
+            } else {
+                return fallback(buffer, from, to);
+            }
+            return negative ? -value : value;
+        }
+        return fallback(buffer, from, to);
+    }
+
+    private static double fallback(ByteBuffer buffer, int from, int to) {
+        byte[] token = new byte[to - from];
+        for (int i = 0; i < token.length; i++) {
+            token[i] = buffer.get(from + i);
+        }
+        return Double.parseDouble(new String(token, Charset.defaultCharset()));
+    }
+}
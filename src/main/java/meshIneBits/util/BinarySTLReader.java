@@ -0,0 +1,147 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of binary STL files.
+ * <p>
+ * The file is mapped into memory by windows of
+ * {@link #FACETS_PER_WINDOW} facets and decoded in place, so files bigger
+ * than 2GB are supported.
+ */
+public class BinarySTLReader {
+    /**
+     * Size of binary STL header, including the triangle count
+     */
+    private static final int HEADER_SIZE = 84;
+    /**
+     * Size of one facet record in binary STL
+     */
+    private static final int FACET_SIZE = 50;
+    /**
+     * Number of facets mapped at once. Also the granularity of progress
+     * report.
+     */
+    private static final int FACETS_PER_WINDOW = 1 << 18;
+
+    /**
+     * Read all triangles of a binary STL file, up to what a
+     * {@link TriangleStore} can hold.
+     *
+     * @param filename path of input file
+     * @return read triangles
+     * @throws IOException when bad input
+     */
+    public static TriangleStore read(String filename) throws IOException {
+        Logger.message("ReadBinarySTL starts");
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long readableCount = countReadableFacets(channel, filename);
+            int triangleCount = (int) Math.min(readableCount, (Integer.MAX_VALUE - 8) / TriangleStore.STRIDE);
+            if (triangleCount != readableCount) {
+                Logger.warning("Binary STL has " + readableCount + " triangles but only "
+                        + triangleCount + " can be loaded");
+            }
+            TriangleStore resultTriangles = new TriangleStore(triangleCount);
+            readWindows(channel, triangleCount, resultTriangles::addAll);
+            return resultTriangles;
+        }
+    }
+
+    /**
+     * Read all triangles of a binary STL file, one window at a time, without
+     * keeping them.
+     *
+     * @param filename path of input file
+     * @param receiver called for each window, in file order
+     * @return number of read triangles
+     * @throws IOException when bad input, or thrown by receiver
+     */
+    public static long stream(String filename, TriangleStore.Receiver receiver) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long triangleCount = countReadableFacets(channel, filename);
+            readWindows(channel, triangleCount, receiver);
+            return triangleCount;
+        }
+    }
+
+    /**
+     * @return declared number of facets, limited to the size of file
+     */
+    private static long countReadableFacets(FileChannel channel, String filename) throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_SIZE) {
+            throw new EOFException("Binary STL too short: " + filename);
+        }
+        ByteBuffer countBuffer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        while (countBuffer.hasRemaining()) {
+            channel.read(countBuffer, HEADER_SIZE - 4 + countBuffer.position());
+        }
+        long declaredCount = countBuffer.getInt(0) & 0xFFFFFFFFL;
+        long availableCount = (fileSize - HEADER_SIZE) / FACET_SIZE;
+        if (availableCount < declaredCount) {
+            Logger.warning("Binary STL declares " + declaredCount + " triangles but only "
+                    + availableCount + " can be read");
+        }
+        return Math.min(declaredCount, availableCount);
+    }
+
+    private static void readWindows(FileChannel channel, long triangleCount, TriangleStore.Receiver receiver)
+            throws IOException {
+        TriangleStore part = new TriangleStore((int) Math.min(FACETS_PER_WINDOW, triangleCount));
+        long read = 0;
+        while (read < triangleCount) {
+            int count = (int) Math.min(FACETS_PER_WINDOW, triangleCount - read);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + read * FACET_SIZE, (long) count * FACET_SIZE);
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            part.clear();
+            for (int i = 0; i < count; i++) {
+                // Skip the normal (3 floats)
+                int o = i * FACET_SIZE + 12;
+                part.add(
+                        window.getFloat(o), window.getFloat(o + 4), window.getFloat(o + 8),
+                        window.getFloat(o + 12), window.getFloat(o + 16), window.getFloat(o + 20),
+                        window.getFloat(o + 24), window.getFloat(o + 28), window.getFloat(o + 32));
+            }
+            receiver.receive(part);
+            read += count;
+            Logger.setProgress((int) (read * 100 / triangleCount), 100);
+        }
+    }
+}
@@ -87,8 +87,8 @@ class BrickRobotXmlTool {
     private void writeLayer(Layer layer) {
         double zPlateau = layer.getLayerNumber() * CraftConfig.bitThickness - (CraftConfig.bitThickness / 2);
         writer.println("	<PLATEAU z=\"" + zPlateau + "\"/>");
-        for (int i = 0; i < layer.getBits3dKeys().size(); i++) {
-            writeBit(layer.getBit3D(layer.getBits3dKeys().get(i)), zPlateau);
+        for (Vector2 key : layer.getBits3dKeys()) {
+            writeBit(layer.getBit3D(key), zPlateau);
         }
     }
 
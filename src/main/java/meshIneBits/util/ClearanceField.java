@@ -0,0 +1,127 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Distance from the nodes of a lattice covering an area to the boundary of
+ * that area. Each node is evaluated at most once, the first time it is looked
+ * up, so that searches for grip points with several radii do not test the
+ * area again.
+ * <br/>
+ * Distances are those of {@link Outline#distanceTo(double, double)}, so a
+ * lookup decides exactly like
+ * {@link AreaTool#checkPointInsideAreaWithRadius(double, double, Area, double)}.
+ */
+public final class ClearanceField {
+    private static final double UNKNOWN = -1;
+    private final Area area;
+    private final Outline outline;
+    private final double[] xs;
+    private final double[] ys;
+    /**
+     * Clearance of node <tt>(i, j)</tt> at <tt>i * ys.length + j</tt>.
+     * <tt>NaN</tt> outside the area, {@link #UNKNOWN} if not evaluated yet
+     */
+    private final double[] clearance;
+
+    /**
+     * @param area target
+     * @param step distance between two nodes, in both directions. The first
+     *             node is the lower left corner of the bounds of <tt>area</tt>
+     */
+    public ClearanceField(Area area, double step) {
+        this.area = area;
+        Rectangle2D bounds = area.getBounds2D();
+        xs = lattice(bounds.getMinX(), bounds.getMaxX(), step);
+        ys = lattice(bounds.getMinY(), bounds.getMaxY(), step);
+        outline = Outline.from(area);
+        clearance = new double[xs.length * ys.length];
+        Arrays.fill(clearance, UNKNOWN);
+    }
+    /**
+     * Coordinates from <tt>start</tt> to <tt>end</tt> (inclusive), accumulated
+     * like a <tt>for</tt> loop so that the same values get sampled
+     */
+    static double[] lattice(double start, double end, double step) {
+        int n = 0;
+        for (double v = start; v <= end; v += step)
+            n++;
+        double[] values = new double[n];
+        n = 0;
+        for (double v = start; v <= end; v += step)
+            values[n++] = v;
+        return values;
+    }
+
+    public int getColumnCount() {
+        return xs.length;
+    }
+
+    public int getRowCount() {
+        return ys.length;
+    }
+
+    public double getX(int i) {
+        return xs[i];
+    }
+
+    public double getY(int j) {
+        return ys[j];
+    }
+
+    /**
+     * @return <tt>true</tt> if node <tt>(i, j)</tt> is inside the area and at
+     * least <tt>radius</tt> away from its boundary
+     */
+    public boolean fits(int i, int j, double radius) {
+        double c = getClearance(i, j);
+        return !Double.isNaN(c) && (radius <= 0 || c >= radius);
+    }
+
+    /**
+     * @return distance from node <tt>(i, j)</tt> to the boundary.
+     * <tt>NaN</tt> if outside the area
+     */
+    public double getClearance(int i, int j) {
+        int k = i * ys.length + j;
+        if (clearance[k] == UNKNOWN) {
+            if (!area.contains(xs[i], ys[j])) {
+                clearance[k] = Double.NaN;
+            } else {
+                clearance[k] = outline.distanceTo(xs[i], ys[j]);
+            }
+        }
+        return clearance[k];
+    }
+}
@@ -0,0 +1,491 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import meshIneBits.config.CraftConfig;
+
+import java.awt.*;
+import java.awt.geom.Area;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Polygon-only surface stored as packed rings, used by {@link PolygonClipper}.
+ * All coordinates live in one <tt>double[]</tt> as <tt>x0, y0, x1, y1, ...</tt>
+ * and ring <tt>r</tt> spans the vertices from <tt>ringStarts[r]</tt> (inclusive)
+ * to <tt>ringStarts[r + 1]</tt> (exclusive). Rings are implicitly closed.
+ * <br/>
+ * Rings are oriented so that the interior is always on the left: outer
+ * boundaries are counter-clockwise and holes are clockwise.
+ * <br/>
+ * With {@link CraftConfig#integerGeometry}, coordinates are snapped to a grid
+ * of 10<sup>-{@link CraftConfig#errorAccepted}</sup> mm and stored as whole
+ * numbers of grid units, so that {@link PolygonClipper} can decide on them
+ * exactly with <tt>long</tt> arithmetic.
+ */
+public final class Contours {
+    private static final double EPS = 1e-9;
+    private static final double PROBE_OFFSET = 1e-7;
+    private static final int FLATTENING_LIMIT = 16;
+    /**
+     * Bound of grid coordinates, so that products of doubled differences
+     * never overflow a <tt>long</tt>
+     */
+    static final long GRID_LIMIT = 1L << 29;
+
+    private static final Contours EMPTY = new Contours(new double[0], new int[]{0}, 0);
+
+    /**
+     * Packed coordinates of all rings
+     */
+    final double[] xy;
+    /**
+     * Vertex index of the first point of each ring, plus one sentinel
+     */
+    final int[] ringStarts;
+    /**
+     * Size in mm of one grid unit. 0 if coordinates are plain millimeters
+     */
+    final double unit;
+    /**
+     * <tt>minX, minY, maxX, maxY</tt> of each ring
+     */
+    private final double[] ringBounds;
+    private double minX = Double.POSITIVE_INFINITY;
+    private double minY = Double.POSITIVE_INFINITY;
+    private double maxX = Double.NEGATIVE_INFINITY;
+    private double maxY = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Trust the orientation of the given rings
+     *
+     * @param xy         packed coordinates
+     * @param ringStarts vertex index of each ring, plus one sentinel
+     * @param unit       size of a grid unit. 0 if not on grid
+     */
+    Contours(double[] xy, int[] ringStarts, double unit) {
+        this.xy = xy;
+        this.ringStarts = ringStarts;
+        this.unit = unit;
+        int n = ringCount();
+        ringBounds = new double[4 * n];
+        for (int r = 0; r < n; r++) {
+            double rMinX = Double.POSITIVE_INFINITY, rMinY = Double.POSITIVE_INFINITY;
+            double rMaxX = Double.NEGATIVE_INFINITY, rMaxY = Double.NEGATIVE_INFINITY;
+            for (int i = ringStarts[r]; i < ringStarts[r + 1]; i++) {
+                double x = xy[2 * i], y = xy[2 * i + 1];
+                if (x < rMinX) rMinX = x;
+                if (x > rMaxX) rMaxX = x;
+                if (y < rMinY) rMinY = y;
+                if (y > rMaxY) rMaxY = y;
+            }
+            ringBounds[4 * r] = rMinX;
+            ringBounds[4 * r + 1] = rMinY;
+            ringBounds[4 * r + 2] = rMaxX;
+            ringBounds[4 * r + 3] = rMaxY;
+            minX = Math.min(minX, rMinX);
+            minY = Math.min(minY, rMinY);
+            maxX = Math.max(maxX, rMaxX);
+            maxY = Math.max(maxY, rMaxY);
+        }
+    }
+
+    /**
+     * @return no ring at all
+     */
+    public static Contours empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Flatten a shape into rings. Curves, which never appear in slices, are
+     * approximated within 10<sup>-{@link CraftConfig#errorAccepted}</sup> mm.
+     * The orientation of rings is normalized by their nesting depth.
+     *
+     * @param shape usually an {@link Area}. Its rings should not cross each other
+     * @return packed rings of <tt>shape</tt>, on grid if
+     * {@link CraftConfig#integerGeometry} is on
+     */
+    public static Contours from(Shape shape) {
+        return from(shape, CraftConfig.integerGeometry ? Math.pow(10, -CraftConfig.errorAccepted) : 0);
+    }
+
+    /**
+     * @param shape usually an {@link Area}. Its rings should not cross each other
+     * @param unit  size of grid unit in mm. 0 to keep coordinates as they are
+     * @return packed rings of <tt>shape</tt>
+     * @see #from(Shape)
+     */
+    static Contours from(Shape shape, double unit) {
+        if (unit > 0) {
+            Rectangle2D bounds = shape.getBounds2D();
+            double extent = Math.max(
+                    Math.max(Math.abs(bounds.getMinX()), Math.abs(bounds.getMaxX())),
+                    Math.max(Math.abs(bounds.getMinY()), Math.abs(bounds.getMaxY())));
+            if (extent / unit >= GRID_LIMIT) {
+                Logger.warning("Shape too large for integer geometry, plain coordinates used");
+                unit = 0;
+            }
+        }
+        double[] xy = new double[64];
+        int[] ringStarts = new int[8];
+        int vertexCount = 0;
+        int ringCount = 0;
+        int ringStart = 0;
+        double[] coords = new double[6];
+        PathIterator it = new FlatteningPathIterator(shape.getPathIterator(null),
+                Math.pow(10, -CraftConfig.errorAccepted), FLATTENING_LIMIT);
+        for (; !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_CLOSE) {
+                // Close the current ring
+                vertexCount = closeRing(xy, ringStart, vertexCount);
+                if (vertexCount > ringStart) {
+                    if (ringCount + 2 > ringStarts.length)
+                        ringStarts = Arrays.copyOf(ringStarts, 2 * ringStarts.length);
+                    ringStarts[ringCount++] = ringStart;
+                }
+                ringStart = vertexCount;
+                if (type == PathIterator.SEG_CLOSE)
+                    continue;
+            }
+            if (unit > 0) {
+                coords[0] = Math.rint(coords[0] / unit);
+                coords[1] = Math.rint(coords[1] / unit);
+            }
+            // Merge vertices too close to each other
+            if (vertexCount > ringStart
+                    && Math.abs(xy[2 * vertexCount - 2] - coords[0]) <= EPS
+                    && Math.abs(xy[2 * vertexCount - 1] - coords[1]) <= EPS)
+                continue;
+            if (2 * vertexCount + 2 > xy.length)
+                xy = Arrays.copyOf(xy, 2 * xy.length);
+            xy[2 * vertexCount] = coords[0];
+            xy[2 * vertexCount + 1] = coords[1];
+            vertexCount++;
+        }
+        vertexCount = closeRing(xy, ringStart, vertexCount);
+        if (vertexCount > ringStart) {
+            if (ringCount + 2 > ringStarts.length)
+                ringStarts = Arrays.copyOf(ringStarts, 2 * ringStarts.length);
+            ringStarts[ringCount++] = ringStart;
+        }
+        if (ringCount == 0)
+            return EMPTY;
+        ringStarts[ringCount] = vertexCount;
+        Contours contours = new Contours(
+                Arrays.copyOf(xy, 2 * vertexCount),
+                Arrays.copyOf(ringStarts, ringCount + 1),
+                unit);
+        contours.normalizeOrientation();
+        return contours;
+    }
+
+    /**
+     * Drop the closing vertex and discard degenerated rings
+     *
+     * @return the new vertex count
+     */
+    private static int closeRing(double[] xy, int ringStart, int vertexCount) {
+        if (vertexCount - ringStart > 1
+                && Math.abs(xy[2 * vertexCount - 2] - xy[2 * ringStart]) <= EPS
+                && Math.abs(xy[2 * vertexCount - 1] - xy[2 * ringStart + 1]) <= EPS)
+            vertexCount--;
+        if (vertexCount - ringStart < 3 || signedArea(xy, ringStart, vertexCount) == 0)
+            return ringStart;
+        return vertexCount;
+    }
+
+    private static double signedArea(double[] xy, int from, int to) {
+        double sum = 0;
+        for (int i = from, j = to - 1; i < to; j = i++)
+            sum += xy[2 * j] * xy[2 * i + 1] - xy[2 * i] * xy[2 * j + 1];
+        return sum / 2;
+    }
+
+    /**
+     * Reverse rings whose orientation does not match the parity of their
+     * nesting depth
+     */
+    private void normalizeOrientation() {
+        int n = ringCount();
+        for (int r = 0; r < n; r++) {
+            double a = signedArea(xy, ringStarts[r], ringStarts[r + 1]);
+            boolean hole = false;
+            for (int o = 0; o < n; o++) {
+                if (o != r && ringEncloses(o, r, a > 0))
+                    hole = !hole;
+            }
+            if ((a > 0) == hole)
+                reverseRing(r);
+        }
+    }
+
+    /**
+     * @param counterClockwise orientation of ring <tt>inner</tt>
+     * @return <tt>true</tt> if ring <tt>inner</tt> lies inside ring <tt>outer</tt>
+     */
+    private boolean ringEncloses(int outer, int inner, boolean counterClockwise) {
+        if (ringBounds[4 * inner] < ringBounds[4 * outer] - EPS
+                || ringBounds[4 * inner + 1] < ringBounds[4 * outer + 1] - EPS
+                || ringBounds[4 * inner + 2] > ringBounds[4 * outer + 2] + EPS
+                || ringBounds[4 * inner + 3] > ringBounds[4 * outer + 3] + EPS)
+            return false;
+        // Rings may touch each other, even along a whole edge. So probe just
+        // inside the inner ring, next to the middle of each edge
+        int from = ringStarts[inner], to = ringStarts[inner + 1];
+        for (int i = from, j = to - 1; i < to; j = i++) {
+            double dx = xy[2 * i] - xy[2 * j], dy = xy[2 * i + 1] - xy[2 * j + 1];
+            double l = Math.sqrt(dx * dx + dy * dy);
+            double offset = Math.min(PROBE_OFFSET, l / 4) / l;
+            if (!counterClockwise)
+                offset = -offset;
+            double x = (xy[2 * i] + xy[2 * j]) / 2 - dy * offset;
+            double y = (xy[2 * i + 1] + xy[2 * j + 1]) / 2 + dx * offset;
+            int side = ringSide(outer, x, y);
+            if (side != 0)
+                return side > 0;
+        }
+        return false;
+    }
+
+    /**
+     * @return 1 if inside, -1 if outside, 0 if on the border of ring
+     */
+    private int ringSide(int r, double x, double y) {
+        boolean inside = false;
+        int from = ringStarts[r], to = ringStarts[r + 1];
+        for (int i = from, j = to - 1; i < to; j = i++) {
+            double xi = xy[2 * i], yi = xy[2 * i + 1];
+            double xj = xy[2 * j], yj = xy[2 * j + 1];
+            if (distance2(xj, yj, xi, yi, x, y) <= EPS * EPS)
+                return 0;
+            if ((yi > y) != (yj > y)
+                    && x < xj + (y - yj) * (xi - xj) / (yi - yj))
+                inside = !inside;
+        }
+        return inside ? 1 : -1;
+    }
+
+    /**
+     * @return squared distance from (x, y) to segment [(x0, y0), (x1, y1)]
+     */
+    static double distance2(double x0, double y0, double x1, double y1, double x, double y) {
+        double dx = x1 - x0, dy = y1 - y0;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : ((x - x0) * dx + (y - y0) * dy) / len2;
+        if (t < 0) t = 0;
+        else if (t > 1) t = 1;
+        double ex = x0 + t * dx - x, ey = y0 + t * dy - y;
+        return ex * ex + ey * ey;
+    }
+
+    private void reverseRing(int r) {
+        for (int i = ringStarts[r], j = ringStarts[r + 1] - 1; i < j; i++, j--) {
+            double x = xy[2 * i], y = xy[2 * i + 1];
+            xy[2 * i] = xy[2 * j];
+            xy[2 * i + 1] = xy[2 * j + 1];
+            xy[2 * j] = x;
+            xy[2 * j + 1] = y;
+        }
+    }
+
+    /**
+     * @return number of rings
+     */
+    public int ringCount() {
+        return ringStarts.length - 1;
+    }
+
+    /**
+     * @return number of vertices over all rings
+     */
+    public int vertexCount() {
+        return ringStarts[ringStarts.length - 1];
+    }
+
+    /**
+     * @return <tt>true</tt> if there is no ring
+     */
+    public boolean isEmpty() {
+        return ringCount() == 0;
+    }
+
+    /**
+     * @return <tt>true</tt> if coordinates are whole numbers of grid units
+     */
+    public boolean isOnGrid() {
+        return unit > 0;
+    }
+
+    /**
+     * @return size in mm of a coordinate unit
+     */
+    private double scale() {
+        return unit > 0 ? unit : 1;
+    }
+
+    /**
+     * @return enclosed surface in mm², holes excluded
+     */
+    public double area() {
+        double sum = 0;
+        for (int r = 0; r < ringCount(); r++)
+            sum += signedArea(xy, ringStarts[r], ringStarts[r + 1]);
+        return sum * scale() * scale();
+    }
+
+    /**
+     * Even-odd point inclusion
+     *
+     * @param x abscissa
+     * @param y ordinate
+     * @return <tt>true</tt> if (x, y) is inside. Undefined on the border
+     */
+    public boolean contains(double x, double y) {
+        x /= scale();
+        y /= scale();
+        if (x < minX || x > maxX || y < minY || y > maxY)
+            return false;
+        boolean inside = false;
+        for (int r = 0; r < ringCount(); r++) {
+            if (y < ringBounds[4 * r + 1] || y > ringBounds[4 * r + 3] || x > ringBounds[4 * r + 2])
+                continue;
+            int from = ringStarts[r], to = ringStarts[r + 1];
+            for (int i = from, j = to - 1; i < to; j = i++) {
+                double yi = xy[2 * i + 1], yj = xy[2 * j + 1];
+                if ((yi > y) != (yj > y)) {
+                    double xi = xy[2 * i], xj = xy[2 * j];
+                    if (x < xj + (y - yj) * (xi - xj) / (yi - yj))
+                        inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * Exact even-odd point inclusion on grid. Coordinates are doubled so that
+     * midpoints of grid points stay whole numbers
+     *
+     * @param x2 twice the abscissa, in grid units
+     * @param y2 twice the ordinate, in grid units
+     * @return <tt>true</tt> if inside. Undefined on the border
+     */
+    boolean containsDoubled(long x2, long y2) {
+        if (x2 < 2 * minX || x2 > 2 * maxX || y2 < 2 * minY || y2 > 2 * maxY)
+            return false;
+        boolean inside = false;
+        for (int r = 0; r < ringCount(); r++) {
+            if (y2 < 2 * ringBounds[4 * r + 1] || y2 > 2 * ringBounds[4 * r + 3] || x2 > 2 * ringBounds[4 * r + 2])
+                continue;
+            int from = ringStarts[r], to = ringStarts[r + 1];
+            for (int i = from, j = to - 1; i < to; j = i++) {
+                long yi = 2 * (long) xy[2 * i + 1], yj = 2 * (long) xy[2 * j + 1];
+                if ((yi > y2) != (yj > y2)) {
+                    long xi = 2 * (long) xy[2 * i], xj = 2 * (long) xy[2 * j];
+                    // Same as x2 < xj + (y2 - yj) * (xi - xj) / (yi - yj)
+                    long lhs = (x2 - xj) * (yi - yj);
+                    long rhs = (y2 - yj) * (xi - xj);
+                    if (yi > yj ? lhs < rhs : lhs > rhs)
+                        inside = !inside;
+                }
+            }
+        }
+        return inside;
+    }
+
+    /**
+     * @return the same surface with coordinates in the unit of <tt>other</tt>
+     */
+    Contours inUnitOf(Contours other) {
+        return unit == other.unit ? this : from(toPath2D(), other.unit);
+    }
+
+    /**
+     * @return <tt>true</tt> if the bounding boxes overlap
+     */
+    boolean boundsOverlap(Contours other) {
+        return minX <= other.maxX + EPS && other.minX <= maxX + EPS
+                && minY <= other.maxY + EPS && other.minY <= maxY + EPS;
+    }
+
+    double getMinX() {
+        return minX;
+    }
+
+    double getMinY() {
+        return minY;
+    }
+
+    double getMaxX() {
+        return maxX;
+    }
+
+    double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return bounding box. Empty rectangle if no ring
+     */
+    public Rectangle2D getBounds2D() {
+        if (isEmpty())
+            return new Rectangle2D.Double();
+        double s = scale();
+        return new Rectangle2D.Double(minX * s, minY * s, (maxX - minX) * s, (maxY - minY) * s);
+    }
+
+    /**
+     * @return all rings in a path with even-odd rule
+     */
+    public Path2D toPath2D() {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_EVEN_ODD, vertexCount() + ringCount());
+        double s = scale();
+        for (int r = 0; r < ringCount(); r++) {
+            int from = ringStarts[r];
+            path.moveTo(xy[2 * from] * s, xy[2 * from + 1] * s);
+            for (int i = from + 1; i < ringStarts[r + 1]; i++)
+                path.lineTo(xy[2 * i] * s, xy[2 * i + 1] * s);
+            path.closePath();
+        }
+        return path;
+    }
+
+    /**
+     * @return a new {@link Area} of the same surface
+     */
+    public Area toArea() {
+        return isEmpty() ? new Area() : new Area(toPath2D());
+    }
+}
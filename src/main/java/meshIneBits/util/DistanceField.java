@@ -0,0 +1,463 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import meshIneBits.config.CraftConfig;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.FlatteningPathIterator;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * Signed distance from the nodes of a square raster to the border of an area,
+ * positive inside. Nodes cover the bounds of the area with one more row and
+ * column on each side.
+ * <br/>
+ * As the distance changes at most as fast as the position, a query is decided
+ * from the closest node whenever that node is far enough from the border.
+ * Only points about as close to the border as to the node fall back on
+ * {@link Area#contains(double, double)} and {@link Outline#distanceTo(double, double)},
+ * so that answers are always the exact ones.
+ */
+public final class DistanceField {
+    /**
+     * Margin against rounding, in mm
+     */
+    private static final double MARGIN = 1e-9;
+    /**
+     * Side of the buckets sorting edges, in nodes
+     */
+    private static final int BUCKET = 4;
+    private final Area area;
+    private final Outline outline;
+    private final double step;
+    private final double x0;
+    private final double y0;
+    private final int columns;
+    private final int rows;
+    /**
+     * Signed distance of node <tt>(i, j)</tt> at <tt>j * columns + i</tt>
+     */
+    private final double[] values;
+
+    /**
+     * @param area target, not to be modified afterwards
+     * @param step distance between two nodes, in mm
+     */
+    public DistanceField(Area area, double step) {
+        this.area = area;
+        this.step = step;
+        outline = Outline.from(area);
+        Rectangle2D bounds = area.getBounds2D();
+        x0 = bounds.getMinX() - step;
+        y0 = bounds.getMinY() - step;
+        if (outline.edgeCount() == 0) {
+            columns = 0;
+            rows = 0;
+            values = new double[0];
+            return;
+        }
+        columns = (int) Math.ceil(bounds.getWidth() / step) + 3;
+        rows = (int) Math.ceil(bounds.getHeight() / step) + 3;
+        values = new double[columns * rows];
+        fillDistances();
+        fillSigns();
+    }
+
+    /**
+     * @return distance between two nodes, in mm
+     */
+    public double getResolution() {
+        return step;
+    }
+
+    /**
+     * @return <tt>true</tt> if <tt>(x, y)</tt> is inside the area
+     */
+    public boolean contains(double x, double y) {
+        return fitsInside(x, y, 0);
+    }
+
+    /**
+     * @param radius in mm
+     * @return <tt>true</tt> if <tt>(x, y)</tt> is inside the area and at least
+     * <tt>radius</tt> away from its border, as with
+     * {@link AreaTool#checkPointInsideAreaWithRadius(double, double, Area, double)}
+     */
+    public boolean fitsInside(double x, double y, double radius) {
+        int k = nodeNear(x, y);
+        if (k < 0)
+            return false;
+        double offset = offset(k, x, y) + MARGIN;
+        double lower = values[k] - offset;
+        double upper = values[k] + offset;
+        if (lower > 0 && lower >= radius)
+            return true;
+        if (upper < 0 || upper < radius)
+            return false;
+        return area.contains(x, y) && !(outline.distanceTo(x, y) < radius);
+    }
+
+    /**
+     * @param radius in mm
+     * @return <tt>true</tt> if <tt>(x, y)</tt> is outside the area and at least
+     * <tt>radius</tt> away from its border
+     */
+    public boolean fitsOutside(double x, double y, double radius) {
+        int k = nodeNear(x, y);
+        if (k < 0)
+            return !(outline.distanceTo(x, y) < radius);
+        double offset = offset(k, x, y) + MARGIN;
+        double lower = values[k] - offset;
+        double upper = values[k] + offset;
+        if (upper < 0 && -upper >= radius)
+            return true;
+        if (lower > 0 || -lower < radius)
+            return false;
+        return !area.contains(x, y) && !(outline.distanceTo(x, y) < radius);
+    }
+
+    /**
+     * @return <tt>true</tt> if <tt>rectangle</tt> lies inside the area,
+     * judged from the circle around it
+     */
+    public boolean surelyContains(Rectangle2D rectangle) {
+        return fitsInside(rectangle.getCenterX(), rectangle.getCenterY(),
+                Math.hypot(rectangle.getWidth(), rectangle.getHeight()) / 2);
+    }
+
+    /**
+     * The rectangle is cut along its longer side into near squares, each
+     * checked from the circle around it, which is tighter than
+     * {@link #surelyContains(Rectangle2D)} for long or rotated rectangles
+     *
+     * @param rectangle in local coordinate system
+     * @param transform from local coordinate system, without scaling
+     * @return <tt>true</tt> if <tt>rectangle</tt> placed by <tt>transform</tt>
+     * lies inside the area
+     */
+    public boolean surelyContains(Rectangle2D rectangle, AffineTransform transform) {
+        double w = rectangle.getWidth(), h = rectangle.getHeight();
+        boolean alongX = w >= h;
+        int pieces = (int) Math.ceil(alongX ? w / h : h / w);
+        if (pieces < 1 || pieces > 1000)
+            return false;
+        double pieceW = alongX ? w / pieces : w;
+        double pieceH = alongX ? h : h / pieces;
+        double radius = Math.hypot(pieceW, pieceH) / 2;
+        Point2D.Double center = new Point2D.Double();
+        for (int i = 0; i < pieces; i++) {
+            center.setLocation(
+                    rectangle.getMinX() + (alongX ? i + 0.5 : 0.5) * pieceW,
+                    rectangle.getMinY() + (alongX ? 0.5 : i + 0.5) * pieceH);
+            transform.transform(center, center);
+            if (!fitsInside(center.x, center.y, radius))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return <tt>true</tt> if <tt>rectangle</tt> does not overlap the area,
+     * judged from the circle around it
+     */
+    public boolean surelyExcludes(Rectangle2D rectangle) {
+        return fitsOutside(rectangle.getCenterX(), rectangle.getCenterY(),
+                Math.hypot(rectangle.getWidth(), rectangle.getHeight()) / 2);
+    }
+
+    /**
+     * @return signed distance from <tt>(x, y)</tt> to the border, positive
+     * inside. Read from the closest node, so off by at most half a diagonal
+     * of a cell, except near the border where it is computed exactly
+     */
+    public double getDistance(double x, double y) {
+        int k = nodeNear(x, y);
+        if (k >= 0 && Math.abs(values[k]) > offset(k, x, y) + MARGIN)
+            return values[k];
+        double distance = outline.distanceTo(x, y);
+        return area.contains(x, y) ? distance : -distance;
+    }
+
+    /**
+     * @return index of the closest node. <tt>-1</tt> if out of raster
+     */
+    private int nodeNear(double x, double y) {
+        long i = Math.round((x - x0) / step);
+        long j = Math.round((y - y0) / step);
+        if (i < 0 || i >= columns || j < 0 || j >= rows)
+            return -1;
+        return (int) j * columns + (int) i;
+    }
+
+    private double offset(int k, double x, double y) {
+        return Math.hypot(x - nodeX(k % columns), y - nodeY(k / columns));
+    }
+
+    private double nodeX(int i) {
+        return x0 + i * step;
+    }
+
+    private double nodeY(int j) {
+        return y0 + j * step;
+    }
+
+    /**
+     * Exact distance of each node to the edges. Nodes are grouped by bucket,
+     * and the nodes of a bucket only look at the edges which may be the
+     * closest to one of them
+     */
+    private void fillDistances() {
+        EdgeBuckets buckets = new EdgeBuckets(outline, x0, y0,
+                (columns - 1) * step, (rows - 1) * step, BUCKET * step);
+        // Half diagonal of a bucket
+        double spread = buckets.side * Math.sqrt(2) / 2;
+        int[] stamps = new int[outline.edgeCount()];
+        int[] candidates = new int[outline.edgeCount()];
+        int[] firstColumns = new int[buckets.columns + 1];
+        for (int u = 0; u <= buckets.columns; u++)
+            firstColumns[u] = Math.min(columns, (int) Math.ceil(u * buckets.side / step));
+        int[] firstRows = new int[buckets.rows + 1];
+        for (int v = 0; v <= buckets.rows; v++)
+            firstRows[v] = Math.min(rows, (int) Math.ceil(v * buckets.side / step));
+        for (int v = 0; v < buckets.rows; v++) {
+            for (int u = 0; u < buckets.columns; u++) {
+                if (firstColumns[u] == firstColumns[u + 1] || firstRows[v] == firstRows[v + 1])
+                    continue;
+                double cx = x0 + (u + 0.5) * buckets.side;
+                double cy = y0 + (v + 0.5) * buckets.side;
+                // The closest edge to a node of the bucket is at most that far from the center
+                double limit = Math.sqrt(buckets.nearest2(cx, cy)) + 2 * spread + MARGIN;
+                int count = buckets.collect(cx, cy, limit, stamps, v * buckets.columns + u + 1, candidates);
+                for (int j = firstRows[v]; j < firstRows[v + 1]; j++) {
+                    double y = nodeY(j);
+                    for (int i = firstColumns[u]; i < firstColumns[u + 1]; i++) {
+                        double x = nodeX(i);
+                        double best = Double.POSITIVE_INFINITY;
+                        for (int c = 0; c < count; c++) {
+                            double d2 = outline.distance2(candidates[c], x, y);
+                            if (d2 < best)
+                                best = d2;
+                        }
+                        values[j * columns + i] = Math.sqrt(best);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Nodes outside get a negative distance, counting crossings of the border
+     * along their row
+     */
+    private void fillSigns() {
+        double[][] crossings = new double[rows][];
+        int[] counts = new int[rows];
+        double[] coords = new double[6];
+        double startX = 0, startY = 0, lastX = 0, lastY = 0;
+        for (PathIterator it = new FlatteningPathIterator(area.getPathIterator(null),
+                Math.pow(10, -CraftConfig.errorAccepted)); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            double x = coords[0], y = coords[1];
+            if (type == PathIterator.SEG_MOVETO) {
+                startX = x;
+                startY = y;
+            } else {
+                if (type == PathIterator.SEG_CLOSE) {
+                    x = startX;
+                    y = startY;
+                }
+                addCrossings(crossings, counts, lastX, lastY, x, y);
+            }
+            lastX = x;
+            lastY = y;
+        }
+        for (int j = 0; j < rows; j++) {
+            double[] row = crossings[j];
+            if (row != null)
+                Arrays.sort(row, 0, counts[j]);
+            int c = 0;
+            for (int i = 0; i < columns; i++) {
+                double x = nodeX(i);
+                while (c < counts[j] && row[c] < x)
+                    c++;
+                // Outside after an even number of crossings
+                if (c % 2 == 0)
+                    values[j * columns + i] = -values[j * columns + i];
+            }
+        }
+    }
+
+    /**
+     * Record where the edge crosses the rows whose ordinate is in
+     * <tt>[min(ay, by), max(ay, by))</tt>
+     */
+    private void addCrossings(double[][] crossings, int[] counts,
+                              double ax, double ay, double bx, double by) {
+        if (ay == by)
+            return;
+        double low = Math.min(ay, by), high = Math.max(ay, by);
+        int j = Math.max(0, (int) Math.floor((low - y0) / step) - 1);
+        while (j < rows && nodeY(j) < low)
+            j++;
+        for (; j < rows && nodeY(j) < high; j++) {
+            double y = nodeY(j);
+            if (crossings[j] == null)
+                crossings[j] = new double[4];
+            else if (counts[j] == crossings[j].length)
+                crossings[j] = Arrays.copyOf(crossings[j], 2 * counts[j]);
+            crossings[j][counts[j]++] = ax + (y - ay) * (bx - ax) / (by - ay);
+        }
+    }
+
+    /**
+     * Edges sorted into square buckets, each edge being in every bucket its
+     * bounds overlap
+     */
+    private static class EdgeBuckets {
+        final Outline outline;
+        final double x0;
+        final double y0;
+        final double side;
+        final int columns;
+        final int rows;
+        /**
+         * Edges of bucket <tt>b</tt> from <tt>edges[starts[b]]</tt> to
+         * <tt>edges[starts[b + 1]]</tt> (exclusive)
+         */
+        final int[] starts;
+        final int[] edges;
+
+        /**
+         * @param minSide smallest side of a bucket. Buckets get larger when
+         *                edges are sparse
+         */
+        EdgeBuckets(Outline outline, double x0, double y0, double width, double height, double minSide) {
+            this.outline = outline;
+            this.x0 = x0;
+            this.y0 = y0;
+            side = Math.max(minSide, Math.sqrt(width * height / outline.edgeCount()));
+            columns = (int) Math.floor(width / side) + 1;
+            rows = (int) Math.floor(height / side) + 1;
+            starts = new int[columns * rows + 1];
+            // Count, then fill
+            forEachBucket((e, b) -> starts[b + 1]++);
+            for (int b = 0; b < columns * rows; b++)
+                starts[b + 1] += starts[b];
+            edges = new int[starts[columns * rows]];
+            int[] next = Arrays.copyOf(starts, columns * rows);
+            forEachBucket((e, b) -> edges[next[b]++] = e);
+        }
+
+        private void forEachBucket(IntBiConsumer action) {
+            for (int e = 0; e < outline.edgeCount(); e++) {
+                int u0 = columnOf(Math.min(outline.startX(e), outline.endX(e)));
+                int u1 = columnOf(Math.max(outline.startX(e), outline.endX(e)));
+                int v0 = rowOf(Math.min(outline.startY(e), outline.endY(e)));
+                int v1 = rowOf(Math.max(outline.startY(e), outline.endY(e)));
+                for (int v = v0; v <= v1; v++)
+                    for (int u = u0; u <= u1; u++)
+                        action.accept(e, v * columns + u);
+            }
+        }
+
+        int columnOf(double x) {
+            return Math.max(0, Math.min(columns - 1, (int) Math.floor((x - x0) / side)));
+        }
+
+        int rowOf(double y) {
+            return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - y0) / side)));
+        }
+
+        /**
+         * @return squared distance from <tt>(x, y)</tt> to the closest edge
+         */
+        double nearest2(double x, double y) {
+            int u = columnOf(x), v = rowOf(y);
+            double best = Double.POSITIVE_INFINITY;
+            for (int ring = 0; ring <= Math.max(columns, rows); ring++) {
+                for (int bv = Math.max(0, v - ring); bv <= Math.min(rows - 1, v + ring); bv++) {
+                    // Whole rows at the top and bottom of the ring, both ends otherwise
+                    int du = bv == v - ring || bv == v + ring ? 1 : 2 * ring;
+                    for (int bu = u - ring; bu <= u + ring; bu += du) {
+                        if (bu < 0 || bu >= columns)
+                            continue;
+                        int b = bv * columns + bu;
+                        for (int s = starts[b]; s < starts[b + 1]; s++) {
+                            double d2 = outline.distance2(edges[s], x, y);
+                            if (d2 < best)
+                                best = d2;
+                        }
+                    }
+                }
+                // Buckets of further rings are at least this far
+                double reach = ring * side;
+                if (best <= reach * reach)
+                    break;
+            }
+            return best;
+        }
+
+        /**
+         * Gather the edges closer than <tt>limit</tt> to <tt>(x, y)</tt>
+         *
+         * @param stamps marks of edges already gathered
+         * @param stamp  mark of this gathering, never used before
+         * @param out    gathered edges
+         * @return number of gathered edges
+         */
+        int collect(double x, double y, double limit, int[] stamps, int stamp, int[] out) {
+            int u = columnOf(x), v = rowOf(y);
+            int reach = (int) Math.ceil(limit / side) + 1;
+            int count = 0;
+            for (int bv = Math.max(0, v - reach); bv <= Math.min(rows - 1, v + reach); bv++)
+                for (int bu = Math.max(0, u - reach); bu <= Math.min(columns - 1, u + reach); bu++) {
+                    int b = bv * columns + bu;
+                    for (int s = starts[b]; s < starts[b + 1]; s++) {
+                        int e = edges[s];
+                        if (stamps[e] != stamp && outline.distance2(e, x, y) <= limit * limit) {
+                            stamps[e] = stamp;
+                            out[count++] = e;
+                        }
+                    }
+                }
+            return count;
+        }
+    }
+
+    @FunctionalInterface
+    private interface IntBiConsumer {
+        void accept(int a, int b);
+    }
+}
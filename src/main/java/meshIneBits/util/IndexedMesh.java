@@ -0,0 +1,262 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Indexed triangle mesh: each distinct vertex is stored once in
+ * {@link #vertices} (<tt>x y z</tt> packed) and triangles refer to them
+ * through 3 indices in {@link #indices}. Shared vertices are therefore
+ * transformed only once.
+ * <p>
+ * Vertices are welded only when their coordinates are bitwise identical, so
+ * the geometry is exactly the one of the source triangles.
+ */
+public class IndexedMesh implements Serializable {
+    private static final long serialVersionUID = 6291895868922670994L;
+
+    private final double[] vertices;
+    private final int vertexCount;
+    private final int[] indices;
+
+    private IndexedMesh(double[] vertices, int vertexCount, int[] indices) {
+        this.vertices = vertices;
+        this.vertexCount = vertexCount;
+        this.indices = indices;
+    }
+
+    /**
+     * Build an indexed mesh by welding identical vertices with a hash table.
+     *
+     * @param triangles source
+     * @return new mesh, whose vertices are in order of first appearance
+     */
+    public static IndexedMesh weld(TriangleStore triangles) {
+        double[] source = triangles.getCoordinates();
+        int cornerCount = triangles.size() * 3;
+        int[] indices = new int[cornerCount];
+        double[] vertices = new double[Math.max(cornerCount, 1) * 3];
+        int vertexCount = 0;
+        // Open addressing, storing vertex index + 1 (0 means empty)
+        int capacity = (int) Math.min(1 << 30, Long.highestOneBit(Math.max(cornerCount, 1) * 2L - 1) << 1);
+        int[] table = new int[capacity];
+        int mask = capacity - 1;
+        for (int corner = 0; corner < cornerCount; corner++) {
+            int o = corner * 3;
+            long x = Double.doubleToLongBits(source[o]);
+            long y = Double.doubleToLongBits(source[o + 1]);
+            long z = Double.doubleToLongBits(source[o + 2]);
+            int slot = hash(x, y, z) & mask;
+            int index;
+            while (true) {
+                int entry = table[slot];
+                if (entry == 0) {
+                    index = vertexCount++;
+                    vertices[index * 3] = source[o];
+                    vertices[index * 3 + 1] = source[o + 1];
+                    vertices[index * 3 + 2] = source[o + 2];
+                    table[slot] = index + 1;
+                    break;
+                }
+                int candidate = (entry - 1) * 3;
+                if (Double.doubleToLongBits(vertices[candidate]) == x
+                        && Double.doubleToLongBits(vertices[candidate + 1]) == y
+                        && Double.doubleToLongBits(vertices[candidate + 2]) == z) {
+                    index = entry - 1;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            indices[corner] = index;
+        }
+        return new IndexedMesh(Arrays.copyOf(vertices, vertexCount * 3), vertexCount, indices);
+    }
+
+    private static int hash(long x, long y, long z) {
+        long h = x * 0x9E3779B97F4A7C15L;
+        h = (h ^ y) * 0xC2B2AE3D27D4EB4FL;
+        h = (h ^ z) * 0x165667B19E3779F9L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return number of triangles
+     */
+    public int size() {
+        return indices.length / 3;
+    }
+
+    /**
+     * @return number of distinct vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Direct access to the packed vertices (<tt>x y z</tt> for each).
+     * Modifications are reflected in the mesh.
+     *
+     * @return backing array
+     */
+    public double[] getVertices() {
+        return vertices;
+    }
+
+    /**
+     * @param triangle index of triangle
+     * @param corner   0, 1 or 2
+     * @return index of vertex
+     */
+    public int getVertexIndex(int triangle, int corner) {
+        return indices[triangle * 3 + corner];
+    }
+
+    public double getX(int triangle, int corner) {
+        return vertices[indices[triangle * 3 + corner] * 3];
+    }
+
+    public double getY(int triangle, int corner) {
+        return vertices[indices[triangle * 3 + corner] * 3 + 1];
+    }
+
+    public double getZ(int triangle, int corner) {
+        return vertices[indices[triangle * 3 + corner] * 3 + 2];
+    }
+
+    /**
+     * @param triangle index
+     * @return lowest z among the 3 vertices
+     */
+    public double getZMin(int triangle) {
+        double z0 = getZ(triangle, 0);
+        double z1 = getZ(triangle, 1);
+        double z2 = getZ(triangle, 2);
+        double zMin = z0;
+        if (z1 < zMin) {
+            zMin = z1;
+        }
+        if (z2 < zMin) {
+            zMin = z2;
+        }
+        return zMin;
+    }
+
+    /**
+     * @param triangle index
+     * @return highest z among the 3 vertices
+     */
+    public double getZMax(int triangle) {
+        double z0 = getZ(triangle, 0);
+        double z1 = getZ(triangle, 1);
+        double z2 = getZ(triangle, 2);
+        double zMax = z0;
+        if (z1 > zMax) {
+            zMax = z1;
+        }
+        if (z2 > zMax) {
+            zMax = z2;
+        }
+        return zMax;
+    }
+
+    /**
+     * Build a standalone {@link Triangle} of the given index. The result is a
+     * copy.
+     *
+     * @param triangle index
+     * @return new object
+     */
+    public Triangle getTriangle(int triangle) {
+        Triangle t = new Triangle();
+        for (int v = 0; v < 3; v++) {
+            t.point[v] = new Vector3(getX(triangle, v), getY(triangle, v), getZ(triangle, v));
+        }
+        return t;
+    }
+
+    /**
+     * Same as {@link Triangle#project2D(double)}, without materializing the
+     * triangle.
+     *
+     * @param triangle index
+     * @param layerZ   altitude of cut plane
+     * @return <tt>null</tt> if the triangle does not cross the plane
+     */
+    public Segment2D project2D(int triangle, double layerZ) {
+        Segment2D ret = project2D(vertices, indices[triangle * 3] * 3, indices[triangle * 3 + 1] * 3,
+                indices[triangle * 3 + 2] * 3, layerZ);
+        if (ret != null && (Double.isNaN(ret.start.x) || Double.isNaN(ret.end.x))) {
+            Logger.error("Error on triangle " + triangle + " on Z: " + layerZ);
+        }
+        return ret;
+    }
+
+    /**
+     * Cut a triangle whose vertices are stored as <tt>x y z</tt> triples.
+     *
+     * @param c      coordinates
+     * @param p0     offset of first vertex
+     * @param p1     offset of second vertex
+     * @param p2     offset of third vertex
+     * @param layerZ altitude of cut plane
+     * @return <tt>null</tt> if the triangle does not cross the plane
+     */
+    static Segment2D project2D(double[] c, int p0, int p1, int p2, double layerZ) {
+        double z0 = c[p0 + 2];
+        double z1 = c[p1 + 2];
+        double z2 = c[p2 + 2];
+        if ((z0 < layerZ) && (z1 >= layerZ) && (z2 >= layerZ)) {
+            return setSegment(c, layerZ, p0, p2, p1);
+        } else if ((z0 > layerZ) && (z1 <= layerZ) && (z2 <= layerZ)) {
+            return setSegment(c, layerZ, p0, p1, p2);
+        } else if ((z1 < layerZ) && (z0 >= layerZ) && (z2 >= layerZ)) {
+            return setSegment(c, layerZ, p1, p0, p2);
+        } else if ((z1 > layerZ) && (z0 <= layerZ) && (z2 <= layerZ)) {
+            return setSegment(c, layerZ, p1, p2, p0);
+        } else if ((z2 < layerZ) && (z1 >= layerZ) && (z0 >= layerZ)) {
+            return setSegment(c, layerZ, p2, p1, p0);
+        } else if ((z2 > layerZ) && (z1 <= layerZ) && (z0 <= layerZ)) {
+            return setSegment(c, layerZ, p2, p0, p1);
+        } else {
+            return null;
+        }
+    }
+
+    private static Segment2D setSegment(double[] c, double layerZ, int v0, int v1, int v2) {
+        double a1 = (layerZ - c[v0 + 2]) / (c[v1 + 2] - c[v0 + 2]);
+        double a2 = (layerZ - c[v0 + 2]) / (c[v2 + 2] - c[v0 + 2]);
+        Vector2 start = new Vector2(c[v0] + ((c[v1] - c[v0]) * a1), c[v0 + 1] + ((c[v1 + 1] - c[v0 + 1]) * a1));
+        Vector2 end = new Vector2(c[v0] + ((c[v2] - c[v0]) * a2), c[v0 + 1] + ((c[v2 + 1] - c[v0 + 1]) * a2));
+        return new Segment2D(start, end);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import meshIneBits.config.CraftConfig;
+
+import java.awt.*;
+import java.awt.geom.PathIterator;
+import java.util.Arrays;
+
+/**
+ * Border of a shape as packed edges, read in one pass over its path. Edge
+ * <tt>e</tt> goes from <tt>(edges[4e], edges[4e + 1])</tt> to
+ * <tt>(edges[4e + 2], edges[4e + 3])</tt> and ring <tt>r</tt> spans the edges
+ * from {@link #ringStart(int)} (inclusive) to {@link #ringEnd(int)} (exclusive).
+ * <br/>
+ * Rings and edges come in the order and direction of
+ * {@link AreaTool#getSegmentsFrom(java.awt.geom.Area)}, edges shorter than
+ * 10<sup>-{@link CraftConfig#errorAccepted}</sup> mm being dropped. Unlike
+ * {@link Contours}, vertices are kept as they are, so that callers get the
+ * same values as with {@link Segment2D} without building them.
+ */
+public final class Outline {
+    private final double[] edges;
+    private final int[] ringStarts;
+    private final int ringCount;
+
+    private Outline(double[] edges, int[] ringStarts, int ringCount) {
+        this.edges = edges;
+        this.ringStarts = ringStarts;
+        this.ringCount = ringCount;
+    }
+
+    /**
+     * @param shape usually an {@link java.awt.geom.Area}, made of straight lines
+     * @return packed border of <tt>shape</tt>
+     */
+    public static Outline from(Shape shape) {
+        double tolerance = Math.pow(10, -CraftConfig.errorAccepted);
+        double[] edges = new double[64];
+        int[] ringStarts = new int[8];
+        int edgeCount = 0;
+        int ringCount = 0;
+        int ringStart = 0;
+        double startX = 0, startY = 0;
+        double lastX = 0, lastY = 0;
+        double[] coords = new double[6];
+        for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+            int type = it.currentSegment(coords);
+            double x = coords[0], y = coords[1];
+            if (type == PathIterator.SEG_MOVETO) {
+                if (edgeCount > ringStart) {
+                    if (ringCount + 2 > ringStarts.length)
+                        ringStarts = Arrays.copyOf(ringStarts, 2 * ringStarts.length);
+                    ringStarts[ringCount++] = ringStart;
+                    reverse(edges, ringStart, edgeCount);
+                }
+                ringStart = edgeCount;
+                startX = x;
+                startY = y;
+            } else if (type == PathIterator.SEG_LINETO || type == PathIterator.SEG_CLOSE) {
+                if (type == PathIterator.SEG_CLOSE) {
+                    x = startX;
+                    y = startY;
+                }
+                // Edges go backwards, from the next point to the current one
+                if (Math.abs(x - lastX) + Math.abs(y - lastY) >= tolerance) {
+                    if (4 * edgeCount + 4 > edges.length)
+                        edges = Arrays.copyOf(edges, 2 * edges.length);
+                    edges[4 * edgeCount] = x;
+                    edges[4 * edgeCount + 1] = y;
+                    edges[4 * edgeCount + 2] = lastX;
+                    edges[4 * edgeCount + 3] = lastY;
+                    edgeCount++;
+                }
+                if (type == PathIterator.SEG_CLOSE)
+                    continue;
+            }
+            lastX = x;
+            lastY = y;
+        }
+        if (edgeCount > ringStart) {
+            if (ringCount + 2 > ringStarts.length)
+                ringStarts = Arrays.copyOf(ringStarts, 2 * ringStarts.length);
+            ringStarts[ringCount++] = ringStart;
+            reverse(edges, ringStart, edgeCount);
+        }
+        ringStarts[ringCount] = edgeCount;
+        return new Outline(Arrays.copyOf(edges, 4 * edgeCount), ringStarts, ringCount);
+    }
+
+    /**
+     * Reverse the order of edges <tt>from</tt> (inclusive) to <tt>to</tt> (exclusive)
+     */
+    private static void reverse(double[] edges, int from, int to) {
+        for (int i = from, j = to - 1; i < j; i++, j--) {
+            for (int k = 0; k < 4; k++) {
+                double t = edges[4 * i + k];
+                edges[4 * i + k] = edges[4 * j + k];
+                edges[4 * j + k] = t;
+            }
+        }
+    }
+
+    public int ringCount() {
+        return ringCount;
+    }
+
+    public int edgeCount() {
+        return ringStarts[ringCount];
+    }
+
+    /**
+     * @return index of the first edge of ring <tt>r</tt>
+     */
+    public int ringStart(int r) {
+        return ringStarts[r];
+    }
+
+    /**
+     * @return index after the last edge of ring <tt>r</tt>
+     */
+    public int ringEnd(int r) {
+        return ringStarts[r + 1];
+    }
+
+    public double startX(int e) {
+        return edges[4 * e];
+    }
+
+    public double startY(int e) {
+        return edges[4 * e + 1];
+    }
+
+    public double endX(int e) {
+        return edges[4 * e + 2];
+    }
+
+    public double endY(int e) {
+        return edges[4 * e + 3];
+    }
+
+    /**
+     * @return length of edge <tt>e</tt>
+     * @see Segment2D#getLength()
+     */
+    public double length(int e) {
+        double dx = edges[4 * e + 2] - edges[4 * e];
+        double dy = edges[4 * e + 3] - edges[4 * e + 1];
+        return Math.sqrt((dx * dx) + (dy * dy));
+    }
+
+    /**
+     * @return distance from <tt>(x, y)</tt> to the closest edge.
+     * {@link Double#POSITIVE_INFINITY} if there is no edge
+     * @see Segment2D#distFromPoint(Vector2)
+     */
+    public double distanceTo(double x, double y) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int e = 0; e < edgeCount(); e++) {
+            double d2 = distance2(e, x, y);
+            if (d2 < min)
+                min = d2;
+        }
+        return Math.sqrt(min);
+    }
+
+    /**
+     * @return squared distance from <tt>(x, y)</tt> to edge <tt>e</tt>
+     */
+    double distance2(int e, double x, double y) {
+        double vx = edges[4 * e], vy = edges[4 * e + 1];
+        double wx = edges[4 * e + 2], wy = edges[4 * e + 3];
+        double l2 = ((vx - wx) * (vx - wx)) + ((vy - wy) * (vy - wy));
+        double t = (((x - vx) * (wx - vx)) + ((y - vy) * (wy - vy))) / l2;
+        t = Math.max(0, Math.min(1, t));
+        double px = vx + (t * (wx - vx));
+        double py = vy + (t * (wy - vy));
+        return ((x - px) * (x - px)) + ((y - py) * (y - py));
+    }
+}
@@ -34,6 +34,8 @@ import meshIneBits.config.CraftConfig;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Vector;
@@ -42,6 +44,8 @@ import java.util.Vector;
  * A polygon is an enclosed set of Segment2D.
  */
 public class Polygon implements Iterable<Segment2D>, Serializable {
+    private static final long serialVersionUID = -3338033962691928603L;
+
     private Segment2D first = null;
 
     private Segment2D last = null;
@@ -276,6 +280,81 @@ public class Polygon implements Iterable<Segment2D>, Serializable {
         }
     }
 
+    /**
+     * Simplify this closed polygon with the Douglas-Peucker algorithm. The
+     * loop is split at its first vertex and the farthest one from it, then
+     * each chain keeps its farthest vertex from its chord while that one
+     * deviates more than <tt>tolerance</tt>.
+     *
+     * @param tolerance largest distance from a dropped vertex to the new
+     *                  outline, in mm
+     * @return a new closed polygon. Same vertices if fewer than 3 would remain
+     */
+    public Polygon simplify(double tolerance) {
+        Vector<Vector2> vertices = new Vector<>();
+        for (Segment2D s : this) {
+            vertices.add(s.start);
+        }
+        int n = vertices.size();
+        if (n < 4) {
+            return closedPolygonOf(vertices);
+        }
+        int farthest = 0;
+        for (int i = 1; i < n; i++) {
+            if (Vector2.dist2(vertices.get(0), vertices.get(i)) > Vector2.dist2(vertices.get(0), vertices.get(farthest))) {
+                farthest = i;
+            }
+        }
+        boolean[] kept = new boolean[n];
+        kept[0] = true;
+        kept[farthest] = true;
+        // Chains to simplify, as pairs of indices. The second may wrap around
+        Deque<int[]> chains = new ArrayDeque<>();
+        chains.push(new int[]{0, farthest});
+        chains.push(new int[]{farthest, n});
+        while (!chains.isEmpty()) {
+            int[] chain = chains.pop();
+            Segment2D chord = new Segment2D(vertices.get(chain[0] % n), vertices.get(chain[1] % n));
+            int worst = -1;
+            double worstDistance = tolerance;
+            for (int i = chain[0] + 1; i < chain[1]; i++) {
+                double distance = chord.distFromPoint(vertices.get(i));
+                if (distance > worstDistance) {
+                    worst = i;
+                    worstDistance = distance;
+                }
+            }
+            if (worst >= 0) {
+                kept[worst] = true;
+                chains.push(new int[]{chain[0], worst});
+                chains.push(new int[]{worst, chain[1]});
+            }
+        }
+        Vector<Vector2> simplified = new Vector<>();
+        for (int i = 0; i < n; i++) {
+            if (kept[i]) {
+                simplified.add(vertices.get(i));
+            }
+        }
+        return closedPolygonOf(simplified.size() < 3 ? vertices : simplified);
+    }
+
+    /**
+     * @param vertices in order, at least one
+     * @return closed polygon linking them
+     */
+    private static Polygon closedPolygonOf(List<Vector2> vertices) {
+        int n = vertices.size();
+        Segment2D[] segments = new Segment2D[n];
+        for (int i = 0; i < n; i++) {
+            segments[i] = new Segment2D(vertices.get(i), vertices.get((i + 1) % n));
+        }
+        for (int i = 0; i < n; i++) {
+            segments[i].setNext(segments[(i + 1) % n]);
+        }
+        return new Polygon(segments[0]);
+    }
+
     /**
      * Convert polygon to Path2D. Used to generate area.
      *
@@ -0,0 +1,751 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.util.*;
+
+/**
+ * Boolean operations over polygon-only surfaces ({@link Contours}), without
+ * the curve machinery of {@link java.awt.geom.Area}.
+ * <br/>
+ * Both operands are cut at their mutual intersections. Each resulting piece of
+ * border is classified against the other operand (inside, outside or shared),
+ * the pieces required by the operation are kept and finally chained back into
+ * rings. Since rings keep their interior on the left, the kept pieces always
+ * close up consistently.
+ * <br/>
+ * Vertices closer than 10<sup>-9</sup> mm are merged, so the results equal
+ * those of {@link java.awt.geom.Area} within
+ * {@link meshIneBits.config.CraftConfig#errorAccepted}.
+ * <br/>
+ * On grid (see {@link Contours#isOnGrid()}), all decisions are exact in
+ * <tt>long</tt> arithmetic and crossings are rounded to the nearest grid
+ * point. Results then do not depend on any tolerance.
+ */
+public final class PolygonClipper {
+    private static final double EPS = 1e-9;
+
+    private static final int INTERSECTION = 0;
+    private static final int UNION = 1;
+    private static final int DIFFERENCE = 2;
+
+    private static final byte OUTSIDE = 0;
+    private static final byte INSIDE = 1;
+    private static final byte SHARED_SAME = 2;
+    private static final byte SHARED_OPPOSITE = 3;
+
+    /**
+     * @return the surface common to <tt>a</tt> and <tt>b</tt>
+     */
+    public static Contours intersection(Contours a, Contours b) {
+        if (a.isEmpty() || b.isEmpty())
+            return Contours.empty();
+        b = b.inUnitOf(a);
+        if (!a.boundsOverlap(b))
+            return Contours.empty();
+        return new PolygonClipper(a, b).clip(INTERSECTION);
+    }
+
+    /**
+     * @return the surface covered by <tt>a</tt> or <tt>b</tt>
+     */
+    public static Contours union(Contours a, Contours b) {
+        if (a.isEmpty()) return b;
+        if (b.isEmpty()) return a;
+        b = b.inUnitOf(a);
+        if (!a.boundsOverlap(b))
+            return concat(a, b);
+        return new PolygonClipper(a, b).clip(UNION);
+    }
+
+    /**
+     * @return the surface of <tt>a</tt> not covered by <tt>b</tt>
+     */
+    public static Contours difference(Contours a, Contours b) {
+        if (a.isEmpty() || b.isEmpty())
+            return a;
+        b = b.inUnitOf(a);
+        if (!a.boundsOverlap(b))
+            return a;
+        return new PolygonClipper(a, b).clip(DIFFERENCE);
+    }
+
+    private static Contours concat(Contours a, Contours b) {
+        double[] xy = Arrays.copyOf(a.xy, a.xy.length + b.xy.length);
+        System.arraycopy(b.xy, 0, xy, a.xy.length, b.xy.length);
+        int[] ringStarts = new int[a.ringCount() + b.ringCount() + 1];
+        System.arraycopy(a.ringStarts, 0, ringStarts, 0, a.ringCount());
+        for (int r = 0; r <= b.ringCount(); r++)
+            ringStarts[a.ringCount() + r] = b.ringStarts[r] + a.vertexCount();
+        return new Contours(xy, ringStarts, a.unit);
+    }
+
+    private final Contours a;
+    private final Contours b;
+    /**
+     * Whether coordinates are whole grid units
+     */
+    private final boolean onGrid;
+    /**
+     * Edges of both operands: <tt>x0, y0, x1, y1</tt>. Those of <tt>a</tt> come first
+     */
+    private final double[] edges;
+    private final int edgeCountA;
+    /**
+     * Whether the edge may touch the other operand
+     */
+    private final boolean[] relevant;
+
+    // Split points, gathered for all edges
+    private int splitCount;
+    private int[] splitEdge = new int[16];
+    private double[] splitT = new double[16];
+    private double[] splitX = new double[16];
+    private double[] splitY = new double[16];
+
+    // Collinear overlaps, chained per edge, in the parameter of the edge
+    private int overlapCount;
+    private final int[] overlapHead;
+    private int[] overlapNext = new int[4];
+    private double[] overlapFrom = new double[4];
+    private double[] overlapTo = new double[4];
+    private boolean[] overlapSameDirection = new boolean[4];
+
+    // Pieces of border, after cutting the edges at the split points
+    private int pieceCount;
+    private double[] pieces = new double[64];
+    private int[] pieceEdge = new int[16];
+    private byte[] pieceClass = new byte[16];
+
+    private PolygonClipper(Contours a, Contours b) {
+        this.a = a;
+        this.onGrid = a.isOnGrid();
+        // Shared corners on grid are already exactly equal
+        this.b = onGrid ? b : snapVertices(a, b);
+        edgeCountA = a.vertexCount();
+        int edgeCount = edgeCountA + this.b.vertexCount();
+        edges = new double[4 * edgeCount];
+        relevant = new boolean[edgeCount];
+        overlapHead = new int[edgeCount];
+        Arrays.fill(overlapHead, -1);
+        fillEdges(a, this.b, 0);
+        fillEdges(this.b, a, edgeCountA);
+    }
+
+    /**
+     * Move the vertices of <tt>b</tt> lying within {@link #EPS} of a vertex of
+     * <tt>a</tt> onto it, so that the shared corners are exactly equal
+     */
+    private static Contours snapVertices(Contours a, Contours b) {
+        int n = a.vertexCount();
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingDouble(i -> a.xy[2 * i]));
+        double[] sortedX = new double[n];
+        for (int i = 0; i < n; i++) sortedX[i] = a.xy[2 * order[i]];
+
+        double[] xy = null;
+        for (int v = 0; v < b.vertexCount(); v++) {
+            double x = b.xy[2 * v], y = b.xy[2 * v + 1];
+            int k = lowerBound(sortedX, x - EPS);
+            for (; k < n && sortedX[k] <= x + EPS; k++) {
+                int i = order[k];
+                double ax = a.xy[2 * i], ay = a.xy[2 * i + 1];
+                if (Math.abs(ay - y) <= EPS && (ax != x || ay != y)) {
+                    if (xy == null) xy = b.xy.clone();
+                    xy[2 * v] = ax;
+                    xy[2 * v + 1] = ay;
+                    break;
+                }
+            }
+        }
+        return xy == null ? b : new Contours(xy, b.ringStarts, b.unit);
+    }
+
+    private static int lowerBound(double[] sorted, double value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void fillEdges(Contours c, Contours other, int offset) {
+        for (int r = 0; r < c.ringCount(); r++) {
+            int from = c.ringStarts[r], to = c.ringStarts[r + 1];
+            for (int i = from; i < to; i++) {
+                int j = i + 1 < to ? i + 1 : from;
+                int e = offset + i;
+                double x0 = c.xy[2 * i], y0 = c.xy[2 * i + 1];
+                double x1 = c.xy[2 * j], y1 = c.xy[2 * j + 1];
+                edges[4 * e] = x0;
+                edges[4 * e + 1] = y0;
+                edges[4 * e + 2] = x1;
+                edges[4 * e + 3] = y1;
+                relevant[e] = Math.max(x0, x1) >= other.getMinX() - EPS
+                        && Math.min(x0, x1) <= other.getMaxX() + EPS
+                        && Math.max(y0, y1) >= other.getMinY() - EPS
+                        && Math.min(y0, y1) <= other.getMaxY() + EPS;
+            }
+        }
+    }
+
+    private Contours clip(int operation) {
+        findIntersections();
+        mergeSplitPoints();
+        cutPieces();
+        classifyPieces();
+        return chain(operation);
+    }
+
+    /**
+     * Sweep the relevant edges from left to right and test each edge against
+     * the active edges of the other operand
+     */
+    private void findIntersections() {
+        int edgeCount = relevant.length;
+        int relevantCount = 0;
+        Integer[] order = new Integer[edgeCount];
+        for (int e = 0; e < edgeCount; e++)
+            if (relevant[e]) order[relevantCount++] = e;
+        Arrays.sort(order, 0, relevantCount, Comparator.comparingDouble(this::edgeMinX));
+
+        int[] activeA = new int[16], activeB = new int[16];
+        int activeACount = 0, activeBCount = 0;
+        for (int k = 0; k < relevantCount; k++) {
+            int e = order[k];
+            double minX = edgeMinX(e);
+            boolean ofA = e < edgeCountA;
+            int[] others = ofA ? activeB : activeA;
+            int othersCount = ofA ? activeBCount : activeACount;
+            // Drop the edges left behind, then test the remaining
+            int kept = 0;
+            for (int i = 0; i < othersCount; i++) {
+                int o = others[i];
+                if (edgeMaxX(o) < minX - EPS)
+                    continue;
+                others[kept++] = o;
+                if (onGrid) {
+                    if (ofA) intersectOnGrid(e, o);
+                    else intersectOnGrid(o, e);
+                } else {
+                    if (ofA) intersect(e, o);
+                    else intersect(o, e);
+                }
+            }
+            if (ofA) {
+                activeBCount = kept;
+                if (activeACount == activeA.length) activeA = Arrays.copyOf(activeA, 2 * activeACount);
+                activeA[activeACount++] = e;
+            } else {
+                activeACount = kept;
+                if (activeBCount == activeB.length) activeB = Arrays.copyOf(activeB, 2 * activeBCount);
+                activeB[activeBCount++] = e;
+            }
+        }
+    }
+
+    private double edgeMinX(int e) {
+        return Math.min(edges[4 * e], edges[4 * e + 2]);
+    }
+
+    private double edgeMaxX(int e) {
+        return Math.max(edges[4 * e], edges[4 * e + 2]);
+    }
+
+    /**
+     * Register the split points of edge <tt>ea</tt> of <tt>a</tt> and edge
+     * <tt>eb</tt> of <tt>b</tt>. A crossing is shared by both edges with
+     * exactly the same coordinates. A vertex lying on the other edge splits it
+     * at the vertex itself.
+     */
+    private void intersect(int ea, int eb) {
+        double p0x = edges[4 * ea], p0y = edges[4 * ea + 1];
+        double p1x = edges[4 * ea + 2], p1y = edges[4 * ea + 3];
+        double q0x = edges[4 * eb], q0y = edges[4 * eb + 1];
+        double q1x = edges[4 * eb + 2], q1y = edges[4 * eb + 3];
+        if (Math.max(p0y, p1y) < Math.min(q0y, q1y) - EPS
+                || Math.max(q0y, q1y) < Math.min(p0y, p1y) - EPS)
+            return;
+
+        double dx = p1x - p0x, dy = p1y - p0y;
+        double ex = q1x - q0x, ey = q1y - q0y;
+        double la = Math.sqrt(dx * dx + dy * dy);
+        double lb = Math.sqrt(ex * ex + ey * ey);
+        // Signed distances to the supporting line of the other edge
+        double dq0 = (dx * (q0y - p0y) - dy * (q0x - p0x)) / la;
+        double dq1 = (dx * (q1y - p0y) - dy * (q1x - p0x)) / la;
+        double dp0 = (ex * (p0y - q0y) - ey * (p0x - q0x)) / lb;
+        double dp1 = (ex * (p1y - q0y) - ey * (p1x - q0x)) / lb;
+        boolean q0On = Math.abs(dq0) <= EPS, q1On = Math.abs(dq1) <= EPS;
+        boolean p0On = Math.abs(dp0) <= EPS, p1On = Math.abs(dp1) <= EPS;
+
+        if (q0On && q1On || p0On && p1On) {
+            // Same supporting line
+            boolean sameDirection = dx * ex + dy * ey > 0;
+            addOverlap(ea, la, (q0x - p0x) * dx + (q0y - p0y) * dy, (q1x - p0x) * dx + (q1y - p0y) * dy,
+                    sameDirection);
+            addOverlap(eb, lb, (p0x - q0x) * ex + (p0y - q0y) * ey, (p1x - q0x) * ex + (p1y - q0y) * ey,
+                    sameDirection);
+        }
+        if (q0On || q1On || p0On || p1On) {
+            // Touching or overlapping: only the vertices split
+            if (q0On) splitAtVertex(ea, q0x, q0y);
+            if (q1On) splitAtVertex(ea, q1x, q1y);
+            if (p0On) splitAtVertex(eb, p0x, p0y);
+            if (p1On) splitAtVertex(eb, p1x, p1y);
+            return;
+        }
+        if ((dq0 > 0) == (dq1 > 0) || (dp0 > 0) == (dp1 > 0))
+            return;
+        double t = dp0 / (dp0 - dp1);
+        double x = p0x + t * dx, y = p0y + t * dy;
+        addSplit(ea, t * la, x, y);
+        addSplit(eb, ((x - q0x) * ex + (y - q0y) * ey) / lb, x, y);
+    }
+
+    /**
+     * Exact version of {@link #intersect(int, int)} on grid. Only the crossing
+     * points are rounded
+     */
+    private void intersectOnGrid(int ea, int eb) {
+        long p0x = (long) edges[4 * ea], p0y = (long) edges[4 * ea + 1];
+        long p1x = (long) edges[4 * ea + 2], p1y = (long) edges[4 * ea + 3];
+        long q0x = (long) edges[4 * eb], q0y = (long) edges[4 * eb + 1];
+        long q1x = (long) edges[4 * eb + 2], q1y = (long) edges[4 * eb + 3];
+        if (Math.max(p0y, p1y) < Math.min(q0y, q1y) || Math.max(q0y, q1y) < Math.min(p0y, p1y))
+            return;
+
+        long dx = p1x - p0x, dy = p1y - p0y;
+        long ex = q1x - q0x, ey = q1y - q0y;
+        // Twice the signed areas, whose signs tell the sides
+        long cq0 = dx * (q0y - p0y) - dy * (q0x - p0x);
+        long cq1 = dx * (q1y - p0y) - dy * (q1x - p0x);
+        long cp0 = ex * (p0y - q0y) - ey * (p0x - q0x);
+        long cp1 = ex * (p1y - q0y) - ey * (p1x - q0x);
+
+        if (cq0 == 0 && cq1 == 0) {
+            // Same supporting line
+            boolean sameDirection = dx * ex + dy * ey > 0;
+            addOverlap(ea, Math.sqrt(dx * dx + dy * dy),
+                    (q0x - p0x) * dx + (q0y - p0y) * dy, (q1x - p0x) * dx + (q1y - p0y) * dy,
+                    sameDirection);
+            addOverlap(eb, Math.sqrt(ex * ex + ey * ey),
+                    (p0x - q0x) * ex + (p0y - q0y) * ey, (p1x - q0x) * ex + (p1y - q0y) * ey,
+                    sameDirection);
+        }
+        if (cq0 == 0 || cq1 == 0 || cp0 == 0 || cp1 == 0) {
+            // Touching or overlapping: only the vertices split
+            if (cq0 == 0) splitOnGrid(ea, q0x, q0y);
+            if (cq1 == 0) splitOnGrid(ea, q1x, q1y);
+            if (cp0 == 0) splitOnGrid(eb, p0x, p0y);
+            if (cp1 == 0) splitOnGrid(eb, p1x, p1y);
+            return;
+        }
+        if ((cq0 > 0) == (cq1 > 0) || (cp0 > 0) == (cp1 > 0))
+            return;
+        double t = (double) cp0 / ((double) cp0 - cp1);
+        long x = Math.round(p0x + t * dx), y = Math.round(p0y + t * dy);
+        // Rounding near an end may leave one of the edges. Both must be cut
+        // at the same point, so fall back on that end
+        int outOf = !projectsInside(ea, x, y) ? ea : !projectsInside(eb, x, y) ? eb : -1;
+        if (outOf >= 0) {
+            long x0 = (long) edges[4 * outOf], y0 = (long) edges[4 * outOf + 1];
+            long x1 = (long) edges[4 * outOf + 2], y1 = (long) edges[4 * outOf + 3];
+            boolean nearStart = (x - x0) * (x - x0) + (y - y0) * (y - y0)
+                    <= (x - x1) * (x - x1) + (y - y1) * (y - y1);
+            x = nearStart ? x0 : x1;
+            y = nearStart ? y0 : y1;
+        }
+        splitOnGrid(ea, x, y);
+        splitOnGrid(eb, x, y);
+    }
+
+    private boolean projectsInside(int e, long x, long y) {
+        long x0 = (long) edges[4 * e], y0 = (long) edges[4 * e + 1];
+        long dx = (long) edges[4 * e + 2] - x0, dy = (long) edges[4 * e + 3] - y0;
+        long dot = (x - x0) * dx + (y - y0) * dy;
+        return dot > 0 && dot < dx * dx + dy * dy;
+    }
+
+    /**
+     * Split edge <tt>e</tt> at grid point (x, y) if it projects strictly inside
+     */
+    private void splitOnGrid(int e, long x, long y) {
+        if (!projectsInside(e, x, y))
+            return;
+        long x0 = (long) edges[4 * e], y0 = (long) edges[4 * e + 1];
+        long dx = (long) edges[4 * e + 2] - x0, dy = (long) edges[4 * e + 3] - y0;
+        addSplit(e, ((x - x0) * dx + (y - y0) * dy) / Math.sqrt(dx * dx + dy * dy), x, y);
+    }
+
+    /**
+     * Split edge <tt>e</tt> at (x, y) if this point projects strictly inside it
+     */
+    private void splitAtVertex(int e, double x, double y) {
+        double x0 = edges[4 * e], y0 = edges[4 * e + 1];
+        double dx = edges[4 * e + 2] - x0, dy = edges[4 * e + 3] - y0;
+        double l = Math.sqrt(dx * dx + dy * dy);
+        double t = ((x - x0) * dx + (y - y0) * dy) / l;
+        if (t > EPS && t < l - EPS)
+            addSplit(e, t, x, y);
+    }
+
+    /**
+     * Register the part of edge <tt>e</tt> lying on an edge of the other operand
+     *
+     * @param l     length of <tt>e</tt>
+     * @param dot0  dot product of the direction of <tt>e</tt> with the vector
+     *              from its start to an end of the other edge
+     * @param dot1  same with the other end
+     */
+    private void addOverlap(int e, double l, double dot0, double dot1, boolean sameDirection) {
+        double from = Math.max(0, Math.min(dot0, dot1) / l);
+        double to = Math.min(l, Math.max(dot0, dot1) / l);
+        if (to - from <= EPS)
+            return;
+        if (overlapCount == overlapNext.length) {
+            int n = 2 * overlapCount;
+            overlapNext = Arrays.copyOf(overlapNext, n);
+            overlapFrom = Arrays.copyOf(overlapFrom, n);
+            overlapTo = Arrays.copyOf(overlapTo, n);
+            overlapSameDirection = Arrays.copyOf(overlapSameDirection, n);
+        }
+        overlapFrom[overlapCount] = from;
+        overlapTo[overlapCount] = to;
+        overlapSameDirection[overlapCount] = sameDirection;
+        overlapNext[overlapCount] = overlapHead[e];
+        overlapHead[e] = overlapCount;
+        overlapCount++;
+    }
+
+    private void addSplit(int e, double t, double x, double y) {
+        if (splitCount == splitEdge.length) {
+            int n = 2 * splitCount;
+            splitEdge = Arrays.copyOf(splitEdge, n);
+            splitT = Arrays.copyOf(splitT, n);
+            splitX = Arrays.copyOf(splitX, n);
+            splitY = Arrays.copyOf(splitY, n);
+        }
+        splitEdge[splitCount] = e;
+        splitT[splitCount] = t;
+        splitX[splitCount] = x;
+        splitY[splitCount] = y;
+        splitCount++;
+    }
+
+    /**
+     * Several crossings may meet at one point, e.g. where an edge passes
+     * through a vertex shared by two rings of the other operand. Computed
+     * separately, they differ by rounding, which would leave pieces of no
+     * length whose side cannot be told. So split points closer than
+     * {@link #EPS} (one unit on grid) are merged, onto a vertex if there is one.
+     */
+    private void mergeSplitPoints() {
+        if (splitCount == 0)
+            return;
+        double tolerance = onGrid ? 1 : EPS;
+        double cell = 2 * tolerance;
+        Map<PointKey, double[]> cells = new HashMap<>();
+        for (int e = 0; e < relevant.length; e++) {
+            if (relevant[e]) {
+                mergePoint(cells, cell, tolerance, edges[4 * e], edges[4 * e + 1]);
+                mergePoint(cells, cell, tolerance, edges[4 * e + 2], edges[4 * e + 3]);
+            }
+        }
+        for (int i = 0; i < splitCount; i++) {
+            double[] point = mergePoint(cells, cell, tolerance, splitX[i], splitY[i]);
+            splitX[i] = point[0];
+            splitY[i] = point[1];
+        }
+    }
+
+    /**
+     * @param cells registered points, by cell
+     * @return a registered point within <tt>tolerance</tt> of (x, y). Otherwise
+     * (x, y) itself, now registered
+     */
+    private static double[] mergePoint(Map<PointKey, double[]> cells, double cell, double tolerance,
+                                       double x, double y) {
+        double cx = Math.floor(x / cell), cy = Math.floor(y / cell);
+        for (int i = -1; i <= 1; i++) {
+            for (int j = -1; j <= 1; j++) {
+                double[] points = cells.get(new PointKey(cx + i, cy + j));
+                if (points == null)
+                    continue;
+                for (int k = 0; k < points.length; k += 2) {
+                    if (Math.abs(points[k] - x) <= tolerance && Math.abs(points[k + 1] - y) <= tolerance)
+                        return new double[]{points[k], points[k + 1]};
+                }
+            }
+        }
+        cells.merge(new PointKey(cx, cy), new double[]{x, y}, (old, added) -> {
+            double[] points = Arrays.copyOf(old, old.length + 2);
+            points[old.length] = added[0];
+            points[old.length + 1] = added[1];
+            return points;
+        });
+        return new double[]{x, y};
+    }
+
+    /**
+     * Cut every edge at its split points, ordered along the edge
+     */
+    private void cutPieces() {
+        Integer[] order = new Integer[splitCount];
+        for (int i = 0; i < splitCount; i++) order[i] = i;
+        Arrays.sort(order, (i, j) -> splitEdge[i] != splitEdge[j]
+                ? Integer.compare(splitEdge[i], splitEdge[j])
+                : Double.compare(splitT[i], splitT[j]));
+        int k = 0;
+        for (int e = 0; e < relevant.length; e++) {
+            double x = edges[4 * e], y = edges[4 * e + 1];
+            for (; k < splitCount && splitEdge[order[k]] == e; k++) {
+                int s = order[k];
+                if (splitX[s] == x && splitY[s] == y)
+                    continue;
+                addPiece(e, x, y, splitX[s], splitY[s]);
+                x = splitX[s];
+                y = splitY[s];
+            }
+            if (x != edges[4 * e + 2] || y != edges[4 * e + 3])
+                addPiece(e, x, y, edges[4 * e + 2], edges[4 * e + 3]);
+        }
+    }
+
+    private void addPiece(int e, double x0, double y0, double x1, double y1) {
+        if (pieceCount == pieceEdge.length) {
+            pieceEdge = Arrays.copyOf(pieceEdge, 2 * pieceCount);
+            pieceClass = Arrays.copyOf(pieceClass, 2 * pieceCount);
+            pieces = Arrays.copyOf(pieces, 8 * pieceCount);
+        }
+        pieces[4 * pieceCount] = x0;
+        pieces[4 * pieceCount + 1] = y0;
+        pieces[4 * pieceCount + 2] = x1;
+        pieces[4 * pieceCount + 3] = y1;
+        pieceEdge[pieceCount] = e;
+        // Edges far from the other operand need no further test
+        pieceClass[pieceCount] = relevant[e] ? -1 : OUTSIDE;
+        pieceCount++;
+    }
+
+    /**
+     * Mark the pieces lying on a border of the other operand, then test the
+     * midpoint of the others against the opposite operand
+     */
+    private void classifyPieces() {
+        matchCommonPieces();
+        for (int p = 0; p < pieceCount; p++) {
+            if (pieceClass[p] >= 0)
+                continue;
+            int e = pieceEdge[p];
+            double mx = (pieces[4 * p] + pieces[4 * p + 2]) / 2;
+            double my = (pieces[4 * p + 1] + pieces[4 * p + 3]) / 2;
+            if (overlapHead[e] >= 0) {
+                double x0 = edges[4 * e], y0 = edges[4 * e + 1];
+                double dx = edges[4 * e + 2] - x0, dy = edges[4 * e + 3] - y0;
+                double t = ((mx - x0) * dx + (my - y0) * dy) / Math.sqrt(dx * dx + dy * dy);
+                for (int o = overlapHead[e]; o >= 0; o = overlapNext[o]) {
+                    if (overlapFrom[o] < t && t < overlapTo[o]) {
+                        pieceClass[p] = overlapSameDirection[o] ? SHARED_SAME : SHARED_OPPOSITE;
+                        break;
+                    }
+                }
+                if (pieceClass[p] >= 0)
+                    continue;
+            }
+            Contours other = e < edgeCountA ? b : a;
+            boolean inside = onGrid
+                    ? other.containsDoubled(
+                    (long) pieces[4 * p] + (long) pieces[4 * p + 2],
+                    (long) pieces[4 * p + 1] + (long) pieces[4 * p + 3])
+                    : other.contains(mx, my);
+            pieceClass[p] = inside ? INSIDE : OUTSIDE;
+        }
+    }
+
+    /**
+     * Pieces with the same ends in both operands lie on a common border, even
+     * if their edges were not exactly collinear before rounding
+     */
+    private void matchCommonPieces() {
+        Map<PointKey, int[]> startsOfB = new HashMap<>();
+        int[] nextOfB = new int[pieceCount];
+        for (int p = pieceCount - 1; p >= 0; p--) {
+            if (pieceEdge[p] < edgeCountA || pieceClass[p] >= 0)
+                continue;
+            int[] head = startsOfB.computeIfAbsent(new PointKey(pieces[4 * p], pieces[4 * p + 1]), k -> new int[]{-1});
+            nextOfB[p] = head[0];
+            head[0] = p;
+        }
+        if (startsOfB.isEmpty())
+            return;
+        for (int p = 0; p < pieceCount; p++) {
+            if (pieceEdge[p] >= edgeCountA || pieceClass[p] >= 0)
+                continue;
+            double x0 = pieces[4 * p], y0 = pieces[4 * p + 1];
+            double x1 = pieces[4 * p + 2], y1 = pieces[4 * p + 3];
+            int[] same = startsOfB.get(new PointKey(x0, y0));
+            for (int q = same == null ? -1 : same[0]; q >= 0; q = nextOfB[q]) {
+                if (pieces[4 * q + 2] == x1 && pieces[4 * q + 3] == y1) {
+                    pieceClass[p] = pieceClass[q] = SHARED_SAME;
+                    break;
+                }
+            }
+            if (pieceClass[p] >= 0)
+                continue;
+            int[] opposite = startsOfB.get(new PointKey(x1, y1));
+            for (int q = opposite == null ? -1 : opposite[0]; q >= 0; q = nextOfB[q]) {
+                if (pieces[4 * q + 2] == x0 && pieces[4 * q + 3] == y0) {
+                    pieceClass[p] = pieceClass[q] = SHARED_OPPOSITE;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Keep the pieces required by <tt>operation</tt> and chain them into rings
+     */
+    private Contours chain(int operation) {
+        // Kept pieces, possibly reversed: x0, y0, x1, y1
+        double[] kept = new double[4 * pieceCount];
+        int keptCount = 0;
+        for (int p = 0; p < pieceCount; p++) {
+            byte c = pieceClass[p];
+            boolean ofA = pieceEdge[p] < edgeCountA;
+            boolean keep;
+            boolean reverse = false;
+            switch (operation) {
+                case INTERSECTION:
+                    keep = c == INSIDE || (ofA && c == SHARED_SAME);
+                    break;
+                case UNION:
+                    keep = c == OUTSIDE || (ofA && c == SHARED_SAME);
+                    break;
+                default:
+                    keep = ofA ? c == OUTSIDE || c == SHARED_OPPOSITE : c == INSIDE;
+                    reverse = !ofA;
+            }
+            if (!keep)
+                continue;
+            int from = 4 * p, to = 4 * keptCount;
+            if (reverse) {
+                kept[to] = pieces[from + 2];
+                kept[to + 1] = pieces[from + 3];
+                kept[to + 2] = pieces[from];
+                kept[to + 3] = pieces[from + 1];
+            } else {
+                System.arraycopy(pieces, from, kept, to, 4);
+            }
+            keptCount++;
+        }
+        if (keptCount == 0)
+            return Contours.empty();
+
+        // Index pieces by their start
+        Map<PointKey, int[]> byStart = new HashMap<>(2 * keptCount);
+        int[] nextWithSameStart = new int[keptCount];
+        for (int p = keptCount - 1; p >= 0; p--) {
+            PointKey start = new PointKey(kept[4 * p], kept[4 * p + 1]);
+            int[] head = byStart.computeIfAbsent(start, k -> new int[]{-1});
+            nextWithSameStart[p] = head[0];
+            head[0] = p;
+        }
+
+        boolean[] used = new boolean[keptCount];
+        double[] xy = new double[2 * keptCount];
+        int vertexCount = 0;
+        int[] ringStarts = new int[8];
+        int ringCount = 0;
+        for (int first = 0; first < keptCount; first++) {
+            if (used[first])
+                continue;
+            int ringStart = vertexCount;
+            double startX = kept[4 * first], startY = kept[4 * first + 1];
+            int p = first;
+            while (p >= 0) {
+                used[p] = true;
+                xy[2 * vertexCount] = kept[4 * p];
+                xy[2 * vertexCount + 1] = kept[4 * p + 1];
+                vertexCount++;
+                double endX = kept[4 * p + 2], endY = kept[4 * p + 3];
+                if (endX == startX && endY == startY)
+                    break;
+                int[] head = byStart.get(new PointKey(endX, endY));
+                p = head == null ? -1 : head[0];
+                while (p >= 0 && used[p])
+                    p = nextWithSameStart[p];
+            }
+            if (vertexCount - ringStart < 3) {
+                // Degenerated
+                vertexCount = ringStart;
+                continue;
+            }
+            if (ringCount + 2 > ringStarts.length)
+                ringStarts = Arrays.copyOf(ringStarts, 2 * ringStarts.length);
+            ringStarts[ringCount++] = ringStart;
+        }
+        if (ringCount == 0)
+            return Contours.empty();
+        ringStarts[ringCount] = vertexCount;
+        return new Contours(
+                Arrays.copyOf(xy, 2 * vertexCount),
+                Arrays.copyOf(ringStarts, ringCount + 1),
+                a.unit);
+    }
+
+    /**
+     * Exact key of a point
+     */
+    private static final class PointKey {
+        private final double x, y;
+
+        private PointKey(double x, double y) {
+            // Adding 0 merges -0.0 into 0.0
+            this.x = x + 0.0;
+            this.y = y + 0.0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PointKey)) return false;
+            PointKey that = (PointKey) o;
+            return x == that.x && y == that.y;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Double.hashCode(x) + Double.hashCode(y);
+        }
+    }
+}
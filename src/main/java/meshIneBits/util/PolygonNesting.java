@@ -0,0 +1,207 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Containment forest of closed contours which do not cross each other, such
+ * as the boundaries of a slice. The depth of a contour is the number of
+ * contours around it: even depths are borders of matter, odd ones are holes.
+ * <br/>
+ * Contours are swept by the left side of their bounds. Only those whose
+ * bounds enclose each other are compared, with one containment test per
+ * candidate pair.
+ */
+public final class PolygonNesting {
+    private static final double EPS = 1e-9;
+
+    /**
+     * Containment test between two contours, given by their indices
+     */
+    @FunctionalInterface
+    public interface Containment {
+        /**
+         * @return <tt>true</tt> if contour <tt>outer</tt> contains contour
+         * <tt>inner</tt>
+         */
+        boolean test(int outer, int inner);
+    }
+
+    private final int[] depth;
+    private final int[] parent;
+
+    /**
+     * @param bounds      of each contour
+     * @param tolerance   how far an inner contour may stick out of the
+     *                    bounds of its container
+     * @param containment called once per pair of contours whose bounds enclose
+     *                    each other
+     */
+    public PolygonNesting(Rectangle2D[] bounds, double tolerance, Containment containment) {
+        int n = bounds.length;
+        depth = new int[n];
+        parent = new int[n];
+        Arrays.fill(parent, -1);
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++)
+            order[i] = i;
+        Arrays.sort(order, (i, j) -> Double.compare(bounds[i].getMinX(), bounds[j].getMinX()));
+
+        // Pairs (outer, inner)
+        List<int[]> containments = new ArrayList<>();
+        List<Integer> active = new ArrayList<>();
+        int next = 0;
+        for (int k = 0; k < n; k++) {
+            int inner = order[k];
+            Rectangle2D b = bounds[inner];
+            while (next < n && bounds[order[next]].getMinX() <= b.getMinX() + tolerance)
+                active.add(order[next++]);
+            // Contours ending before the sweep line cannot contain the next ones
+            for (Iterator<Integer> it = active.iterator(); it.hasNext(); )
+                if (bounds[it.next()].getMaxX() < b.getMinX() - tolerance)
+                    it.remove();
+            for (int outer : active) {
+                if (outer == inner) continue;
+                Rectangle2D a = bounds[outer];
+                if (a.getMinX() - tolerance <= b.getMinX() && b.getMaxX() <= a.getMaxX() + tolerance
+                        && a.getMinY() - tolerance <= b.getMinY() && b.getMaxY() <= a.getMaxY() + tolerance
+                        && containment.test(outer, inner)) {
+                    depth[inner]++;
+                    containments.add(new int[]{outer, inner});
+                }
+            }
+        }
+        // The direct container is the deepest one
+        for (int[] c : containments)
+            if (depth[c[0]] == depth[c[1]] - 1)
+                parent[c[1]] = c[0];
+    }
+
+    /**
+     * Nest the contours of shapes made of straight lines. A shape contains
+     * another if a vertex of the latter, away from its boundary, is inside it
+     *
+     * @param shapes each one may have several contours, taken with the
+     *               even-odd rule
+     * @return forest of the shapes
+     */
+    public static PolygonNesting of(List<? extends Shape> shapes) {
+        int n = shapes.size();
+        double[][] xy = new double[n][];
+        int[][] ringStarts = new int[n][];
+        Rectangle2D[] bounds = new Rectangle2D[n];
+        for (int i = 0; i < n; i++) {
+            Shape shape = shapes.get(i);
+            bounds[i] = shape.getBounds2D();
+            readRings(shape, i, xy, ringStarts);
+        }
+        return new PolygonNesting(bounds, EPS,
+                (outer, inner) -> contains(xy[outer], ringStarts[outer], xy[inner]));
+    }
+
+    private static void readRings(Shape shape, int index, double[][] xy, int[][] ringStarts) {
+        double[] coords = new double[6];
+        double[] points = new double[16];
+        int[] starts = new int[4];
+        int n = 0;
+        int rings = 0;
+        for (PathIterator pi = shape.getPathIterator(null); !pi.isDone(); pi.next()) {
+            int type = pi.currentSegment(coords);
+            if (type == PathIterator.SEG_CLOSE) continue;
+            if (type == PathIterator.SEG_MOVETO) {
+                if (rings + 1 >= starts.length) starts = Arrays.copyOf(starts, 2 * starts.length);
+                starts[rings++] = n / 2;
+            }
+            if (n + 2 > points.length) points = Arrays.copyOf(points, 2 * points.length);
+            points[n++] = coords[0];
+            points[n++] = coords[1];
+        }
+        starts[rings] = n / 2;
+        xy[index] = Arrays.copyOf(points, n);
+        ringStarts[index] = Arrays.copyOf(starts, rings + 1);
+    }
+
+    /**
+     * @return <tt>true</tt> if the first vertex of <tt>inner</tt> away from
+     * the boundary of <tt>outer</tt> is inside it. <tt>false</tt> if all
+     * vertices lie on that boundary
+     */
+    private static boolean contains(double[] outer, int[] ringStarts, double[] inner) {
+        for (int v = 0; v < inner.length; v += 2) {
+            double x = inner[v];
+            double y = inner[v + 1];
+            boolean inside = false;
+            boolean onBoundary = false;
+            for (int r = 0; r + 1 < ringStarts.length && !onBoundary; r++) {
+                int from = ringStarts[r];
+                int to = ringStarts[r + 1];
+                for (int i = from, j = to - 1; i < to; j = i++) {
+                    double xi = outer[2 * i], yi = outer[2 * i + 1];
+                    double xj = outer[2 * j], yj = outer[2 * j + 1];
+                    if (Contours.distance2(xj, yj, xi, yi, x, y) <= EPS * EPS) {
+                        onBoundary = true;
+                        break;
+                    }
+                    if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi)
+                        inside = !inside;
+                }
+            }
+            if (!onBoundary)
+                return inside;
+        }
+        return false;
+    }
+
+    public int size() {
+        return depth.length;
+    }
+
+    /**
+     * @return number of contours around contour <tt>i</tt>
+     */
+    public int getDepth(int i) {
+        return depth[i];
+    }
+
+    /**
+     * @return index of the contour directly around contour <tt>i</tt>.
+     * <tt>-1</tt> for outermost contours
+     */
+    public int getParent(int i) {
+        return parent[i];
+    }
+}
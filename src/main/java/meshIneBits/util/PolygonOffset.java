@@ -0,0 +1,212 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Offsetting of surfaces by a constant width, on the packed rings of
+ * {@link Contours}.
+ * <br/>
+ * The band swept along the boundary is built from simple pieces: one
+ * quadrilateral per edge on the offset side and one join per corner turning
+ * toward that side. All pieces are counterclockwise, so the non-zero
+ * winding rule merges them into their union whatever their overlaps. The
+ * band is then added to (or removed from) the surface. Concave corners,
+ * narrow parts and offsets larger than holes need no special case.
+ */
+public final class PolygonOffset {
+
+    public enum JoinType {
+        /**
+         * Extend neighbour edges until they meet, beveled beyond the miter
+         * limit
+         */
+        MITER,
+        /**
+         * Circular arcs around corners
+         */
+        ROUND
+    }
+
+    /**
+     * Maximal distance from an arc to its chords, relative to the width
+     */
+    private static final double ARC_TOLERANCE = 1e-3;
+
+    private PolygonOffset() {
+    }
+
+    /**
+     * @param area       target. Not modified
+     * @param width      in mm. Positive to enlarge, negative to shrink
+     * @param join       how corners are filled
+     * @param miterLimit longest miter, in widths. Only for {@link JoinType#MITER}
+     * @return a new area
+     */
+    public static Area offset(Area area, double width, JoinType join, double miterLimit) {
+        Area result = new Area(area);
+        if (width == 0 || area.isEmpty())
+            return result;
+        Area band = new Area(getBand(Contours.from(area, 0), width, join, miterLimit));
+        if (width > 0)
+            result.add(band);
+        else
+            result.subtract(band);
+        return result;
+    }
+
+    /**
+     * Offset several areas at once, in parallel
+     *
+     * @return offset areas, in the order of <tt>areas</tt>
+     * @see #offset(Area, double, JoinType, double)
+     */
+    public static List<Area> offsetAll(List<Area> areas, double width, JoinType join, double miterLimit) {
+        return areas.parallelStream()
+                .map(area -> offset(area, width, join, miterLimit))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return pieces covering the band of <tt>|width|</tt> along the boundary,
+     * on the outside if <tt>width</tt> is positive, inside otherwise
+     */
+    private static Path2D getBand(Contours contours, double width, JoinType join, double miterLimit) {
+        Path2D band = new Path2D.Double(Path2D.WIND_NON_ZERO);
+        double[] xy = contours.xy;
+        double w = Math.abs(width);
+        // Interior is on the left of rings, so the outside is on the right
+        double side = width > 0 ? 1 : -1;
+        double[] piece = new double[8];
+        for (int r = 0; r < contours.ringCount(); r++) {
+            int from = contours.ringStarts[r];
+            int to = contours.ringStarts[r + 1];
+            int n = to - from;
+            for (int k = 0; k < n; k++) {
+                int a = from + k;
+                int b = from + (k + 1) % n;
+                int c = from + (k + 2) % n;
+                double ax = xy[2 * a], ay = xy[2 * a + 1];
+                double bx = xy[2 * b], by = xy[2 * b + 1];
+                double cx = xy[2 * c], cy = xy[2 * c + 1];
+                double l1 = Math.hypot(bx - ax, by - ay);
+                if (l1 == 0) continue;
+                // Offset of edge ab
+                double ox1 = side * (by - ay) / l1 * w;
+                double oy1 = -side * (bx - ax) / l1 * w;
+                piece[0] = ax;
+                piece[1] = ay;
+                piece[2] = bx;
+                piece[3] = by;
+                piece[4] = bx + ox1;
+                piece[5] = by + oy1;
+                piece[6] = ax + ox1;
+                piece[7] = ay + oy1;
+                appendCounterclockwise(band, piece, 8);
+
+                // Join at b, if it turns toward the offset side
+                double l2 = Math.hypot(cx - bx, cy - by);
+                if (l2 == 0) continue;
+                double turn = (bx - ax) * (cy - by) - (by - ay) * (cx - bx);
+                if (turn * side <= 0) continue;
+                double ox2 = side * (cy - by) / l2 * w;
+                double oy2 = -side * (cx - bx) / l2 * w;
+                double[] joinPiece = join == JoinType.ROUND
+                        ? getArc(bx, by, ox1, oy1, ox2, oy2, w)
+                        : getMiter(bx, by, ox1, oy1, ox2, oy2, w, miterLimit);
+                appendCounterclockwise(band, joinPiece, joinPiece.length);
+            }
+        }
+        return band;
+    }
+
+    /**
+     * @return fan from <tt>(x, y)</tt> along the arc of radius <tt>w</tt> from
+     * offset <tt>(ox1, oy1)</tt> to offset <tt>(ox2, oy2)</tt>
+     */
+    private static double[] getArc(double x, double y, double ox1, double oy1, double ox2, double oy2, double w) {
+        double start = Math.atan2(oy1, ox1);
+        double sweep = Math.atan2(ox1 * oy2 - oy1 * ox2, ox1 * ox2 + oy1 * oy2);
+        double maxStep = 2 * Math.acos(1 - ARC_TOLERANCE);
+        int steps = Math.max(1, (int) Math.ceil(Math.abs(sweep) / maxStep));
+        double[] fan = new double[2 * (steps + 2)];
+        fan[0] = x;
+        fan[1] = y;
+        for (int i = 0; i <= steps; i++) {
+            double angle = start + sweep * i / steps;
+            fan[2 * i + 2] = x + w * Math.cos(angle);
+            fan[2 * i + 3] = y + w * Math.sin(angle);
+        }
+        // Exact ends, to meet the edge pieces
+        fan[2] = x + ox1;
+        fan[3] = y + oy1;
+        fan[fan.length - 2] = x + ox2;
+        fan[fan.length - 1] = y + oy2;
+        return fan;
+    }
+
+    /**
+     * @return quadrilateral from <tt>(x, y)</tt> to the meeting point of both
+     * offset edges, or triangle if that point is farther than
+     * <tt>miterLimit * w</tt>
+     */
+    private static double[] getMiter(double x, double y, double ox1, double oy1, double ox2, double oy2,
+                                     double w, double miterLimit) {
+        // Cosine of the angle between both offsets
+        double cos = (ox1 * ox2 + oy1 * oy2) / (w * w);
+        // The miter point is at w / cos(half angle) from the corner
+        if (2 / (1 + cos) > miterLimit * miterLimit)
+            return new double[]{x, y, x + ox1, y + oy1, x + ox2, y + oy2};
+        double k = 1 / (1 + cos);
+        return new double[]{
+                x, y,
+                x + ox1, y + oy1,
+                x + (ox1 + ox2) * k, y + (oy1 + oy2) * k,
+                x + ox2, y + oy2};
+    }
+
+    private static void appendCounterclockwise(Path2D path, double[] piece, int length) {
+        double area = 0;
+        for (int i = 0, j = length - 2; i < length; j = i, i += 2)
+            area += piece[j] * piece[i + 1] - piece[i] * piece[j + 1];
+        if (area == 0) return;
+        int n = length / 2;
+        for (int i = 0; i < n; i++) {
+            int v = area > 0 ? i : n - 1 - i;
+            if (i == 0) path.moveTo(piece[2 * v], piece[2 * v + 1]);
+            else path.lineTo(piece[2 * v], piece[2 * v + 1]);
+        }
+        path.closePath();
+    }
+}
@@ -34,6 +34,8 @@ import meshIneBits.config.CraftConfig;
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.Vector;
 
 /**
@@ -47,22 +49,24 @@ import java.util.Vector;
  * <br><img src="./doc-files/polygone.png" alt="">
  */
 public class Shape2D implements Iterable<Polygon>, Serializable {
+    private static final long serialVersionUID = 3047920316617626012L;
+
     private Vector<Segment2D> segmentList = new Vector<>();
     Vector<Polygon> polygons = new Vector<>();
-    private AABBTree<Segment2D> segmentTree = new AABBTree<>(); // The Tree2D allows a fast query of all objects in an area.
 
     protected Shape2D() {
 
     }
 
-    private void addModelPolygon(Polygon poly) {
+    /**
+     * @param poly    closed polygon
+     * @param removed collects the segments merged into their next one
+     */
+    private void addModelPolygon(Polygon poly, Set<Segment2D> removed) {
         for (Segment2D s : poly) {
             if (s.getNormal().dot(s.getNext().getNormal()) > CraftConfig.joinMinCosAngle) {
-                removeModelSegment(s);
-                Segment2D next = s.getNext();
-                segmentTree.remove(next);
+                removed.add(s);
                 poly.remove(s);
-                segmentTree.insert(next);
             }
         }
         this.addPolygon(poly);
@@ -72,7 +76,6 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
         if (segment.start.asGoodAsEqual(segment.end)) {
             return;
         }
-        segmentTree.insert(segment);
         segmentList.add(segment);
     }
 
@@ -88,6 +91,34 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
         return this.segmentList;
     }
 
+    /**
+     * @param source    shape whose polygons are copied into this one, not
+     *                  modified
+     * @param tolerance of {@link Polygon#simplify(double)}
+     */
+    protected void addSimplifiedPolygonsOf(Shape2D source, double tolerance) {
+        for (Polygon poly : source) {
+            Polygon simplified = poly.simplify(tolerance);
+            for (Segment2D s : simplified) {
+                segmentList.add(s);
+            }
+            addPolygon(simplified);
+        }
+    }
+
+    /**
+     * @return number of vertices of all polygons
+     */
+    public int getVertexCount() {
+        int count = 0;
+        for (Polygon poly : polygons) {
+            for (Segment2D ignored : poly) {
+                count++;
+            }
+        }
+        return count;
+    }
+
     @Override
     public Iterator<Polygon> iterator() {
         return polygons.iterator();
@@ -99,33 +130,19 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
      * @return if this process encounters an error
      */
     public boolean optimize() {
-
-        for (Segment2D s1 : segmentList) {
+        Segment2D[] segments = segmentList.toArray(new Segment2D[0]);
+        SegmentEndHash starts = new SegmentEndHash(segments, true);
+        SegmentEndHash ends = new SegmentEndHash(segments, false);
+        for (Segment2D s1 : segments) {
             if (s1.getPrev() == null) {
-                Segment2D best = null;
-                double bestDist2 = 0.01;
-                for (Segment2D s2 : segmentTree.query(new AABBrect(s1.start, s1.start))) {
-                    if ((s1 != s2) && (s2.getNext() == null) && s1.start.asGoodAsEqual(s2.end) && (s1.start.sub(s2.end).vSize2() < bestDist2)) {
-                        best = s2;
-                        bestDist2 = s1.start.sub(s2.end).vSize2();
-                        break;
-                    }
-                }
+                Segment2D best = ends.findFirstFree(s1.start, s1);
                 if (best != null) {
                     s1.start = best.end;
                     best.setNext(s1);
                 }
             }
             if (s1.getNext() == null) {
-                Segment2D best = null;
-                double bestDist2 = 0.01;
-                for (Segment2D s2 : segmentTree.query(new AABBrect(s1.end, s1.end))) {
-                    if ((s1 != s2) && (s2.getPrev() == null) && s1.end.asGoodAsEqual(s2.start) && (s1.end.sub(s2.start).vSize2() < bestDist2)) {
-                        best = s2;
-                        bestDist2 = s1.end.sub(s2.start).vSize2();
-                        break;
-                    }
-                }
+                Segment2D best = starts.findFirstFree(s1.end, s1);
                 if (best != null) {
                     s1.end = best.start;
                     s1.setNext(best);
@@ -133,23 +150,19 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
             }
         }
 
-        for (Segment2D s : segmentList) {
+        for (Segment2D s : segments) {
             if ((s.getPrev() != null) && (s.getPrev().getNext() != s)) {
                 throw new RuntimeException();
             }
             if ((s.getNext() != null) && (s.getNext().getPrev() != s)) {
                 throw new RuntimeException();
             }
-            if ((s.getNext() != null) && !segmentList.contains(s.getNext())) {
-                throw new RuntimeException();
-            }
-            if ((s.getPrev() != null) && !segmentList.contains(s.getPrev())) {
-                throw new RuntimeException();
-            }
         }
 
         boolean manifoldErrorReported = false;
-        HashSet<Segment2D> tmpSet = new HashSet<>(segmentList);
+        // Keep segment order, so polygons do not depend on hash codes
+        LinkedHashSet<Segment2D> tmpSet = new LinkedHashSet<>(segmentList);
+        Set<Segment2D> removed = new HashSet<>();
         while (tmpSet.size() > 0) {
             Segment2D start = tmpSet.iterator().next();
             boolean manifold = false;
@@ -168,7 +181,7 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
                 for (Segment2D s : poly) {
                     tmpSet.remove(s);
                 }
-                addModelPolygon(poly);
+                addModelPolygon(poly, removed);
             } else {
                 Logger.warning("Object not manifold");
 
@@ -181,11 +194,120 @@ public class Shape2D implements Iterable<Polygon>, Serializable {
             }
         }
 
+        segmentList.removeAll(removed);
+
         return false;
     }
 
-    private void removeModelSegment(Segment2D segment) {
-        segmentList.remove(segment);
-        segmentTree.remove(segment);
+    /**
+     * Hash of one end of segments, on a grid whose cells are twice
+     * <tt>10^-errorAccepted</tt> wide. Two points considered
+     * {@link Vector2#asGoodAsEqual(Vector2) as good as equal} always fall in
+     * the same or neighbouring cells.
+     */
+    private static class SegmentEndHash {
+        private final Segment2D[] segments;
+        private final boolean byStart;
+        private final double cellSize = 2 * Math.pow(10, -CraftConfig.errorAccepted);
+        private final long[] keys;
+        /**
+         * Index of first segment in cell, plus 1. 0 means empty
+         */
+        private final int[] heads;
+        /**
+         * Next segment in same cell, -1 if none
+         */
+        private final int[] next;
+        private final int mask;
+
+        /**
+         * @param segments to index. Ends must not move during the use
+         * @param byStart  <tt>true</tt> to index start points, otherwise
+         *                 end points
+         */
+        SegmentEndHash(Segment2D[] segments, boolean byStart) {
+            this.segments = segments;
+            this.byStart = byStart;
+            int capacity = Integer.highestOneBit(Math.max(segments.length, 1) * 2 - 1) << 1;
+            keys = new long[capacity];
+            heads = new int[capacity];
+            next = new int[segments.length];
+            mask = capacity - 1;
+            // Insert backward so that cells list segments in order
+            for (int i = segments.length - 1; i >= 0; i--) {
+                Vector2 p = endOf(segments[i]);
+                int slot = slotOf(key(cell(p.x), cell(p.y)), true);
+                next[i] = heads[slot] - 1;
+                heads[slot] = i + 1;
+            }
+        }
+
+        private Vector2 endOf(Segment2D s) {
+            return byStart ? s.start : s.end;
+        }
+
+        private boolean isFree(Segment2D s) {
+            return byStart ? s.getPrev() == null : s.getNext() == null;
+        }
+
+        private long cell(double coordinate) {
+            return (long) Math.floor(coordinate / cellSize);
+        }
+
+        private static long key(long cx, long cy) {
+            return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+        }
+
+        /**
+         * @param key    cell key
+         * @param insert whether to claim an empty slot
+         * @return slot of key, or -1 if absent and not inserted
+         */
+        private int slotOf(long key, boolean insert) {
+            int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+            while (heads[slot] != 0) {
+                if (keys[slot] == key) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (!insert) {
+                return -1;
+            }
+            keys[slot] = key;
+            return slot;
+        }
+
+        /**
+         * Find the first segment, in order of the list, whose indexed end is
+         * as good as equal to the point and not yet linked on that side.
+         *
+         * @param point   to match
+         * @param exclude segment to ignore
+         * @return <tt>null</tt> if none
+         */
+        Segment2D findFirstFree(Vector2 point, Segment2D exclude) {
+            long cx = cell(point.x);
+            long cy = cell(point.y);
+            int best = -1;
+            for (long dx = -1; dx <= 1; dx++) {
+                for (long dy = -1; dy <= 1; dy++) {
+                    int slot = slotOf(key(cx + dx, cy + dy), false);
+                    if (slot < 0) {
+                        continue;
+                    }
+                    for (int i = heads[slot] - 1; i >= 0 && (best < 0 || i < best); i = next[i]) {
+                        Segment2D s2 = segments[i];
+                        Vector2 end = endOf(s2);
+                        if (s2 != exclude && isFree(s2) && point.asGoodAsEqual(end)
+                                && point.sub(end).vSize2() < 0.01) {
+                            best = i;
+                            break;
+                        }
+                    }
+                }
+            }
+            return best < 0 ? null : segments[best];
+        }
     }
 }
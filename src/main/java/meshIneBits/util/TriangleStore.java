@@ -0,0 +1,201 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016-2021 DANIEL Laurent.
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas.
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package meshIneBits.util;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Packed storage of triangles as read from a STL file. The nine coordinates
+ * of each facet are laid out contiguously in a single <tt>double[]</tt> as
+ * <tt>x0 y0 z0 x1 y1 z1 x2 y2 z2</tt>, without any {@link Triangle} or
+ * {@link Vector3} object.
+ *
+ * @see IndexedMesh#weld(TriangleStore)
+ */
+public class TriangleStore implements Serializable {
+    private static final long serialVersionUID = 7461044576766848386L;
+
+    /**
+     * Number of coordinates stored per triangle
+     */
+    public static final int STRIDE = 9;
+
+    private double[] coordinates;
+    private int size;
+
+    public TriangleStore() {
+        this(16);
+    }
+
+    /**
+     * @param capacity expected number of triangles
+     */
+    public TriangleStore(int capacity) {
+        coordinates = new double[Math.max(capacity, 1) * STRIDE];
+    }
+
+    /**
+     * Wrap already packed coordinates without copying.
+     *
+     * @param coordinates packed coordinates, at least <tt>size * STRIDE</tt>
+     *                    long
+     * @param size        number of triangles
+     */
+    TriangleStore(double[] coordinates, int size) {
+        this.coordinates = coordinates;
+        this.size = size;
+    }
+
+    /**
+     * Append a triangle.
+     *
+     * @param x0 x of first vertex
+     * @param y0 y of first vertex
+     * @param z0 z of first vertex
+     * @param x1 x of second vertex
+     * @param y1 y of second vertex
+     * @param z1 z of second vertex
+     * @param x2 x of third vertex
+     * @param y2 y of third vertex
+     * @param z2 z of third vertex
+     */
+    public void add(double x0, double y0, double z0,
+                    double x1, double y1, double z1,
+                    double x2, double y2, double z2) {
+        ensureCapacity(size + 1);
+        int o = size * STRIDE;
+        coordinates[o] = x0;
+        coordinates[o + 1] = y0;
+        coordinates[o + 2] = z0;
+        coordinates[o + 3] = x1;
+        coordinates[o + 4] = y1;
+        coordinates[o + 5] = z1;
+        coordinates[o + 6] = x2;
+        coordinates[o + 7] = y2;
+        coordinates[o + 8] = z2;
+        size++;
+    }
+
+    /**
+     * Append all triangles of another store.
+     *
+     * @param other source
+     */
+    public void addAll(TriangleStore other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.coordinates, 0, coordinates, size * STRIDE, other.size * STRIDE);
+        size += other.size;
+    }
+
+    private void ensureCapacity(int triangles) {
+        if (triangles * STRIDE > coordinates.length) {
+            int capacity = Math.max(triangles, coordinates.length / STRIDE * 2);
+            coordinates = Arrays.copyOf(coordinates, capacity * STRIDE);
+        }
+    }
+
+    /**
+     * Release the unused capacity.
+     */
+    public void trimToSize() {
+        if (coordinates.length != size * STRIDE) {
+            coordinates = Arrays.copyOf(coordinates, size * STRIDE);
+        }
+    }
+
+    /**
+     * Remove all triangles, keeping the capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return number of triangles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Direct access to the packed coordinates. Only the first
+     * <tt>size() * STRIDE</tt> values are meaningful. Modifications are
+     * reflected in the store.
+     *
+     * @return backing array
+     */
+    public double[] getCoordinates() {
+        return coordinates;
+    }
+
+    public double getX(int triangle, int vertex) {
+        return coordinates[triangle * STRIDE + vertex * 3];
+    }
+
+    public double getY(int triangle, int vertex) {
+        return coordinates[triangle * STRIDE + vertex * 3 + 1];
+    }
+
+    public double getZ(int triangle, int vertex) {
+        return coordinates[triangle * STRIDE + vertex * 3 + 2];
+    }
+
+    /**
+     * Same as {@link Triangle#project2D(double)}, without materializing the
+     * triangle.
+     *
+     * @param triangle index
+     * @param layerZ   altitude of cut plane
+     * @return <tt>null</tt> if the triangle does not cross the plane
+     */
+    public Segment2D project2D(int triangle, double layerZ) {
+        int o = triangle * STRIDE;
+        Segment2D ret = IndexedMesh.project2D(coordinates, o, o + 3, o + 6, layerZ);
+        if (ret != null && (Double.isNaN(ret.start.x) || Double.isNaN(ret.end.x))) {
+            Logger.error("Error on triangle " + triangle + " on Z: " + layerZ);
+        }
+        return ret;
+    }
+
+    /**
+     * Receives the triangles of a file part by part, in file order.
+     */
+    @FunctionalInterface
+    public interface Receiver {
+        /**
+         * @param part next triangles. May be modified, not kept after the
+         *             call
+         * @throws IOException to stop reading
+         */
+        void receive(TriangleStore part) throws IOException;
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package slicer;
+
+import meshIneBits.Layer;
+import meshIneBits.Mesh;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.slicer.Slice;
+import meshIneBits.slicer.StreamingSlicer;
+import meshIneBits.slicer.SweepSlicer;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.Outline;
+import meshIneBits.util.Polygon;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SliceToolTest {
+
+    private static Logger logger = meshIneBits.util.Logger.createSimpleInstanceFor(SliceToolTest.class);
+
+    private static int TIME_LIMIT = 60;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "HoledBox.stl",
+            "Umbrella.stl"
+    })
+    void testParallelSameAsSequential(String modelFilename) throws Exception {
+        int parallelism = CraftConfig.slicerParallelism;
+        try {
+            CraftConfig.slicerParallelism = 1;
+            List<String> sequential = describe(slice(modelFilename).getSlices());
+            CraftConfig.slicerParallelism = 4;
+            List<String> parallel = describe(slice(modelFilename).getSlices());
+            logger.info(modelFilename + ": " + sequential.size() + " polygons");
+            assertEquals(sequential, parallel);
+        } finally {
+            CraftConfig.slicerParallelism = parallelism;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "HoledBox.stl",
+            "Umbrella.stl"
+    })
+    void testSweepSameAsSliceTool(String modelFilename) throws Exception {
+        Mesh mesh = slice(modelFilename);
+        Vector<Slice> slices = mesh.getSlices();
+        // Planes in descending order
+        double[] altitudes = new double[slices.size()];
+        for (int i = 0; i < altitudes.length; i++) {
+            altitudes[i] = slices.get(slices.size() - 1 - i).getAltitude();
+        }
+        Vector<Slice> swept = new SweepSlicer(mesh.getModel().getTriangles()).slice(altitudes);
+        Collections.reverse(swept);
+        assertEquals(describe(slices), describe(swept));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "Umbrella.stl"
+    })
+    void testResliceReusesUnmovedSlices(String modelFilename) throws Exception {
+        double layersOffset = CraftConfig.layersOffset;
+        try {
+            Mesh mesh = slice(modelFilename);
+            Slice first = mesh.getSlices().get(0);
+            CraftConfig.layersOffset = layersOffset + 1;
+            mesh.slice();
+            waitSliced(mesh);
+            // Only the first altitude does not move
+            assertSame(first, mesh.getSlices().get(0));
+            assertEquals(describe(slice(modelFilename).getSlices()), describe(mesh.getSlices()));
+        } finally {
+            CraftConfig.layersOffset = layersOffset;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "Umbrella.stl"
+    })
+    void testResliceAfterOptimizeSettingsChange(String modelFilename) throws Exception {
+        double joinMinCosAngle = CraftConfig.joinMinCosAngle;
+        try {
+            Mesh mesh = slice(modelFilename);
+            Slice first = mesh.getSlices().get(0);
+            CraftConfig.joinMinCosAngle = 0.95;
+            mesh.slice();
+            waitSliced(mesh);
+            assertNotSame(first, mesh.getSlices().get(0));
+            assertEquals(describe(slice(modelFilename).getSlices()), describe(mesh.getSlices()));
+        } finally {
+            CraftConfig.joinMinCosAngle = joinMinCosAngle;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "HoledBox.stl"
+    })
+    void testLargeFileImportedOutOfCore(String modelFilename) throws Exception {
+        double outOfCoreImportSize = CraftConfig.outOfCoreImportSize;
+        try {
+            List<String> expected = describe(slice(modelFilename).getSlices());
+            String path = this.getClass().getResource("/stlModel/" + modelFilename).getPath();
+            CraftConfig.outOfCoreImportSize = 1e-4;
+            Mesh mesh = new Mesh();
+            mesh.importModelFile(path);
+            assertTrue(mesh.isOutOfCore());
+            mesh.slice();
+            waitSliced(mesh);
+            assertEquals(expected, describe(mesh.getSlices()));
+
+            CraftConfig.outOfCoreImportSize = 0;
+            mesh.importModelFile(path);
+            assertFalse(mesh.isOutOfCore());
+        } finally {
+            CraftConfig.outOfCoreImportSize = outOfCoreImportSize;
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "HoledBox.stl",
+            "Umbrella.stl"
+    })
+    void testStreamingSameAsSliceTool(String modelFilename) throws Exception {
+        List<String> expected = describe(slice(modelFilename).getSlices());
+        String path = this.getClass().getResource("/stlModel/" + modelFilename).getPath();
+        assertEquals(expected, describe(new StreamingSlicer(path, StreamingSlicer.DEFAULT_MAX_BUFFERED_SEGMENTS).slice()));
+        // Spill to files many times
+        assertEquals(expected, describe(new StreamingSlicer(path, 50).slice()));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour.stl",
+            "Umbrella.stl"
+    })
+    void testLayersOnSimplifiedSlices(String modelFilename) throws Exception {
+        double tolerance = CraftConfig.simplificationTolerance;
+        try {
+            CraftConfig.simplificationTolerance = 0.05;
+            Mesh mesh = slice(modelFilename);
+            for (Layer layer : mesh.getLayers()) {
+                Slice raw = mesh.getSlices().get(layer.getLayerNumber());
+                Slice simplified = layer.getHorizontalSection();
+                assertNotSame(raw, simplified);
+                assertEquals(raw.getAltitude(), simplified.getAltitude());
+                assertTrue(simplified.getVertexCount() <= raw.getVertexCount());
+                // Every dropped vertex stays close to the new contours
+                Outline outline = Outline.from(AreaTool.getAreaFrom(simplified));
+                for (Polygon polygon : raw)
+                    for (Segment2D segment : polygon)
+                        assertTrue(outline.distanceTo(segment.start.x, segment.start.y) <= 0.05 + 1e-9);
+            }
+            CraftConfig.simplificationTolerance = 0;
+            mesh = slice(modelFilename);
+            assertSame(mesh.getSlices().get(0), mesh.getLayers().get(0).getHorizontalSection());
+        } finally {
+            CraftConfig.simplificationTolerance = tolerance;
+        }
+    }
+
+    /**
+     * Polygons of manifold models are those stitched before the endpoint
+     * hash, as saved in <tt>slices/</tt>
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "Tour",
+            "Umbrella"
+    })
+    void testStitchingKeepsPolygons(String modelName) throws Exception {
+        List<String> expected = readLines("/slices/" + modelName + ".txt");
+        assertEquals(expected, canonical(slice(modelName + ".stl").getSlices()));
+    }
+
+    /**
+     * In the layer where the hole of HoledBox touches the outer wall, the
+     * outer wall and the hole are stitched as two polygons
+     */
+    @Test
+    void testStitchingSplitsTouchingHole() throws Exception {
+        Vector<Slice> slices = new Vector<>();
+        for (Slice slice : slice("HoledBox.stl").getSlices())
+            if (slice.getAltitude() == 20.5)
+                slices.add(slice);
+        assertEquals(1, slices.size());
+        List<String> polygons = canonical(slices);
+        assertEquals(3, polygons.size());
+        assertEquals(readLines("/slices/HoledBoxTouchingHole.txt"), polygons);
+    }
+
+    private List<String> readLines(String resource) throws IOException, URISyntaxException {
+        return Files.readAllLines(Paths.get(this.getClass().getResource(resource).toURI()));
+    }
+
+    /**
+     * @return one line per polygon listing its vertices from the smallest
+     * one, sorted
+     */
+    private static List<String> canonical(Vector<Slice> slices) {
+        List<String> lines = new ArrayList<>();
+        for (Slice slice : slices) {
+            for (Polygon polygon : slice) {
+                List<Vector2> vertices = new ArrayList<>();
+                for (Segment2D segment : polygon)
+                    vertices.add(segment.start);
+                int first = 0;
+                for (int i = 1; i < vertices.size(); i++) {
+                    Vector2 v = vertices.get(i);
+                    Vector2 min = vertices.get(first);
+                    if (v.x < min.x || v.x == min.x && v.y < min.y)
+                        first = i;
+                }
+                StringBuilder line = new StringBuilder().append(slice.getAltitude()).append(':');
+                for (int i = 0; i < vertices.size(); i++) {
+                    Vector2 v = vertices.get((first + i) % vertices.size());
+                    line.append(' ').append(v.x).append(',').append(v.y);
+                }
+                lines.add(line.toString());
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * Import and slice a model
+     *
+     * @param modelFilename in test resource
+     * @return sliced mesh
+     */
+    private Mesh slice(String modelFilename) throws Exception {
+        Mesh mesh = new Mesh();
+        mesh.importModel(this.getClass().getResource("/stlModel/" + modelFilename).getPath());
+        mesh.slice();
+        waitSliced(mesh);
+        return mesh;
+    }
+
+    private static void waitSliced(Mesh mesh) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIME_LIMIT * 1000;
+        while (!mesh.isSliced()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Cannot wait till the end of slicing");
+            Thread.sleep(100);
+        }
+    }
+
+    /**
+     * @return one line per polygon, listing its segments
+     */
+    private static List<String> describe(Vector<Slice> slices) {
+        List<String> lines = new Vector<>();
+        for (Slice slice : slices) {
+            for (Polygon polygon : slice) {
+                StringBuilder line = new StringBuilder().append(slice.getAltitude()).append(':');
+                for (Segment2D segment : polygon) {
+                    line.append(' ').append(segment.start).append(segment.end);
+                }
+                lines.add(line.toString());
+            }
+        }
+        return lines;
+    }
+}
@@ -31,15 +31,23 @@ package utils;
 import meshIneBits.Mesh;
 import meshIneBits.slicer.Slice;
 import meshIneBits.util.AreaTool;
+import meshIneBits.util.ClearanceField;
+import meshIneBits.util.Outline;
+import meshIneBits.util.PolygonNesting;
+import meshIneBits.util.Segment2D;
+import meshIneBits.util.Vector2;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.awt.geom.Area;
+import java.awt.geom.Path2D;
 import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
@@ -47,6 +55,7 @@ import java.util.List;
 import java.util.Vector;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -167,6 +176,160 @@ class AreaToolTest {
         logger.info("Success");
     }
 
+    @Test
+    void testGetLiftPoint() {
+        // U shape: the barycenter falls in the notch
+        Area u = new Area(new Rectangle2D.Double(0, 0, 120, 40));
+        u.subtract(new Area(new Rectangle2D.Double(20, 10, 80, 30.5)));
+        // Bit cut by holes around its center
+        Area holed = new Area(new Rectangle2D.Double(0.3, 0.7, 160, 23));
+        holed.subtract(new Area(new Rectangle2D.Double(60, 5, 40, 10)));
+        holed.subtract(new Area(new Rectangle2D.Double(120.5, 0, 3, 23.7)));
+        for (Area area : List.of(u, holed)) {
+            for (double radius : new double[]{2, 5, 8, 12}) {
+                Vector2 expected = scanLiftPoint(area, radius);
+                Vector2 actual = AreaTool.getLiftPoint(area, radius);
+                if (expected == null) {
+                    assertNull(actual, "radius=" + radius);
+                } else {
+                    assertNotNull(actual, "radius=" + radius);
+                    assertEquals(expected.x, actual.x, "radius=" + radius);
+                    assertEquals(expected.y, actual.y, "radius=" + radius);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testConvexHullAndDiameter() {
+        // L shape: the inner corner is not on the hull
+        Area l = new Area(new Rectangle2D.Double(0, 0, 30, 10));
+        l.add(new Area(new Rectangle2D.Double(0, 0, 10, 40)));
+        Vector<Vector2> hull = AreaTool.getConvexHull(l);
+        assertEquals(5, hull.size());
+        assertFalse(hull.stream().anyMatch(v -> v.x == 10 && v.y == 10));
+        Vector<Vector2> farthest = AreaTool.getTwoMostDistantPointFromArea(l);
+        assertNotNull(farthest);
+        assertEquals(Math.hypot(30, 40), Math.sqrt(Vector2.dist2(farthest.get(0), farthest.get(1))), 1e-9);
+
+        assertTrue(AreaTool.getConvexHull(new Area()).isEmpty());
+        assertNull(AreaTool.getTwoMostDistantPointFromArea(new Area()));
+    }
+
+    @Test
+    void testClearanceField() {
+        Area area = new Area(new Rectangle2D.Double(0, 0, 10, 10));
+        area.subtract(new Area(new Rectangle2D.Double(0, 0, 3, 3)));
+        ClearanceField field = new ClearanceField(area, 1);
+        assertEquals(11, field.getColumnCount());
+        assertEquals(11, field.getRowCount());
+        assertEquals(4, field.getClearance(6, 6), 1e-9);
+        assertTrue(Double.isNaN(field.getClearance(1, 1)));
+        assertTrue(field.fits(5, 5, 2));
+        assertFalse(field.fits(5, 5, 6));
+        assertFalse(field.fits(1, 1, 0));
+        for (int i = 0; i < field.getColumnCount(); i++)
+            for (int j = 0; j < field.getRowCount(); j++)
+                assertEquals(AreaTool.checkPointInsideAreaWithRadius(field.getX(i), field.getY(j), area, 2),
+                        field.fits(i, j, 2));
+    }
+
+    @Test
+    void testOutline() {
+        // Repeated vertex gives a null edge, which is dropped
+        Path2D square = new Path2D.Double();
+        square.moveTo(0, 0);
+        square.lineTo(10, 0);
+        square.lineTo(10, 0);
+        square.lineTo(10, 10);
+        square.lineTo(0, 10);
+        square.closePath();
+        Outline outline = Outline.from(square);
+        assertEquals(1, outline.ringCount());
+        assertEquals(4, outline.edgeCount());
+        // Same edges, order and direction as segments
+        assertEquals(0, outline.startX(0));
+        assertEquals(0, outline.startY(0));
+        assertEquals(0, outline.endX(0));
+        assertEquals(10, outline.endY(0));
+        assertEquals(3, outline.distanceTo(3, 5), 1e-9);
+        assertEquals(5, outline.distanceTo(13, 14), 1e-9);
+
+        Area area = new Area(new Rectangle2D.Double(0, 0, 30, 20));
+        area.subtract(new Area(new Rectangle2D.Double(5, 5, 4, 4)));
+        area.add(new Area(new Rectangle2D.Double(40, 0, 5, 5)));
+        outline = Outline.from(area);
+        Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
+        assertEquals(segments.size(), outline.ringCount());
+        for (int r = 0; r < outline.ringCount(); r++) {
+            assertEquals(segments.get(r).size(), outline.ringEnd(r) - outline.ringStart(r));
+            for (int e = outline.ringStart(r); e < outline.ringEnd(r); e++) {
+                Segment2D segment = segments.get(r).get(e - outline.ringStart(r));
+                assertEquals(segment.start.x, outline.startX(e));
+                assertEquals(segment.start.y, outline.startY(e));
+                assertEquals(segment.end.x, outline.endX(e));
+                assertEquals(segment.end.y, outline.endY(e));
+            }
+        }
+        assertEquals(0, Outline.from(new Area()).ringCount());
+    }
+
+    @Test
+    void testPolygonNesting() {
+        List<Area> areas = List.of(
+                new Area(new Rectangle2D.Double(2, 2, 6, 6)), // hole
+                new Area(new Rectangle2D.Double(0, 0, 10, 10)), // outer
+                new Area(new Rectangle2D.Double(20, 0, 5, 5)), // apart
+                new Area(new Rectangle2D.Double(4, 4, 2, 2)), // island in hole
+                new Area(new Rectangle2D.Double(0, 0, 1, 1))); // hole touching outer
+        PolygonNesting nesting = PolygonNesting.of(areas);
+        assertArrayEquals(new int[]{1, 0, 0, 2, 1},
+                IntStream.range(0, 5).map(nesting::getDepth).toArray());
+        assertArrayEquals(new int[]{1, -1, -1, 0, 1},
+                IntStream.range(0, 5).map(nesting::getParent).toArray());
+    }
+
+    /**
+     * Reference: closest point of the 1mm lattice to the barycenter holding the
+     * sucker cup, by exhaustive scan. Only used when the barycenter does not
+     * fit
+     */
+    private static Vector2 scanLiftPoint(Area area, double minRadius) {
+        Vector<Vector<Segment2D>> segments = AreaTool.getSegmentsFrom(area);
+        Vector2 barycenter = centroidOf(AreaTool.getLargestPolygon(area));
+        Rectangle2D bounds = area.getBounds2D();
+        Vector2 best = null;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (double x = bounds.getMinX(); x <= bounds.getMaxX(); x += 1) {
+            for (double y = bounds.getMinY(); y <= bounds.getMaxY(); y += 1) {
+                Vector2 p = new Vector2(x, y);
+                if (!area.contains(x, y)) continue;
+                double distance = Math.sqrt(Vector2.dist2(p, barycenter));
+                if (distance >= bestDistance) continue;
+                boolean fits = segments.stream()
+                        .flatMap(Vector::stream)
+                        .allMatch(segment -> segment.distFromPoint(p) >= minRadius);
+                if (fits) {
+                    best = p;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static Vector2 centroidOf(Vector<Segment2D> polygon) {
+        double cx = 0, cy = 0, signedArea = 0;
+        for (Segment2D s : polygon) {
+            double a = s.start.x * s.end.y - s.end.x * s.start.y;
+            signedArea += a;
+            cx += (s.start.x + s.end.x) * a;
+            cy += (s.start.y + s.end.y) * a;
+        }
+        signedArea *= 0.5;
+        return new Vector2(cx / (6 * signedArea), cy / (6 * signedArea));
+    }
+
     /**
      * Read areaSample.json and parse
      *
@@ -0,0 +1,159 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Model;
+import meshIneBits.util.AsciiSTLReader;
+import meshIneBits.util.IndexedMesh;
+import meshIneBits.util.TriangleStore;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AsciiSTLReaderTest {
+
+    private static final String[] NUMBER_FORMATS = {"%s", "%.6e", "%.3f", "%.17g", "%.0f", "%.12E"};
+
+    /**
+     * Reference reader, as ascii STL were read line by line
+     */
+    private static double[] readLineByLine(File file) throws IOException {
+        double[] coordinates = new double[0];
+        int size = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                line = line.trim();
+                if (line.startsWith("vertex")) {
+                    String[] parts = line.split(" +");
+                    if (size + 3 > coordinates.length)
+                        coordinates = java.util.Arrays.copyOf(coordinates, coordinates.length * 2 + 3);
+                    coordinates[size++] = Double.parseDouble(parts[1]);
+                    coordinates[size++] = Double.parseDouble(parts[2]);
+                    coordinates[size++] = Double.parseDouble(parts[3]);
+                }
+            }
+        }
+        return java.util.Arrays.copyOf(coordinates, size / TriangleStore.STRIDE * TriangleStore.STRIDE);
+    }
+
+    private static void assertSameTriangles(double[] expected, TriangleStore actual) {
+        assertEquals(expected.length / TriangleStore.STRIDE, actual.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(Double.doubleToLongBits(expected[i]), Double.doubleToLongBits(actual.getCoordinates()[i]),
+                    "Coordinate " + i + " differs: " + expected[i] + " vs " + actual.getCoordinates()[i]);
+        }
+    }
+
+    @Test
+    void testUnusualNumbersAndLayout() throws IOException {
+        File file = File.createTempFile("ascii", ".stl");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            w.write("solid unusual\r\n");
+            w.write("  facet normal 0 0 1\r\n    outer loop\r\n");
+            w.write("\tvertex   1 +2.5 -0\r\n");
+            w.write("vertex .5 5. 1e3\n");
+            w.write("      vertex 1.0000000000000002 123456789012345678 4.9e-324   \r\n");
+            w.write("    endloop\n  endfacet\n");
+            w.write("facet normal 0 0 1\router loop\r");
+            w.write("vertex 1E+22 1e23 -3.14159265358979323846\r");
+            w.write("vertex 0.1 0.2 0.30000000000000004\r");
+            w.write("vertex 1.0f 0x1.8p1 1e-22 extra\r");
+            w.write("endloop\rendfacet\r");
+            // Dangling vertex, ignored
+            w.write("vertex 7 8 9\n");
+            w.write("endsolid unusual\n");
+        }
+        double[] expected = readLineByLine(file);
+        assertSameTriangles(expected, AsciiSTLReader.read(file.getPath()));
+        TriangleStore streamed = new TriangleStore();
+        AsciiSTLReader.stream(file.getPath(), streamed::addAll);
+        assertSameTriangles(expected, streamed);
+    }
+
+    @Test
+    void testLargeFileInSeveralChunks() throws IOException {
+        File file = File.createTempFile("ascii", ".stl");
+        file.deleteOnExit();
+        Random random = new Random(42);
+        try (Writer w = new BufferedWriter(new FileWriter(file))) {
+            w.write("solid large\n");
+            for (int i = 0; i < 40000; i++) {
+                w.write("  facet normal 0 0 1\n    outer loop\n");
+                for (int v = 0; v < 3; v++) {
+                    w.write("      vertex");
+                    for (int c = 0; c < 3; c++) {
+                        double value = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(8) - 2);
+                        String format = NUMBER_FORMATS[random.nextInt(NUMBER_FORMATS.length)];
+                        w.write(" " + (format.equals("%s") ? String.valueOf(value) : String.format(Locale.ROOT, format, value)));
+                    }
+                    w.write("\n");
+                }
+                w.write("    endloop\n  endfacet\n");
+            }
+            w.write("endsolid large\n");
+        }
+        assertSameTriangles(readLineByLine(file), AsciiSTLReader.read(file.getPath()));
+    }
+
+    @Test
+    void testSameAsBinary() throws Exception {
+        Model binary = new Model(this.getClass().getResource("/stlModel/Tour.stl").getPath());
+        IndexedMesh triangles = binary.getTriangles();
+        File file = File.createTempFile("tour", ".stl");
+        file.deleteOnExit();
+        try (Writer w = new FileWriter(file)) {
+            w.write("solid tour\n");
+            for (int t = 0; t < triangles.size(); t++) {
+                w.write("facet normal 0 0 0\nouter loop\n");
+                for (int v = 0; v < 3; v++) {
+                    w.write("vertex " + triangles.getX(t, v) + " " + triangles.getY(t, v)
+                            + " " + triangles.getZ(t, v) + "\n");
+                }
+                w.write("endloop\nendfacet\n");
+            }
+            w.write("endsolid tour\n");
+        }
+        IndexedMesh ascii = new Model(file.getPath()).getTriangles();
+        assertEquals(triangles.size(), ascii.size());
+        assertEquals(triangles.getVertexCount(), ascii.getVertexCount());
+        for (int t = 0; t < triangles.size(); t++) {
+            for (int v = 0; v < 3; v++) {
+                assertEquals(triangles.getX(t, v), ascii.getX(t, v));
+                assertEquals(triangles.getY(t, v), ascii.getY(t, v));
+                assertEquals(triangles.getZ(t, v), ascii.getZ(t, v));
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Bit2D;
+import meshIneBits.Bit3D;
+import meshIneBits.Layer;
+import meshIneBits.Mesh;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Shape;
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Geometry of {@link Bit2D} in {@link Mesh} coordinate system is cached. Every
+ * change of the bit must refresh it
+ */
+class Bit2DTest {
+
+    private Bit2D bit;
+
+    @BeforeEach
+    void setUp() {
+        bit = new Bit2D(new Vector2(10, 20), new Vector2(1, 1).normal());
+    }
+
+    @Test
+    void testUpdateBoundariesRefreshesGeometry() {
+        String before = describe(bit);
+        bit.updateBoundaries(halfOf(bit));
+        assertFresh(bit);
+        assertNotEquals(before, describe(bit));
+    }
+
+    @Test
+    void testResizeRefreshesGeometry() {
+        String before = describe(bit);
+        bit.resize(50, 50);
+        assertFresh(bit);
+        assertNotEquals(before, describe(bit));
+    }
+
+    @Test
+    void testSetCutPathsRefreshesGeometry() {
+        bit.updateBoundaries(halfOf(bit));
+        bit.calcCutPath();
+        String before = describe(bit);
+        Path2D path = new Path2D.Double();
+        path.moveTo(-10, -5);
+        path.lineTo(10, 5);
+        Vector<Path2D> cutPaths = new Vector<>();
+        cutPaths.add(path);
+        bit.setCutPaths(cutPaths);
+        assertFresh(bit);
+        assertNotEquals(before, describe(bit));
+    }
+
+    @Test
+    void testCalcCutPathRefreshesGeometry() {
+        bit.updateBoundaries(halfOf(bit));
+        String before = describe(bit);
+        bit.calcCutPath();
+        assertFresh(bit);
+        assertNotEquals(before, describe(bit));
+    }
+
+    @Test
+    void testInverseCutPathRefreshesGeometry() throws Exception {
+        Mesh mesh = Mesh.open(new File(this.getClass().getResource("/stlModel/TourLegacy.mesh").getPath()));
+        Bit3D bit3D = null;
+        for (Layer layer : mesh.getLayers()) {
+            for (Vector2 key : layer.getBits3dKeys()) {
+                Vector<Path2D> cutPaths = layer.getBit3D(key).getBaseBit().getCutPaths();
+                if (bit3D == null && cutPaths != null && !cutPaths.isEmpty())
+                    bit3D = layer.getBit3D(key);
+            }
+        }
+        assertNotNull(bit3D);
+        Bit2D base = bit3D.getBaseBit();
+        String before = describe(base);
+        bit3D.inverseCutPath();
+        assertFresh(base);
+        assertNotEquals(before, describe(base));
+    }
+
+    /**
+     * @return half of the bit, in {@link Mesh} coordinate system
+     */
+    private static Area halfOf(Bit2D bit) {
+        Area half = (Area) bit.getArea().clone();
+        Rectangle2D bounds = bit.getBounds2D();
+        half.intersect(new Area(new Rectangle2D.Double(bounds.getX(), bounds.getY(),
+                bounds.getWidth() / 2, bounds.getHeight())));
+        return half;
+    }
+
+    /**
+     * Compare the cached geometry of <tt>bit</tt> with that of a clone, which
+     * computes it again
+     */
+    private static void assertFresh(Bit2D bit) {
+        Bit2D copy = bit.clone();
+        assertEquals(describe(copy), describe(bit));
+        assertEquals(copy.getBounds2D(), bit.getBounds2D());
+        // Cached from now on
+        assertSame(bit.getArea(), bit.getArea());
+        assertSame(bit.getAreas(), bit.getAreas());
+        assertSame(bit.getCutPaths(), bit.getCutPaths());
+        assertSame(bit.getBounds2D(), bit.getBounds2D());
+    }
+
+    /**
+     * Read every cached geometry of the bit
+     *
+     * @return segments of its area, sub-areas and cut paths
+     */
+    private static String describe(Bit2D bit) {
+        List<Shape> shapes = new ArrayList<>();
+        shapes.add(bit.getArea());
+        shapes.addAll(bit.getAreas());
+        if (bit.getCutPaths() != null)
+            shapes.addAll(bit.getCutPaths());
+        StringBuilder description = new StringBuilder().append(bit.getBounds2D());
+        double[] coords = new double[6];
+        for (Shape shape : shapes) {
+            description.append('\n');
+            for (PathIterator pi = shape.getPathIterator(null); !pi.isDone(); pi.next()) {
+                int type = pi.currentSegment(coords);
+                description.append(type);
+                for (int i = 0; i < (type == PathIterator.SEG_CLOSE ? 0 : 2); i++)
+                    description.append(' ').append(coords[i]);
+                description.append(';');
+            }
+        }
+        return description.toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Bit2D;
+import meshIneBits.Bit3D;
+import meshIneBits.Layer;
+import meshIneBits.Mesh;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Lift points, grip points and angles of {@link Bit3D} are computed on first
+ * read or on {@link Bit3D#prefetch()}. They should be those once computed by
+ * the constructor
+ */
+class Bit3DTest {
+
+    private static int TIME_LIMIT = 60;
+
+    private double distanceFieldResolution;
+    private Layer layer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Keeps the bits lying inside untrimmed
+        distanceFieldResolution = CraftConfig.distanceFieldResolution;
+        CraftConfig.distanceFieldResolution = 1;
+        Mesh mesh = new Mesh();
+        mesh.importModel(this.getClass().getResource("/stlModel/Tour.stl").getPath());
+        mesh.slice();
+        long deadline = System.currentTimeMillis() + TIME_LIMIT * 1000;
+        while (!mesh.isSliced()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Cannot wait till the end of slicing");
+            Thread.sleep(100);
+        }
+        layer = mesh.getLayers().get(0);
+
+        // Bits all over the layer, some of them resized
+        Rectangle2D bounds = layer.getHorizontalArea().getBounds2D();
+        List<Bit2D> bits = new ArrayList<>();
+        for (double x = bounds.getMinX(); x < bounds.getMaxX() + CraftConfig.lengthFull; x += CraftConfig.lengthFull / 2)
+            for (double y = bounds.getMinY(); y < bounds.getMaxY() + CraftConfig.bitWidth; y += CraftConfig.bitWidth * 1.5) {
+                Bit2D bit = new Bit2D(new Vector2(x, y), new Vector2(1, 0));
+                if (bits.size() % 3 == 1)
+                    bit.resize(50, 100);
+                bits.add(bit);
+            }
+        layer.setFlatPavement(new Pavement(bits));
+    }
+
+    @AfterEach
+    void tearDown() {
+        CraftConfig.distanceFieldResolution = distanceFieldResolution;
+    }
+
+    @Test
+    void testComputedOnRead() {
+        layer.rebuild();
+        List<Bit3D> bits = layer.getAllBit3D();
+        assertBitKinds(bits);
+        for (Bit3D bit : bits)
+            assertAsConstructed(bit);
+    }
+
+    @Test
+    void testComputedOnPrefetch() {
+        layer.rebuild();
+        List<Bit3D> bits = layer.getAllBit3D();
+        Bit3D.prefetch(bits);
+        for (Bit3D bit : bits)
+            assertAsConstructed(bit);
+        assertBitKinds(bits);
+        // Prefetching again changes nothing
+        List<String> described = new ArrayList<>();
+        for (Bit3D bit : bits)
+            described.add(describe(bit));
+        Bit3D.prefetch(bits);
+        for (int i = 0; i < bits.size(); i++)
+            assertEquals(described.get(i), describe(bits.get(i)));
+    }
+
+    /**
+     * The bits should cover several untrimmed bits, sharing their lift point,
+     * trimmed bits of both sizes and irregular bits
+     */
+    private static void assertBitKinds(List<Bit3D> bits) {
+        int untrimmed = 0;
+        boolean trimmedFull = false;
+        boolean trimmedResized = false;
+        boolean irregular = false;
+        for (Bit3D bit : bits) {
+            Bit2D base = bit.getBaseBit();
+            if (base.isUntrimmed())
+                untrimmed++;
+            else if (base.isFullSize())
+                trimmedFull = true;
+            else
+                trimmedResized = true;
+            irregular |= bit.isIrregular();
+        }
+        assertTrue(untrimmed > 1);
+        assertTrue(trimmedFull);
+        assertTrue(trimmedResized);
+        assertTrue(irregular);
+    }
+
+    /**
+     * Compare a bit with the computation its constructor used to do
+     */
+    private static void assertAsConstructed(Bit3D bit) {
+        Bit2D base = bit.getBaseBit();
+        StringBuilder rawLiftPoints = new StringBuilder();
+        StringBuilder liftPoints = new StringBuilder();
+        boolean irregular = false;
+        Vector<Vector<Vector2>> listTwoDistantPoints = new Vector<>();
+        for (Area area : base.getRawAreas()) {
+            Vector2 liftPoint = AreaTool.getLiftPoint(area, CraftConfig.suckerDiameter / 2);
+            if (liftPoint != null) {
+                rawLiftPoints.append(liftPoint).append(' ');
+                liftPoints.append(liftPoint.getTransformed(base.getTransfoMatrix())).append(' ');
+            } else {
+                irregular = true;
+            }
+            Vector<Vector2> twoDistantPoints = AreaTool.defineTwoPointNearTwoMostDistantPointsInAreaWithRadius(
+                    area, CraftConfig.suckerDiameter / 4);
+            if (twoDistantPoints != null)
+                listTwoDistantPoints.add(twoDistantPoints);
+        }
+        StringBuilder angles = new StringBuilder();
+        for (Vector<Vector2> twoDistantPoints : listTwoDistantPoints) {
+            if (twoDistantPoints.size() > 0) {
+                Vector2 first = twoDistantPoints.firstElement();
+                Vector2 last = twoDistantPoints.lastElement();
+                angles.append(Vector2.calcAngleBetweenVectorAndAxeX(new Vector2(last.x - first.x, last.y - first.y)));
+            } else {
+                angles.append((Object) null);
+            }
+            angles.append(' ');
+        }
+
+        assertEquals(rawLiftPoints.toString(), join(bit.getRawLiftPoints()));
+        assertEquals(liftPoints.toString(), join(bit.getLiftPoints()));
+        assertEquals(irregular, bit.isIrregular());
+        assertEquals(listTwoDistantPoints.toString(), bit.getListTwoDistantPoints().toString());
+        assertEquals(angles.toString(), join(bit.getListAngles()));
+    }
+
+    private static String join(List<?> list) {
+        StringBuilder joined = new StringBuilder();
+        for (Object o : list)
+            joined.append(o).append(' ');
+        return joined.toString();
+    }
+
+    private static String describe(Bit3D bit) {
+        return join(bit.getRawLiftPoints()) + join(bit.getLiftPoints()) + bit.isIrregular()
+                + bit.getListTwoDistantPoints() + join(bit.getListAngles());
+    }
+}
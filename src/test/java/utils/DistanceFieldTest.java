@@ -0,0 +1,118 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package utils;
+
+
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.DistanceField;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistanceFieldTest {
+
+    @Test
+    void testRectangleWithHole() {
+        Area area = new Area(new Rectangle2D.Double(0, 0, 40, 20));
+        area.subtract(new Area(new Rectangle2D.Double(10, 5, 10, 10)));
+        DistanceField field = new DistanceField(area, 1);
+        assertEquals(1, field.getResolution());
+        assertTrue(field.contains(5, 10));
+        assertFalse(field.contains(15, 10));
+        assertFalse(field.contains(-3, 10));
+        assertEquals(5, field.getDistance(5, 10), 1e-9);
+        assertEquals(-5, field.getDistance(15, 10), 1e-9);
+        assertEquals(-100, field.getDistance(-100, 10), 1e-9);
+        assertTrue(field.fitsInside(30, 10, 10));
+        assertFalse(field.fitsInside(30, 10, 10.5));
+        assertTrue(field.fitsOutside(15, 10, 5));
+        assertFalse(field.fitsOutside(15, 10, 5.5));
+        assertTrue(field.surelyContains(new Rectangle2D.Double(25, 5, 10, 10)));
+        assertFalse(field.surelyContains(new Rectangle2D.Double(15, 5, 10, 10)));
+        assertTrue(field.surelyExcludes(new Rectangle2D.Double(50, 0, 10, 10)));
+        assertFalse(field.surelyExcludes(new Rectangle2D.Double(35, 0, 10, 10)));
+    }
+
+    @Test
+    void testSameAsExactQueries() {
+        Area area = new Area(new Rectangle2D.Double(0, 0, 60, 30));
+        area.subtract(new Area(new Rectangle2D.Double(10, 10, 7.3, 9.1)));
+        area.add(new Area(new Rectangle2D.Double(50, 25, 30, 4)));
+        DistanceField field = new DistanceField(area, 0.7);
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            // Many on the border and on nodes
+            double x = i % 3 == 0 ? Math.rint(random.nextDouble() * 100 - 10) : random.nextDouble() * 100 - 10;
+            double y = i % 5 == 0 ? 10 : random.nextDouble() * 50 - 10;
+            double radius = random.nextDouble() * 8;
+            assertEquals(area.contains(x, y), field.contains(x, y), x + ", " + y);
+            assertEquals(AreaTool.checkPointInsideAreaWithRadius(x, y, area, radius),
+                    field.fitsInside(x, y, radius), x + ", " + y);
+        }
+    }
+
+    @Test
+    void testRotatedRectangles() {
+        Area area = new Area(new Rectangle2D.Double(0, 0, 200, 60));
+        area.subtract(new Area(new Rectangle2D.Double(120, 45, 10, 10)));
+        DistanceField field = new DistanceField(area, 5);
+        Rectangle2D bit = new Rectangle2D.Double(-80, -11.5, 160, 23);
+        // Too long for the circle around it, not for the pieces
+        assertFalse(field.surelyContains(AffineTransform.getTranslateInstance(100, 20)
+                .createTransformedShape(bit).getBounds2D()));
+        assertTrue(field.surelyContains(bit, AffineTransform.getTranslateInstance(100, 20)));
+        assertFalse(field.surelyContains(bit, AffineTransform.getTranslateInstance(100, 38)));
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            AffineTransform transform = AffineTransform.getTranslateInstance(
+                    random.nextDouble() * 200, random.nextDouble() * 60);
+            transform.rotate(random.nextDouble() * 2 * Math.PI);
+            Rectangle2D rectangle = new Rectangle2D.Double(-20, -5, 10 + random.nextDouble() * 60, 10);
+            if (field.surelyContains(rectangle, transform)) {
+                Area outside = new Area(transform.createTransformedShape(rectangle));
+                outside.subtract(area);
+                assertTrue(outside.isEmpty(), transform + " " + rectangle);
+            }
+        }
+    }
+
+    @Test
+    void testEmpty() {
+        DistanceField field = new DistanceField(new Area(), 1);
+        assertFalse(field.contains(0, 0));
+        assertFalse(field.fitsInside(0, 0, 0));
+        assertTrue(field.fitsOutside(0, 0, 100));
+    }
+}
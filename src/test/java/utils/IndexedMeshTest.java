@@ -0,0 +1,132 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Model;
+import meshIneBits.util.IndexedMesh;
+import meshIneBits.util.TriangleStore;
+import meshIneBits.util.Vector3;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedMeshTest {
+
+    /**
+     * Tetrahedron: 4 triangles on 4 vertices
+     */
+    @Test
+    void testSharedVerticesWeldedOnce() {
+        double[][] p = {{0, 0, 0}, {1, 0, 0}, {0, 1, 0}, {0, 0, 1}};
+        int[][] faces = {{0, 2, 1}, {0, 1, 3}, {0, 3, 2}, {1, 2, 3}};
+        TriangleStore store = new TriangleStore();
+        for (int[] f : faces)
+            store.add(p[f[0]][0], p[f[0]][1], p[f[0]][2],
+                    p[f[1]][0], p[f[1]][1], p[f[1]][2],
+                    p[f[2]][0], p[f[2]][1], p[f[2]][2]);
+        // Not the same vertex, however close
+        store.add(0, 0, 1e-12, 1, 0, 0, 0, 1, 0);
+
+        IndexedMesh mesh = IndexedMesh.weld(store);
+        assertEquals(5, mesh.size());
+        assertEquals(5, mesh.getVertexCount());
+        // Vertices in order of first appearance
+        int[] expectedIndices = {0, 1, 2, 0, 2, 3, 0, 3, 1, 2, 1, 3, 4, 2, 1};
+        for (int t = 0; t < mesh.size(); t++)
+            for (int c = 0; c < 3; c++)
+                assertEquals(expectedIndices[t * 3 + c], mesh.getVertexIndex(t, c));
+    }
+
+    @Test
+    void testTrianglesKept() {
+        Random random = new Random(7);
+        TriangleStore store = new TriangleStore();
+        // Few distinct coordinates, so that many vertices are shared
+        double[] values = {-2.5, 0, 1.25, 3, 1e-9};
+        for (int t = 0; t < 5000; t++) {
+            double[] c = new double[9];
+            for (int i = 0; i < 9; i++)
+                c[i] = values[random.nextInt(values.length)];
+            store.add(c[0], c[1], c[2], c[3], c[4], c[5], c[6], c[7], c[8]);
+        }
+        IndexedMesh mesh = IndexedMesh.weld(store);
+        assertEquals(store.size(), mesh.size());
+        assertEquals(values.length * values.length * values.length, mesh.getVertexCount());
+        int next = 0;
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(store.getX(t, c), mesh.getX(t, c));
+                assertEquals(store.getY(t, c), mesh.getY(t, c));
+                assertEquals(store.getZ(t, c), mesh.getZ(t, c));
+                int index = mesh.getVertexIndex(t, c);
+                assertTrue(index <= next);
+                if (index == next)
+                    next++;
+            }
+        }
+        assertEquals(mesh.getVertexCount(), next);
+    }
+
+    @Test
+    void testTransformMovesSharedVerticesOnce() throws Exception {
+        Model model = new Model(this.getClass().getResource("/stlModel/Tour.stl").getPath());
+        IndexedMesh mesh = model.getTriangles();
+        assertTrue(mesh.getVertexCount() < mesh.size() * 3);
+        double[] before = new double[mesh.size() * 9];
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                before[t * 9 + c * 3] = mesh.getX(t, c);
+                before[t * 9 + c * 3 + 1] = mesh.getY(t, c);
+                before[t * 9 + c * 3 + 2] = mesh.getZ(t, c);
+            }
+        }
+
+        model.move(new Vector3(1, -2, 3));
+        mesh = model.getTriangles();
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(before[t * 9 + c * 3] + 1, mesh.getX(t, c));
+                assertEquals(before[t * 9 + c * 3 + 1] - 2, mesh.getY(t, c));
+                assertEquals(before[t * 9 + c * 3 + 2] + 3, mesh.getZ(t, c));
+            }
+        }
+
+        model.applyScale(2);
+        mesh = model.getTriangles();
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals((before[t * 9 + c * 3] + 1) * 2, mesh.getX(t, c), 1e-9);
+                assertEquals((before[t * 9 + c * 3 + 1] - 2) * 2, mesh.getY(t, c), 1e-9);
+                assertEquals((before[t * 9 + c * 3 + 2] + 3) * 2, mesh.getZ(t, c), 1e-9);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Layer;
+import meshIneBits.Mesh;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.AreaTool;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Horizontal areas of layers are built on first use
+ */
+class LayerAreaTest {
+
+    private static int TIME_LIMIT = 60;
+
+    @Test
+    void testAreaBuiltOnFirstRead() throws Exception {
+        Vector<Slice> slices = slice("Umbrella.stl").getSlices();
+        for (int i = 0; i < slices.size(); i++) {
+            Layer layer = new Layer(i, slices.get(i));
+            assertFalse(layer.isHorizontalAreaPrepared());
+            Area expected = AreaTool.getAreaFrom(slices.get(i));
+            Area area = layer.getHorizontalArea();
+            assertTrue(layer.isHorizontalAreaPrepared());
+            assertTrue(expected.equals(area));
+
+            // The copy does not share the area of the layer
+            assertNotSame(area, layer.getHorizontalArea());
+            area.subtract(new Area(new Rectangle2D.Double(-1e4, -1e4, 2e4, 1e4)));
+            area.add(new Area(new Rectangle2D.Double(1e4, 1e4, 1, 1)));
+            assertTrue(expected.equals(layer.getHorizontalArea()));
+        }
+    }
+
+    @Test
+    void testPrefetchLayersAround() throws Exception {
+        Mesh mesh = slice("Umbrella.stl");
+        Vector<Layer> layers = mesh.getLayers();
+        assertTrue(layers.size() > 10);
+        ForkJoinPool.commonPool().awaitQuiescence(TIME_LIMIT, TimeUnit.SECONDS);
+        // Only the first layers are prefetched once sliced
+        for (Layer layer : layers.subList(5, layers.size()))
+            assertFalse(layer.isHorizontalAreaPrepared());
+
+        int middle = layers.size() / 2;
+        mesh.prefetchLayersAround(middle);
+        ForkJoinPool.commonPool().awaitQuiescence(TIME_LIMIT, TimeUnit.SECONDS);
+        for (int i = 5; i < layers.size(); i++)
+            assertEquals(Math.abs(i - middle) <= 2, layers.get(i).isHorizontalAreaPrepared());
+        assertTrue(AreaTool.getAreaFrom(layers.get(middle).getHorizontalSection())
+                .equals(layers.get(middle).getHorizontalArea()));
+    }
+
+    private Mesh slice(String modelFilename) throws Exception {
+        Mesh mesh = new Mesh();
+        mesh.importModel(this.getClass().getResource("/stlModel/" + modelFilename).getPath());
+        mesh.slice();
+        long deadline = System.currentTimeMillis() + TIME_LIMIT * 1000;
+        while (!mesh.isSliced()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Cannot wait till the end of slicing");
+            Thread.sleep(100);
+        }
+        return mesh;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Layer;
+import meshIneBits.Mesh;
+import meshIneBits.slicer.Slice;
+import meshIneBits.util.Vector3;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MeshSerializationTest {
+
+    private static int TIME_LIMIT = 60;
+
+    /**
+     * <tt>TourLegacy.mesh</tt> is <tt>Tour.stl</tt> sliced and paved with
+     * the classic brick pattern, then saved by the version keeping
+     * triangles as a {@link java.util.Vector} of
+     * {@link meshIneBits.util.Triangle}
+     */
+    @Test
+    void testOpenMeshOfPreviousVersion() throws Exception {
+        Mesh legacy = Mesh.open(new File(getResourcePath("TourLegacy.mesh")));
+        Mesh expected = new Mesh();
+        expected.importModel(getResourcePath("Tour.stl"));
+        expected.slice();
+        waitSliced(expected);
+
+        assertEquals(expected.getModel().getTriangles().size(), legacy.getModel().getTriangles().size());
+        assertVectorEquals(expected.getModel().getMin(), legacy.getModel().getMin());
+        assertVectorEquals(expected.getModel().getMax(), legacy.getModel().getMax());
+        assertEquals(expected.getLayers().size(), legacy.getLayers().size());
+        int bits = 0;
+        for (Layer layer : legacy.getLayers())
+            bits += layer.getFlatPavement().getBitsKeys().size();
+        assertTrue(bits > 0);
+
+        // Migrated triangles slice like freshly read ones
+        legacy.slice();
+        waitSliced(legacy);
+        assertEquals(expected.getSlices().size(), legacy.getSlices().size());
+        for (int i = 0; i < expected.getSlices().size(); i++) {
+            Slice slice = expected.getSlices().get(i);
+            assertEquals(slice.getAltitude(), legacy.getSlices().get(i).getAltitude());
+            assertEquals(slice.getVertexCount(), legacy.getSlices().get(i).getVertexCount());
+        }
+
+        // Saved again in the current layout
+        File file = File.createTempFile("mesh", ".mesh");
+        try {
+            legacy.saveAs(file);
+            Mesh reopened = Mesh.open(file);
+            assertEquals(legacy.getModel().getTriangles().size(), reopened.getModel().getTriangles().size());
+            assertVectorEquals(legacy.getModel().getMax(), reopened.getModel().getMax());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static void assertVectorEquals(Vector3 expected, Vector3 actual) {
+        assertEquals(expected.x, actual.x, 1e-9);
+        assertEquals(expected.y, actual.y, 1e-9);
+        assertEquals(expected.z, actual.z, 1e-9);
+    }
+
+    private String getResourcePath(String filename) {
+        return this.getClass().getResource("/stlModel/" + filename).getPath();
+    }
+
+    private static void waitSliced(Mesh mesh) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIME_LIMIT * 1000;
+        while (!mesh.isSliced()) {
+            if (System.currentTimeMillis() > deadline)
+                fail("Cannot wait till the end of slicing");
+            Thread.sleep(100);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package utils;
+
+import meshIneBits.Model;
+import meshIneBits.slicer.SweepSlicer;
+import meshIneBits.util.IndexedMesh;
+import meshIneBits.util.Vector3;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import remixlab.dandelion.geom.Quat;
+import remixlab.dandelion.geom.Rotation;
+import remixlab.dandelion.geom.Vec;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Transforms of {@link Model} are deferred. They should end like applying each
+ * one to every vertex right away
+ */
+class ModelTransformTest {
+
+    private static final double EPSILON = 1e-3;
+
+    private Model model;
+    /**
+     * Coordinates of the corners of each triangle, transformed immediately
+     */
+    private double[] expected;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        model = new Model(this.getClass().getResource("/stlModel/Tour.stl").getPath());
+        IndexedMesh mesh = model.getTriangles();
+        expected = new double[mesh.size() * 9];
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                expected[t * 9 + c * 3] = mesh.getX(t, c);
+                expected[t * 9 + c * 3 + 1] = mesh.getY(t, c);
+                expected[t * 9 + c * 3 + 2] = mesh.getZ(t, c);
+            }
+        }
+    }
+
+    @Test
+    void testRotateScaleMove() {
+        rotate(new Quat(new Vec(1, 2, 3), 0.7f));
+        scale(1.5f);
+        move(new Vector3(10, -20, 5));
+        rotate(new Quat(new Vec(0, 0, 1), -1.2f));
+        move(new Vector3(-3, 4, 0.5));
+        scale(0.25f);
+        assertBoundsEqual();
+        assertVerticesEqual();
+    }
+
+    /**
+     * A move after a rotation only shifts the translation of the pending
+     * transform
+     */
+    @Test
+    void testMoveAfterRotate() {
+        rotate(new Quat(new Vec(0, 1, 0), (float) Math.PI / 3));
+        move(new Vector3(7, 8, 9));
+        move(new Vector3(-1, 0, 2));
+        assertVerticesEqual();
+        assertBoundsEqual();
+    }
+
+    /**
+     * Bounds of a model only scaled and moved are known without transforming
+     * the vertices
+     */
+    @Test
+    void testAxisAlignedBoundsNotApplied() {
+        double[] vertices = model.getTriangles().getVertices();
+        double[] stored = vertices.clone();
+        scale(2);
+        move(new Vector3(1, 2, 3));
+        scale(-0.5f);
+        move(new Vector3(0, 0, 10));
+        assertBoundsEqual();
+        assertArrayEquals(stored, vertices);
+        assertVerticesEqual();
+        assertFalse(Arrays.equals(stored, vertices));
+    }
+
+    @Test
+    void testIdentityKeepsVertices() {
+        SweepSlicer zIndex = model.getZIndex();
+        double[] stored = model.getTriangles().getVertices().clone();
+        move(new Vector3(3, -4, 5));
+        move(new Vector3(-3, 4, -5));
+        assertSame(zIndex, model.getZIndex());
+        assertArrayEquals(stored, model.getTriangles().getVertices());
+
+        // Centering a centered model
+        model.center();
+        zIndex = model.getZIndex();
+        stored = model.getTriangles().getVertices().clone();
+        model.center();
+        assertSame(zIndex, model.getZIndex());
+        assertArrayEquals(stored, model.getTriangles().getVertices());
+    }
+
+    private void rotate(Rotation r) {
+        model.rotate(r);
+        for (int i = 0; i < expected.length; i += 3) {
+            Vec v = r.rotate(new Vec((float) expected[i], (float) expected[i + 1], (float) expected[i + 2]));
+            expected[i] = v.x();
+            expected[i + 1] = v.y();
+            expected[i + 2] = v.z();
+        }
+    }
+
+    private void scale(float scaling) {
+        model.applyScale(scaling);
+        for (int i = 0; i < expected.length; i++)
+            expected[i] *= scaling;
+    }
+
+    private void move(Vector3 translate) {
+        model.move(translate);
+        for (int i = 0; i < expected.length; i += 3) {
+            expected[i] += translate.x;
+            expected[i + 1] += translate.y;
+            expected[i + 2] += translate.z;
+        }
+    }
+
+    private void assertBoundsEqual() {
+        double[] min = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE};
+        double[] max = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for (int i = 0; i < expected.length; i++) {
+            min[i % 3] = Math.min(min[i % 3], expected[i]);
+            max[i % 3] = Math.max(max[i % 3], expected[i]);
+        }
+        Vector3 modelMin = model.getMin();
+        Vector3 modelMax = model.getMax();
+        assertArrayEquals(min, new double[]{modelMin.x, modelMin.y, modelMin.z}, EPSILON);
+        assertArrayEquals(max, new double[]{modelMax.x, modelMax.y, modelMax.z}, EPSILON);
+    }
+
+    private void assertVerticesEqual() {
+        IndexedMesh mesh = model.getTriangles();
+        assertEquals(expected.length, mesh.size() * 9);
+        for (int t = 0; t < mesh.size(); t++) {
+            for (int c = 0; c < 3; c++) {
+                assertEquals(expected[t * 9 + c * 3], mesh.getX(t, c), EPSILON);
+                assertEquals(expected[t * 9 + c * 3 + 1], mesh.getY(t, c), EPSILON);
+                assertEquals(expected[t * 9 + c * 3 + 2], mesh.getZ(t, c), EPSILON);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package utils;
+
+import meshIneBits.Bit2D;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.CalculateAreaSurface;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Area;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PavementTest {
+
+    private static Bit2D bitAt(double x, double y) {
+        return new Bit2D(new Vector2(x, y), new Vector2(1, 0));
+    }
+
+    @Test
+    void testReplaceBitsAsGoodAsEqual() {
+        Pavement pavement = new Pavement(Collections.emptyList());
+        pavement.addBit(bitAt(10, 10));
+        // Same cell
+        Vector2 replacing = pavement.addBit(bitAt(10 + 3e-6, 10 - 3e-6));
+        assertEquals(1, pavement.getBitsKeys().size());
+        assertSame(replacing, pavement.getBitsKeys().iterator().next());
+        // Across a cell border
+        pavement.addBit(bitAt(1e-5 - 2e-6, 50));
+        pavement.addBit(bitAt(1e-5 + 2e-6, 50));
+        assertEquals(2, pavement.getBitsKeys().size());
+        // Close but not as good as equal
+        pavement.addBit(bitAt(100, 10));
+        pavement.addBit(bitAt(100 + 6e-6, 10 + 6e-6));
+        assertEquals(4, pavement.getBitsKeys().size());
+    }
+
+    @Test
+    void testKeysAfterRemoveAndCompact() {
+        List<Bit2D> bits = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            for (int j = 0; j < 100; j++)
+                bits.add(bitAt(i * 200, j * 40));
+        Pavement pavement = new Pavement(bits);
+        assertEquals(10000, pavement.getBitsKeys().size());
+
+        Vector2 removed = bits.get(0).getOrigin();
+        pavement.removeBit(removed);
+        assertNull(pavement.getBit(removed));
+        pavement.addBit(bitAt(0, 0));
+        assertEquals(10000, pavement.getBitsKeys().size());
+
+        pavement.compact();
+        Vector2 key = bits.get(42).getOrigin();
+        assertNotNull(pavement.getBit(key));
+        pavement.addBit(bitAt(key.x + 1e-6, key.y));
+        assertEquals(10000, pavement.getBitsKeys().size());
+        assertNull(pavement.getBit(key));
+    }
+
+    @Test
+    void testCompactionLastsThroughReads() throws Exception {
+        List<Bit2D> bits = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            for (int j = 0; j < 10; j++)
+                bits.add(bitAt(i * 200, j * 40));
+        Pavement pavement = new Pavement(bits);
+        // Trim the bits on the border
+        pavement.computeBits(new Area(new Rectangle2D.Double(-50, -10, 1500, 300)));
+        int size = pavement.getBitsKeys().size();
+        pavement.compact();
+
+        assertEquals(size, pavement.getBitsKeys().size());
+        Pavement clone = pavement.clone();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(pavement);
+        }
+        assertTrue(pavement.isCompacted());
+
+        Pavement read;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            read = (Pavement) ois.readObject();
+        }
+        for (Pavement copy : Arrays.asList(clone, read)) {
+            assertEquals(size, copy.getBitsKeys().size());
+            assertEquals(surfaceOf(pavement), surfaceOf(copy), 1e-6);
+        }
+        assertFalse(pavement.isCompacted());
+    }
+
+    private static double surfaceOf(Pavement pavement) {
+        double surface = 0;
+        for (Bit2D bit : pavement.getBits())
+            surface += CalculateAreaSurface.approxArea(bit.getArea(), 0);
+        return surface;
+    }
+
+    @Test
+    void testResizedBitsInsideAreCut() {
+        Area area = new Area(new Rectangle2D.Double(-1000, -1000, 2000, 2000));
+        double[][] percentages = {{100, 100}, {95, 100}, {100, 50}, {50, 50}};
+        for (double[] percentage : percentages) {
+            for (Vector2 orientation : Arrays.asList(new Vector2(1, 0), new Vector2(1, 1).normal())) {
+                double length = CraftConfig.lengthFull * percentage[0] / 100;
+                double width = CraftConfig.bitWidth * percentage[1] / 100;
+                // Without any shortcut
+                Bit2D expected = new Bit2D(new Vector2(0, 0), orientation, length, width);
+                expected.updateBoundaries(AreaTool.intersect(expected.getArea(), area));
+                expected.calcCutPath();
+
+                Bit2D actual = new Bit2D(new Vector2(0, 0), orientation, length, width);
+                Pavement pavement = new Pavement(Collections.singletonList(actual));
+                pavement.computeBits(area);
+
+                String size = Arrays.toString(percentage);
+                assertSame(actual, pavement.getBit(actual.getOrigin()), size);
+                assertEquals(expected.getInverseInCut(), actual.getInverseInCut(), size + " inverse in cut");
+                assertEquals(expected.isFullLength(), actual.isFullLength(), size + " full length");
+                Area difference = new Area(expected.getArea());
+                difference.exclusiveOr(actual.getArea());
+                assertEquals(0, CalculateAreaSurface.approxArea(difference, 0), 1e-6, size + " area");
+                assertEquals(toString(expected.getCutPaths()), toString(actual.getCutPaths()), size);
+            }
+        }
+    }
+
+    private static String toString(List<Path2D> paths) {
+        StringBuilder builder = new StringBuilder();
+        double[] coordinates = new double[6];
+        for (Path2D path : paths) {
+            for (PathIterator iterator = path.getPathIterator(null); !iterator.isDone(); iterator.next()) {
+                int type = iterator.currentSegment(coordinates);
+                builder.append(type).append(' ')
+                        .append(Math.round(coordinates[0] * 1e6)).append(' ')
+                        .append(Math.round(coordinates[1] * 1e6)).append(';');
+            }
+            builder.append('|');
+        }
+        return builder.toString();
+    }
+}
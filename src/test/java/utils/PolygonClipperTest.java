@@ -0,0 +1,200 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package utils;
+
+import meshIneBits.Bit2D;
+import meshIneBits.Pavement;
+import meshIneBits.config.CraftConfig;
+import meshIneBits.util.Contours;
+import meshIneBits.util.PolygonClipper;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonClipperTest {
+
+    private static final double TOLERANCE = Math.pow(10, -CraftConfig.errorAccepted);
+
+    private static Contours square(double x, double y, double size) {
+        return Contours.from(new Rectangle2D.Double(x, y, size, size));
+    }
+
+    private static Contours squareWithHole() {
+        Area area = new Area(new Rectangle2D.Double(0, 0, 10, 10));
+        area.subtract(new Area(new Rectangle2D.Double(3, 3, 4, 4)));
+        return Contours.from(area);
+    }
+
+    /**
+     * @return regular polygon approximating an ellipse
+     */
+    private static Area ellipse(double cx, double cy, double rx, double ry) {
+        Path2D path = new Path2D.Double();
+        path.moveTo(cx + rx, cy);
+        for (int i = 1; i < 60; i++)
+            path.lineTo(cx + rx * Math.cos(i * Math.PI / 30), cy + ry * Math.sin(i * Math.PI / 30));
+        path.closePath();
+        return new Area(path);
+    }
+
+    /**
+     * @return surface of the symmetric difference
+     */
+    private static double xorArea(Area a, Area b) {
+        Area xor = (Area) a.clone();
+        xor.exclusiveOr(b);
+        return Math.abs(Contours.from(xor).area());
+    }
+
+    @Test
+    void testOverlappingSquares() {
+        Contours a = square(0, 0, 10);
+        Contours b = square(5, 5, 10);
+        assertEquals(25, PolygonClipper.intersection(a, b).area(), TOLERANCE);
+        assertEquals(175, PolygonClipper.union(a, b).area(), TOLERANCE);
+        assertEquals(75, PolygonClipper.difference(a, b).area(), TOLERANCE);
+        assertEquals(75, PolygonClipper.difference(b, a).area(), TOLERANCE);
+    }
+
+    @Test
+    void testDisjointAndTouchingSquares() {
+        Contours a = square(0, 0, 10);
+        assertTrue(PolygonClipper.intersection(a, square(20, 0, 10)).isEmpty());
+        assertEquals(200, PolygonClipper.union(a, square(20, 0, 10)).area(), TOLERANCE);
+        // Sharing a whole edge
+        Contours b = square(10, 0, 10);
+        assertEquals(0, PolygonClipper.intersection(a, b).area(), TOLERANCE);
+        assertEquals(200, PolygonClipper.union(a, b).area(), TOLERANCE);
+        assertEquals(100, PolygonClipper.difference(a, b).area(), TOLERANCE);
+        // Same square
+        assertEquals(100, PolygonClipper.intersection(a, square(0, 0, 10)).area(), TOLERANCE);
+        assertTrue(PolygonClipper.difference(a, square(0, 0, 10)).isEmpty());
+    }
+
+    @Test
+    void testHoles() {
+        Contours holed = squareWithHole();
+        assertEquals(84, holed.area(), TOLERANCE);
+        assertFalse(holed.contains(5, 5));
+        assertTrue(holed.contains(1, 1));
+        // A bit crossing the hole
+        Contours bar = Contours.from(new Rectangle2D.Double(-1, 4, 12, 2));
+        assertEquals(12, PolygonClipper.intersection(holed, bar).area(), TOLERANCE);
+        assertEquals(96, PolygonClipper.union(holed, bar).area(), TOLERANCE);
+        assertEquals(72, PolygonClipper.difference(holed, bar).area(), TOLERANCE);
+        // Filling the hole exactly
+        Contours plug = square(3, 3, 4);
+        assertEquals(100, PolygonClipper.union(holed, plug).area(), TOLERANCE);
+        assertTrue(PolygonClipper.intersection(holed, plug).isEmpty());
+    }
+
+    @Test
+    void testSameResultsAsArea() {
+        Area a = squareWithHole().toArea();
+        Area b = ellipse(6.5, 1.5, 4.5, 4.5);
+        b.transform(AffineTransform.getRotateInstance(0.3, 5, 5));
+        Contours ca = Contours.from(a), cb = Contours.from(b);
+
+        Area expected = (Area) a.clone();
+        expected.intersect(b);
+        assertEquals(0, xorArea(expected, PolygonClipper.intersection(ca, cb).toArea()), TOLERANCE);
+        expected = (Area) a.clone();
+        expected.add(b);
+        assertEquals(0, xorArea(expected, PolygonClipper.union(ca, cb).toArea()), TOLERANCE);
+        expected = (Area) a.clone();
+        expected.subtract(b);
+        assertEquals(0, xorArea(expected, PolygonClipper.difference(ca, cb).toArea()), TOLERANCE);
+    }
+
+    @Test
+    void testPavingSameWithFlag() {
+        Area slice = ellipse(0, 0, 100, 80);
+        slice.subtract(new Area(new Rectangle2D.Double(-20, -30, 40, 60)));
+        List<Bit2D> bits = new ArrayList<>();
+        Vector2 orientation = new Vector2(1, 0.4).normal();
+        for (double x = -110; x < 110; x += CraftConfig.lengthFull / 2)
+            for (double y = -90; y < 90; y += CraftConfig.bitWidth / 2)
+                bits.add(new Bit2D(new Vector2(x, y), orientation));
+
+        boolean flag = CraftConfig.polygonClipping;
+        try {
+            CraftConfig.polygonClipping = false;
+            Pavement expected = new Pavement(bits).clone();
+            expected.computeBits(slice);
+            CraftConfig.polygonClipping = true;
+            Pavement actual = new Pavement(bits).clone();
+            actual.computeBits(slice);
+
+            assertEquals(expected.getBitsKeys(), actual.getBitsKeys());
+            for (Vector2 key : expected.getBitsKeys())
+                assertEquals(0, xorArea(expected.getBit(key).getArea(), actual.getBit(key).getArea()),
+                        TOLERANCE, "Bit at " + key);
+        } finally {
+            CraftConfig.polygonClipping = flag;
+        }
+    }
+
+    @Test
+    void testIntegerGeometry() {
+        boolean flag = CraftConfig.integerGeometry;
+        try {
+            CraftConfig.integerGeometry = true;
+            Contours holed = squareWithHole();
+            assertTrue(holed.isOnGrid());
+            Contours bar = Contours.from(new Rectangle2D.Double(-1, 4, 12, 2));
+            assertEquals(12, PolygonClipper.intersection(holed, bar).area(), TOLERANCE);
+            assertEquals(96, PolygonClipper.union(holed, bar).area(), TOLERANCE);
+            assertEquals(72, PolygonClipper.difference(holed, bar).area(), TOLERANCE);
+            assertTrue(PolygonClipper.intersection(holed, square(3, 3, 4)).isEmpty());
+
+            // Snapping moves each vertex by half a grid unit at most
+            Area a = squareWithHole().toArea();
+            Area b = ellipse(6.5, 1.5, 4.5, 4.5);
+            b.transform(AffineTransform.getRotateInstance(0.3, 5, 5));
+            Area expected = (Area) a.clone();
+            expected.intersect(b);
+            Contours actual = PolygonClipper.intersection(Contours.from(a), Contours.from(b));
+            CraftConfig.integerGeometry = false;
+            assertEquals(Contours.from(expected).area(), actual.area(), 100 * TOLERANCE);
+            Rectangle2D expectedBounds = expected.getBounds2D(), actualBounds = actual.getBounds2D();
+            assertEquals(expectedBounds.getMinX(), actualBounds.getMinX(), TOLERANCE);
+            assertEquals(expectedBounds.getMinY(), actualBounds.getMinY(), TOLERANCE);
+            assertEquals(expectedBounds.getMaxX(), actualBounds.getMaxX(), TOLERANCE);
+            assertEquals(expectedBounds.getMaxY(), actualBounds.getMaxY(), TOLERANCE);
+        } finally {
+            CraftConfig.integerGeometry = flag;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * MeshIneBits is a Java software to disintegrate a 3d mesh (model in .stl)
+ * into a network of standard parts (called "Bits").
+ *
+ * Copyright (C) 2016  CASSARD Thibault & GOUJU Nicolas..
+ * Copyright (C) 2017-2018  TRAN Quoc Nhat Han.
+ * Copyright (C) 2018 VALLON Benjamin.
+ * Copyright (C) 2018 LORIMER Campbell.
+ * Copyright (C) 2018 D'AUTUME Christian.
+ * Copyright (C) 2019 DURINGER Nathan (Tests).
+ * Copyright (C) 2020 CLARIS Etienne & RUSSO André.
+ * Copyright (C) 2020-2021 DO Quang Bao.
+ * Copyright (C) 2021 VANNIYASINGAM Mithulan.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+
+package utils;
+
+import meshIneBits.Bit2D;
+import meshIneBits.Pavement;
+import meshIneBits.util.AreaTool;
+import meshIneBits.util.Contours;
+import meshIneBits.util.PolygonOffset;
+import meshIneBits.util.PolygonOffset.JoinType;
+import meshIneBits.util.Vector2;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonOffsetTest {
+
+    private static double surface(Area area) {
+        return Math.abs(Contours.from(area).area());
+    }
+
+    @Test
+    void testRectangle() {
+        Area rectangle = new Area(new Rectangle2D.Double(0, 0, 10, 4));
+        Area grown = PolygonOffset.offset(rectangle, 1, JoinType.MITER, 2);
+        assertEquals(new Rectangle2D.Double(-1, -1, 12, 6), grown.getBounds2D());
+        assertEquals(12 * 6, surface(grown), 1e-9);
+        // Quarter discs at corners
+        Area rounded = PolygonOffset.offset(rectangle, 1, JoinType.ROUND, 0);
+        assertEquals(40 + 28 + Math.PI, surface(rounded), 1e-2);
+        Area shrunk = PolygonOffset.offset(rectangle, -1, JoinType.MITER, 2);
+        assertEquals(8 * 2, surface(shrunk), 1e-9);
+        assertTrue(PolygonOffset.offset(rectangle, -2, JoinType.MITER, 2).isEmpty());
+    }
+
+    @Test
+    void testConcaveAndHoles() {
+        // U shape whose notch closes when grown
+        Area u = new Area(new Rectangle2D.Double(0, 0, 30, 20));
+        u.subtract(new Area(new Rectangle2D.Double(10, 5, 10, 15)));
+        Area grown = PolygonOffset.offset(u, 6, JoinType.MITER, 2);
+        assertEquals(42 * 32, surface(grown), 1e-9);
+        // Hole filled by a larger offset
+        Area ring = new Area(new Rectangle2D.Double(0, 0, 20, 20));
+        ring.subtract(new Area(new Rectangle2D.Double(8, 8, 4, 4)));
+        assertEquals(1, Contours.from(PolygonOffset.offset(ring, 1, JoinType.MITER, 2)).ringCount() - 1);
+        assertEquals(1, Contours.from(PolygonOffset.offset(ring, 3, JoinType.MITER, 2)).ringCount());
+        // Parallel consecutive edges
+        Area steps = new Area(new Rectangle2D.Double(0, 0, 10, 10));
+        steps.add(new Area(new Rectangle2D.Double(10, 0, 10, 10)));
+        assertEquals(22 * 12, surface(AreaTool.expand(steps, 1.0)), 1e-9);
+    }
+
+    @Test
+    void testOffsetAll() {
+        List<Area> areas = List.of(
+                new Area(new Rectangle2D.Double(0, 0, 10, 4)),
+                new Area(new Rectangle2D.Double(20, 0, 5, 5)));
+        List<Area> grown = AreaTool.expandAll(areas, 1);
+        assertEquals(2, grown.size());
+        for (int i = 0; i < areas.size(); i++)
+            assertTrue(AreaTool.expand(areas.get(i), 1.0).equals(grown.get(i)));
+        assertEquals(12 * 6 + 7 * 7, surface(AreaTool.union(grown)), 1e-9);
+        // Overlapping, one of them with a hole
+        Area ring = new Area(new Rectangle2D.Double(0, 0, 10, 10));
+        ring.subtract(new Area(new Rectangle2D.Double(3, 3, 4, 4)));
+        Area union = AreaTool.union(List.of(ring, new Area(new Rectangle2D.Double(5, 0, 10, 10))));
+        assertEquals(15 * 10 - 2 * 4, surface(union), 1e-9);
+    }
+
+    @Test
+    void testSafeguardSpaceBetweenBits() {
+        Bit2D left = new Bit2D(new Vector2(0, 0), new Vector2(1, 0));
+        Bit2D right = new Bit2D(new Vector2(left.getLength(), 0), new Vector2(1, 0));
+        Pavement pavement = new Pavement(List.of(left, right));
+        Area slice = new Area(new Rectangle2D.Double(-500, -500, 1000, 1000));
+        pavement.computeBitsWithSpaceAround(slice);
+        double total = pavement.getBits().stream().mapToDouble(b -> surface(b.getArea())).sum();
+        // One of both bits loses a strip as wide as the safeguard space
+        double full = left.getLength() * left.getWidth();
+        assertTrue(total < 2 * full - 0.5 * left.getWidth(), "total=" + total);
+        assertTrue(total > full, "total=" + total);
+    }
+}